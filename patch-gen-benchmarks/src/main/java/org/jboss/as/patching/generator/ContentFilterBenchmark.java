@@ -0,0 +1,113 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModuleItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Runs the content filters of a patch config which specifies thousands of misc files and modules, and of a
+ * skip-misc-files element with a few hundred expressions, against the content of a distribution.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContentFilterBenchmark {
+
+    @Param({"5000"})
+    public int specified;
+
+    @Param({"200"})
+    public int expressions;
+
+    private PatchConfigBuilder config;
+    private PatchElementConfigBuilder element;
+    private SkipMiscFilesContentItemFilter skipMiscFiles;
+    private final List<MiscContentItem> miscFiles = new ArrayList<MiscContentItem>();
+    private final List<ModuleItem> modules = new ArrayList<ModuleItem>();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        config = new PatchConfigBuilder();
+        config.setGenerateByDiff(false);
+        element = config.addElement("base");
+        final List<String> included = new ArrayList<String>();
+        for (int i = 0; i < specified * 2; i++) {
+            final MiscContentItem misc = new MiscContentItem("file" + i + ".txt", new String[]{"docs", "dir" + i % 50}, null);
+            final ModuleItem module = new ModuleItem("org.jboss.module" + i % 50 + ".m" + i, "main", null);
+            // Every other item of the distribution was specified
+            if (i % 2 == 0) {
+                config.getSpecifiedContent().add(misc);
+                element.getSpecifiedContent().add(module);
+            }
+            miscFiles.add(misc);
+            modules.add(module);
+        }
+        for (int i = 0; i < expressions; i++) {
+            included.add("docs/dir" + i + "/.*\\.xml");
+        }
+        skipMiscFiles = SkipMiscFilesContentItemFilter.create(included);
+    }
+
+    @Benchmark
+    public void acceptMiscFiles(final Blackhole blackhole) {
+        for (final MiscContentItem misc : miscFiles) {
+            blackhole.consume(config.accepts(misc));
+        }
+    }
+
+    @Benchmark
+    public void acceptModules(final Blackhole blackhole) {
+        for (final ModuleItem module : modules) {
+            blackhole.consume(element.accepts(module));
+        }
+    }
+
+    @Benchmark
+    public void skipMiscFiles(final Blackhole blackhole) {
+        for (final MiscContentItem misc : miscFiles) {
+            blackhole.consume(skipMiscFiles.accepts(misc));
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds, walks and looks up a synthetic content item tree, and sorts its items in a {@code TreeSet}. Run with
+ * {@code -prof gc} to see the allocation rate and the retained size per item along with the timings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ContentTreeBenchmark {
+
+    @Param({"20000"})
+    public int items;
+
+    private static final byte[] NO_HASH = new byte[0];
+
+    private String[][] paths;
+    private DistributionContentItem root;
+    private List<DistributionContentItem> lookups;
+    private Set<DistributionContentItem> index;
+    private List<DistributionContentItem> shuffled;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(items);
+        paths = new String[items][];
+        for (int i = 0; i < items; i++) {
+            final String[] path = new String[2 + random.nextInt(5)];
+            for (int j = 0; j < path.length - 1; j++) {
+                path[j] = "dir" + random.nextInt(8);
+            }
+            path[path.length - 1] = "file" + random.nextInt(items) + ".txt";
+            paths[i] = path;
+        }
+        root = build();
+        index = new HashSet<DistributionContentItem>();
+        collect(root, index);
+        // Equal, but not identical items
+        final DistributionContentItem copy = build();
+        lookups = new ArrayList<DistributionContentItem>();
+        collect(copy, lookups);
+        shuffled = new ArrayList<DistributionContentItem>(lookups);
+        Collections.shuffle(shuffled, random);
+    }
+
+    @Benchmark
+    public DistributionContentItem buildTree() {
+        return build();
+    }
+
+    @Benchmark
+    public int walkTree() {
+        return walk(root);
+    }
+
+    @Benchmark
+    public int lookup() {
+        int found = 0;
+        for (final DistributionContentItem item : lookups) {
+            if (index.contains(item)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public Set<DistributionContentItem> treeSet() {
+        final Set<DistributionContentItem> set = new TreeSet<DistributionContentItem>();
+        for (final DistributionContentItem item : shuffled) {
+            set.add(item);
+        }
+        return set;
+    }
+
+    private DistributionContentItem build() {
+        final DistributionItemImpl root = new DistributionItemImpl(null, "", new HashArena(), NO_HASH, NO_HASH, false);
+        final Map<String, DistributionContentItem> dirs = new HashMap<String, DistributionContentItem>();
+        for (final String[] path : paths) {
+            DistributionContentItem parent = root;
+            final StringBuilder key = new StringBuilder();
+            for (int i = 0; i < path.length - 1; i++) {
+                key.append(path[i]).append('/');
+                DistributionContentItem dir = dirs.get(key.toString());
+                if (dir == null) {
+                    dir = new DistributionItemImpl(parent, path[i], NO_HASH, NO_HASH, false);
+                    parent.getChildren().add(dir);
+                    dirs.put(key.toString(), dir);
+                }
+                parent = dir;
+            }
+            parent.getChildren().add(new DistributionItemImpl(parent, path[path.length - 1], NO_HASH, NO_HASH, true));
+        }
+        return root;
+    }
+
+    private static int walk(final DistributionContentItem item) {
+        int count = 1;
+        for (final DistributionContentItem child : item.getChildren()) {
+            count += walk(child);
+        }
+        return count;
+    }
+
+    private static void collect(final DistributionContentItem item, final Collection<DistributionContentItem> items) {
+        items.add(item);
+        for (final DistributionContentItem child : item.getChildren()) {
+            collect(child, items);
+        }
+    }
+
+}
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.metadata.Patch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Processes and compares two generated distributions. The hashes are calculated on first access and cached by the
+ * content items, so {@code compare} measures {@code compareMiscFiles} and {@code compareModuleItems} along with
+ * building the patch metadata, while {@code process} measures walking a distribution without hashing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DistributionCompareBenchmark {
+
+    @Param({"500", "5000"})
+    public int modules;
+
+    @Param({"5000"})
+    public int miscFiles;
+
+    private DistributionGenerator generator;
+    private File root;
+    private File updatedRoot;
+    private Distribution original;
+    private Distribution updated;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("patch-gen-compare").toFile();
+        final File originalRoot = new File(root, "original");
+        updatedRoot = new File(root, "updated");
+        generator = new DistributionGenerator().setModules(modules).setMiscFiles(miscFiles);
+        generator.generate(originalRoot);
+        generator.generate(updatedRoot);
+        generator.mutate(updatedRoot);
+        original = Distribution.create(originalRoot);
+        updated = Distribution.create(updatedRoot);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Benchmark
+    public Distribution process() throws IOException {
+        return Distribution.create(updatedRoot);
+    }
+
+    @Benchmark
+    public Patch compare() {
+        return generator.createPatchBuilder().compare(original, updated, true);
+    }
+
+}
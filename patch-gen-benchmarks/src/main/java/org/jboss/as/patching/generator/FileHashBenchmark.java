@@ -0,0 +1,108 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.HashUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the stream based {@code HashUtils} with the mapped and streamed paths of {@link FileHashUtils}. The
+ * chunk size of the mapped path can be changed with {@code -jvmArgs -Dpatch.gen.hash.chunk.size=<bytes>}. Once
+ * {@code -Dpatch.gen.hash.mapped.budget} is used up by mappings not collected yet, the mapped path streams as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FileHashBenchmark {
+
+    @Param({"1048576", "67108864", "536870912"})
+    public long size;
+
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = File.createTempFile("patch-gen-hash", ".bin");
+        final byte[] buffer = new byte[1024 * 1024];
+        final Random random = new Random(size);
+        final FileOutputStream os = new FileOutputStream(file);
+        try {
+            long remaining = size;
+            while (remaining > 0) {
+                random.nextBytes(buffer);
+                final int l = (int) Math.min(buffer.length, remaining);
+                os.write(buffer, 0, l);
+                remaining -= l;
+            }
+        } finally {
+            os.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Benchmark
+    public byte[] hashUtils() throws IOException {
+        return HashUtils.hashFile(file);
+    }
+
+    @Benchmark
+    public byte[] streamed() throws IOException {
+        final MessageDigest digest = FileHashUtils.createDigest();
+        FileHashUtils.updateDigestStreamed(digest, file);
+        return digest.digest();
+    }
+
+    @Benchmark
+    public byte[] mapped() throws IOException {
+        final MessageDigest digest = FileHashUtils.createDigest();
+        FileHashUtils.updateDigestMapped(digest, file, FileHashUtils.CHUNK_SIZE);
+        return digest.digest();
+    }
+
+}
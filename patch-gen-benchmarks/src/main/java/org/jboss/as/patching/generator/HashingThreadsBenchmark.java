@@ -0,0 +1,96 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scans and hashes a generated distribution on the platform and on the virtual threads of {@link HashingThreads}.
+ * Virtual threads need Java 21, before that both run on platform threads. The distribution is created in the temp
+ * directory, pointing {@code -jvmArgs -Djava.io.tmpdir=<dir>} at network storage measures the case the virtual threads
+ * are meant for. The number of files open at the same time can be changed with
+ * {@code -jvmArgs -Dpatch.gen.hash.max.open.files=<files>}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class HashingThreadsBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threads;
+
+    @Param({"500"})
+    public int modules;
+
+    @Param({"5000"})
+    public int miscFiles;
+
+    private File root;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("patch-gen-threads").toFile();
+        new DistributionGenerator().setModules(modules).setMiscFiles(miscFiles).generate(root);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Benchmark
+    public Distribution scanAndHash() throws IOException {
+        final ExecutorService executor = HashingThreads.create(HashingScheduler.THREADS, "virtual".equals(threads));
+        try {
+            final HashingScheduler scheduler = new HashingScheduler(executor, HashingScheduler.MAX_IN_FLIGHT, PatchGenMetrics.DISABLED, null);
+            final Distribution distribution = Distribution.create(root, scheduler, ModuleDiffUtils.METADATA_ONLY);
+            scheduler.awaitCompletion();
+            return distribution;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares checking the ignored paths with one {@code GlobPathFilter} per path against the compiled
+ * {@link IgnoredPathMatcher}, for every item of a synthetic distribution tree visited top down. A new matcher is
+ * created for every invocation, so the cost of building the DFA is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class IgnoredPathBenchmark {
+
+    // The paths ignored by default, plus the ones used when the version is not included
+    private static final List<String> IGNORED = Arrays.asList(
+            "bin/product.conf", "modules/layers.conf", "bundles/layers.conf",
+            "appclient/configuration**", "appclient/data**", "appclient/log**", "appclient/tmp**",
+            "domain/configuration**", "domain/data**", "domain/log**", "domain/servers**", "domain/tmp**",
+            "standalone/configuration**", "standalone/data**", "standalone/log**", "standalone/tmp**",
+            "org/jboss/as/product", "org/jboss/as/version");
+
+    @Param({"20000"})
+    public int items;
+
+    private List<DistributionContentItem> tree;
+    private List<DistributionContentItem.GlobPathFilter> filters;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        tree = new ArrayList<DistributionContentItem>(items);
+        final DistributionContentItem root = new DistributionItemImpl(null, null, new HashArena(), IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+        final String[] top = {"bin", "docs", "domain", "standalone", "appclient", "welcome-content", "modules"};
+        int i = 0;
+        while (tree.size() < items) {
+            final DistributionContentItem first = create(root, top[i % top.length]);
+            final DistributionContentItem second = create(first, "dir" + (i % 17));
+            final DistributionContentItem third = create(second, "org" + (i % 5));
+            for (int j = 0; j < 10 && tree.size() < items; j++) {
+                create(third, "file" + i + "-" + j + ".jar");
+            }
+            i++;
+        }
+        filters = new ArrayList<DistributionContentItem.GlobPathFilter>();
+        for (final String path : IGNORED) {
+            filters.add(new DistributionContentItem.GlobPathFilter(path));
+        }
+    }
+
+    private DistributionContentItem create(final DistributionContentItem parent, final String name) {
+        final DistributionContentItem item = new DistributionItemImpl(parent, name, IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+        tree.add(item);
+        return item;
+    }
+
+    @Benchmark
+    public void globPathFilters(final Blackhole blackhole) {
+        for (final DistributionContentItem item : tree) {
+            boolean ignored = false;
+            for (final DistributionContentItem.GlobPathFilter filter : filters) {
+                if (filter.accept(item)) {
+                    ignored = true;
+                    break;
+                }
+            }
+            blackhole.consume(ignored);
+        }
+    }
+
+    @Benchmark
+    public void compiledMatcher(final Blackhole blackhole) {
+        final IgnoredPathMatcher matcher = new IgnoredPathMatcher(IGNORED);
+        for (final DistributionContentItem item : tree) {
+            blackhole.consume(matcher.matches(item));
+        }
+    }
+
+}
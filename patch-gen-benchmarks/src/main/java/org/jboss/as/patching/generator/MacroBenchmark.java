@@ -0,0 +1,388 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.jboss.as.patching.IoUtils;
+
+/**
+ * Runs the whole {@link PatchGenerator} in-process on generated distributions, for a number of distribution sizes and
+ * change ratios. Every run records the time spent in each phase, the bytes allocated and the peak heap, the median of
+ * the measured runs is written as JSON.
+ * <p/>
+ * Given the results of an earlier run as baseline, every metric exceeding its baseline by more than the threshold is
+ * reported as a regression and the run exits with status 1, so it can gate a build. The hashing is awaited before the
+ * comparison to time it separately, which costs the overlap of the two phases.
+ */
+public final class MacroBenchmark {
+
+    static final String SIZES = "--sizes";
+    static final String CHANGES = "--changes";
+    static final String WARMUP = "--warmup";
+    static final String ITERATIONS = "--iterations";
+    static final String OUTPUT = "--output";
+    static final String BASELINE = "--baseline";
+    static final String THRESHOLD = "--threshold";
+
+    static final String TOTAL = "totalMs";
+    static final String ALLOCATED = "allocatedMb";
+    static final String ALLOCATION_RATE = "allocationRateMbPerSec";
+    static final String PEAK_HEAP = "peakHeapMb";
+
+    // Metrics below this value in the baseline are too small to gate on
+    private static final double MIN_GATED = 1.0;
+    private static final Pattern METRIC = Pattern.compile("\"(\\w+)\": (-?[0-9.]+(?:[eE]-?[0-9]+)?)");
+
+    private MacroBenchmark() {
+    }
+
+    public static void main(final String[] args) throws Exception {
+        List<Integer> sizes = Arrays.asList(1000, 10000, 50000);
+        List<Integer> changes = Arrays.asList(1, 10, 30);
+        int warmup = 1;
+        int iterations = 3;
+        File output = new File("macro-result.json");
+        File baseline = null;
+        double threshold = 10;
+
+        for (final String arg : args) {
+            if (arg.startsWith(SIZES + "=")) {
+                sizes = parseList(arg.substring(SIZES.length() + 1));
+            } else if (arg.startsWith(CHANGES + "=")) {
+                changes = parseList(arg.substring(CHANGES.length() + 1));
+            } else if (arg.startsWith(WARMUP + "=")) {
+                warmup = Integer.parseInt(arg.substring(WARMUP.length() + 1));
+            } else if (arg.startsWith(ITERATIONS + "=")) {
+                iterations = Integer.parseInt(arg.substring(ITERATIONS.length() + 1));
+            } else if (arg.startsWith(OUTPUT + "=")) {
+                output = new File(arg.substring(OUTPUT.length() + 1));
+            } else if (arg.startsWith(BASELINE + "=")) {
+                baseline = new File(arg.substring(BASELINE.length() + 1));
+            } else if (arg.startsWith(THRESHOLD + "=")) {
+                threshold = Double.parseDouble(arg.substring(THRESHOLD.length() + 1));
+            } else {
+                throw processingError("unknown argument %s, expected %s, %s, %s, %s, %s, %s or %s", arg,
+                        SIZES, CHANGES, WARMUP, ITERATIONS, OUTPUT, BASELINE, THRESHOLD);
+            }
+        }
+        if (iterations < 1) {
+            throw processingError("%s must be at least 1", ITERATIONS);
+        }
+
+        final Map<String, Map<String, Double>> results = new LinkedHashMap<String, Map<String, Double>>();
+        final File workDir = Files.createTempDirectory("patch-gen-macro").toFile();
+        try {
+            for (final int files : sizes) {
+                for (final int percent : changes) {
+                    final Map<String, Double> result = run(new File(workDir, files + "-" + percent), files, percent, warmup, iterations);
+                    results.put(key(files, percent), result);
+                    System.out.printf(Locale.ROOT, "%s: %s%n", key(files, percent), format(result));
+                }
+            }
+        } finally {
+            IoUtils.recursiveDelete(workDir);
+        }
+        writeResults(output, results);
+
+        if (baseline != null) {
+            final List<String> regressions = compare(readResults(baseline), results, threshold);
+            for (final String regression : regressions) {
+                System.out.println("REGRESSION " + regression);
+            }
+            if (!regressions.isEmpty()) {
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Generate a pair of distributions and generate the patch between them.
+     *
+     * @param dir the directory for the distributions and the patch
+     * @param files the approximate number of files in a distribution
+     * @param percent the share of the modules and files changed in the updated distribution
+     * @param warmup the number of runs which are not measured
+     * @param iterations the number of measured runs
+     * @return the median of each metric
+     * @throws Exception
+     */
+    static Map<String, Double> run(final File dir, final int files, final int percent, final int warmup, final int iterations) throws Exception {
+        // Half of the files belong to modules, with a module.xml and a jar each, most of the others are misc files
+        final int modules = files / 4;
+        final int bundles = files / 100;
+        final int other = Math.max(0, files - 2 * modules - 2 * bundles);
+        final DistributionGenerator generator = new DistributionGenerator()
+                .setModules(modules)
+                .setBundles(bundles)
+                .setMiscFiles(other)
+                .setChanges(percent, Math.max(1, percent / 5), Math.max(1, percent / 5), percent);
+        final File original = new File(dir, "original");
+        final File updated = new File(dir, "updated");
+        final File config = new File(dir, "patch-config.xml");
+        final File patchFile = new File(dir, "patch.zip");
+        generator.generate(original);
+        generator.generate(updated);
+        generator.mutate(updated);
+        generator.writePatchConfig(config);
+        final String[] args = {
+                PatchGenerator.PATCH_CONFIG + "=" + config.getAbsolutePath(),
+                PatchGenerator.APPLIES_TO_DIST + "=" + original.getAbsolutePath(),
+                PatchGenerator.UPDATED_DIST + "=" + updated.getAbsolutePath(),
+                PatchGenerator.OUTPUT_FILE + "=" + patchFile.getAbsolutePath(),
+        };
+
+        final List<Map<String, Double>> runs = new ArrayList<Map<String, Double>>();
+        try {
+            for (int i = 0; i < warmup + iterations; i++) {
+                System.gc();
+                final MemorySampler sampler = new MemorySampler();
+                sampler.start();
+                final long start = System.nanoTime();
+                final PhaseTimings timings;
+                try {
+                    timings = PatchGenerator.generate(true, args);
+                } finally {
+                    sampler.finish();
+                }
+                final double total = (System.nanoTime() - start) / 1e6;
+                if (timings == null) {
+                    throw processingError("no patch generated for %s", dir);
+                }
+                patchFile.delete();
+                if (i < warmup) {
+                    continue;
+                }
+                final Map<String, Double> metrics = new LinkedHashMap<String, Double>();
+                metrics.put(TOTAL, total);
+                for (final PatchGenerationListener.Phase phase : PatchGenerationListener.Phase.values()) {
+                    metrics.put(phaseMetric(phase), timings.getNanos(phase) / 1e6);
+                }
+                final double allocated = sampler.getAllocatedBytes() / (1024.0 * 1024);
+                metrics.put(ALLOCATED, allocated);
+                metrics.put(ALLOCATION_RATE, allocated / (total / 1000));
+                metrics.put(PEAK_HEAP, sampler.getPeakHeapBytes() / (1024.0 * 1024));
+                runs.add(metrics);
+            }
+        } finally {
+            IoUtils.recursiveDelete(dir);
+        }
+
+        final Map<String, Double> result = new LinkedHashMap<String, Double>();
+        result.put("files", (double) files);
+        result.put("changes", (double) percent);
+        for (final String metric : runs.get(0).keySet()) {
+            final double[] values = new double[runs.size()];
+            for (int i = 0; i < values.length; i++) {
+                values[i] = runs.get(i).get(metric);
+            }
+            Arrays.sort(values);
+            result.put(metric, values[values.length / 2]);
+        }
+        return result;
+    }
+
+    /**
+     * Compare the results with a baseline.
+     *
+     * @param baseline the baseline results
+     * @param results the current results
+     * @param threshold the accepted increase of a metric, in percent
+     * @return the regressions
+     */
+    static List<String> compare(final Map<String, Map<String, Double>> baseline, final Map<String, Map<String, Double>> results, final double threshold) {
+        final List<String> regressions = new ArrayList<String>();
+        for (final Map.Entry<String, Map<String, Double>> entry : results.entrySet()) {
+            final Map<String, Double> expected = baseline.get(entry.getKey());
+            if (expected == null) {
+                continue;
+            }
+            for (final Map.Entry<String, Double> metric : entry.getValue().entrySet()) {
+                final Double value = expected.get(metric.getKey());
+                // The rate follows from the allocated bytes and the time, which are gated already
+                if (value == null || value < MIN_GATED || !metric.getKey().endsWith("Ms") && !metric.getKey().endsWith("Mb")) {
+                    continue;
+                }
+                final double increase = (metric.getValue() - value) / value * 100;
+                if (increase > threshold) {
+                    regressions.add(String.format(Locale.ROOT, "%s %s: %.1f -> %.1f (+%.1f%%, threshold %.1f%%)",
+                            entry.getKey(), metric.getKey(), value, metric.getValue(), increase, threshold));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    static void writeResults(final File file, final Map<String, Map<String, Double>> results) throws IOException {
+        final StringBuilder sb = new StringBuilder("{\n  \"scenarios\": [\n");
+        int i = 0;
+        for (final Map<String, Double> result : results.values()) {
+            sb.append("    {").append(format(result)).append('}');
+            sb.append(++i < results.size() ? ",\n" : "\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Read the results written by {@link #writeResults(File, Map)}, which have a scenario per line.
+     *
+     * @param file the results file
+     * @return the results by scenario
+     * @throws IOException
+     */
+    static Map<String, Map<String, Double>> readResults(final File file) throws IOException {
+        final Map<String, Map<String, Double>> results = new HashMap<String, Map<String, Double>>();
+        for (final String line : Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)) {
+            final Map<String, Double> result = new LinkedHashMap<String, Double>();
+            final Matcher matcher = METRIC.matcher(line);
+            while (matcher.find()) {
+                result.put(matcher.group(1), Double.parseDouble(matcher.group(2)));
+            }
+            if (result.containsKey("files") && result.containsKey("changes")) {
+                results.put(key(result.get("files").intValue(), result.get("changes").intValue()), result);
+            }
+        }
+        return results;
+    }
+
+    private static String phaseMetric(final PatchGenerationListener.Phase phase) {
+        return phase.name().toLowerCase(Locale.ROOT) + "Ms";
+    }
+
+    private static String key(final int files, final int changes) {
+        return "files=" + files + ",changes=" + changes;
+    }
+
+    private static String format(final Map<String, Double> result) {
+        final StringBuilder sb = new StringBuilder();
+        for (final Map.Entry<String, Double> metric : result.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            final double value = metric.getValue();
+            sb.append('"').append(metric.getKey()).append("\": ");
+            sb.append(value == Math.rint(value) ? String.valueOf((long) value) : String.format(Locale.ROOT, "%.2f", value));
+        }
+        return sb.toString();
+    }
+
+    private static List<Integer> parseList(final String value) {
+        final List<Integer> list = new ArrayList<Integer>();
+        for (final String item : value.split(",")) {
+            list.add(Integer.parseInt(item.trim()));
+        }
+        return list;
+    }
+
+    /**
+     * Samples the heap usage and the bytes allocated by all threads, including the hashing threads which terminate
+     * once the generation is done. The allocations of a thread after its last sample are lost, which the short
+     * interval keeps small.
+     */
+    static final class MemorySampler extends Thread {
+
+        private static final long INTERVAL = 10;
+
+        private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final Map<Long, Long> initial = new HashMap<Long, Long>();
+        private final Map<Long, Long> last = new HashMap<Long, Long>();
+        private volatile boolean running = true;
+        private long peakHeap;
+
+        MemorySampler() {
+            super("patch-gen-macro-sampler");
+            setDaemon(true);
+            // Only count what got allocated after this point
+            sample(initial);
+            last.putAll(initial);
+            peakHeap = memory.getHeapMemoryUsage().getUsed();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                sample(last);
+                try {
+                    Thread.sleep(INTERVAL);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        void finish() throws InterruptedException {
+            running = false;
+            join();
+            sample(last);
+        }
+
+        long getAllocatedBytes() {
+            long allocated = 0;
+            for (final Map.Entry<Long, Long> entry : last.entrySet()) {
+                final Long start = initial.get(entry.getKey());
+                allocated += entry.getValue() - (start == null ? 0 : start);
+            }
+            return allocated;
+        }
+
+        long getPeakHeapBytes() {
+            return peakHeap;
+        }
+
+        private void sample(final Map<Long, Long> allocated) {
+            peakHeap = Math.max(peakHeap, memory.getHeapMemoryUsage().getUsed());
+            if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+                return;
+            }
+            final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+            final long[] ids = threads.getAllThreadIds();
+            final long[] bytes = allocations.getThreadAllocatedBytes(ids);
+            for (int i = 0; i < ids.length; i++) {
+                // Not counting the sampling itself
+                if (bytes[i] >= 0 && ids[i] != getId()) {
+                    allocated.put(ids[i], bytes[i]);
+                }
+            }
+        }
+    }
+
+}
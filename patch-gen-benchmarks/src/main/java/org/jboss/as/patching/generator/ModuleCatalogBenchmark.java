@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares two module catalogs where every hundredth module was modified. Run with {@code -prof gc} to check the
+ * allocation rate of the comparison itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModuleCatalogBenchmark {
+
+    @Param({"5000"})
+    public int modules;
+
+    private ModuleCatalog original;
+    private ModuleCatalog updated;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final Random random = new Random(modules);
+        final HashArena arena = new HashArena();
+        original = new ModuleCatalog();
+        updated = new ModuleCatalog();
+        for (int i = 0; i < modules; i++) {
+            final String name = "org.jboss.module" + random.nextInt(10) + ".m" + i;
+            final byte[] hash = new byte[20];
+            random.nextBytes(hash);
+            original.add(new DistributionModuleItem(name, "main", arena, hash, hash));
+            final byte[] modified = hash.clone();
+            if (i % 100 == 0) {
+                modified[0]++;
+            }
+            updated.add(new DistributionModuleItem(name, "main", arena, modified, modified));
+        }
+    }
+
+    @Benchmark
+    public void compare(final Blackhole blackhole) {
+        ModuleCatalog.compare(original, updated, new ModuleCatalog.Visitor() {
+            @Override
+            public void removed(final DistributionModuleItem original) {
+                blackhole.consume(original);
+            }
+
+            @Override
+            public void added(final DistributionModuleItem updated) {
+                blackhole.consume(updated);
+            }
+
+            @Override
+            public void matched(final DistributionModuleItem original, final DistributionModuleItem updated, final boolean sameComparison) {
+                blackhole.consume(sameComparison);
+            }
+        });
+    }
+
+}
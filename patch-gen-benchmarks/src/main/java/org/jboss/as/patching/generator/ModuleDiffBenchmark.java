@@ -0,0 +1,98 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.patching.IoUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Inspects a generated module in detail with {@link ModuleDiffUtils#processModule(File, String, byte[])}, which parses
+ * the module.xml and hashes the entries of every resource jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModuleDiffBenchmark {
+
+    @Param({"5"})
+    public int resources;
+
+    @Param({"500"})
+    public int entries;
+
+    private File module;
+    private ModuleDiffUtils moduleDiffUtils;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        module = Files.createTempDirectory("patch-gen-module").toFile();
+        final StringBuilder xml = new StringBuilder("<module xmlns=\"urn:jboss:module:1.1\" name=\"org.bench\">\n    <resources>\n");
+        for (int i = 0; i < resources; i++) {
+            DistributionGenerator.writeJar(new File(module, "r" + i + ".jar"), entries, 1024, i);
+            xml.append("        <resource-root path=\"r").append(i).append(".jar\"/>\n");
+        }
+        xml.append("    </resources>\n    <dependencies>\n        <module name=\"javax.api\"/>\n    </dependencies>\n</module>\n");
+        final Writer writer = new FileWriter(new File(module, "module.xml"));
+        try {
+            writer.write(xml.toString());
+        } finally {
+            writer.close();
+        }
+        moduleDiffUtils = new ModuleDiffUtils(true, Collections.<String>emptyList());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(module);
+    }
+
+    @Benchmark
+    public byte[] processModule() throws IOException, NoSuchAlgorithmException {
+        return moduleDiffUtils.processModule(module, "org.bench", IoUtils.NO_CONTENT);
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.ZipUtils;
+import org.jboss.as.patching.metadata.Patch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writes the patch of two generated distributions with {@link PatchContentWriter}, and zips it up like the generator
+ * does when there is no previous cumulative patch to merge with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PatchWriterBenchmark {
+
+    @Param({"1000"})
+    public int modules;
+
+    @Param({"5000"})
+    public int miscFiles;
+
+    private DistributionGenerator generator;
+    private File root;
+    private File updatedRoot;
+    private File target;
+    private File zip;
+    private Patch patch;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        root = Files.createTempDirectory("patch-gen-writer").toFile();
+        final File originalRoot = new File(root, "original");
+        updatedRoot = new File(root, "updated");
+        generator = new DistributionGenerator().setModules(modules).setMiscFiles(miscFiles);
+        generator.generate(originalRoot);
+        generator.generate(updatedRoot);
+        generator.mutate(updatedRoot);
+        patch = generator.createPatchBuilder().compare(Distribution.create(originalRoot), Distribution.create(updatedRoot), true);
+        target = new File(root, "patch");
+        zip = new File(root, "patch.zip");
+    }
+
+    @TearDown(Level.Invocation)
+    public void cleanup() {
+        IoUtils.recursiveDelete(target);
+        zip.delete();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        IoUtils.recursiveDelete(root);
+    }
+
+    @Benchmark
+    public File writeContent() throws IOException, XMLStreamException {
+        PatchContentWriter.process(target, updatedRoot, patch);
+        return target;
+    }
+
+    @Benchmark
+    public File writeZip() throws IOException, XMLStreamException {
+        PatchContentWriter.process(target, updatedRoot, patch);
+        ZipUtils.zip(target, zip);
+        return zip;
+    }
+
+}
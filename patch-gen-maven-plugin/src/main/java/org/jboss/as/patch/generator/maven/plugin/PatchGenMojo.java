@@ -21,8 +21,15 @@
  */
 package org.jboss.as.patch.generator.maven.plugin;
 
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -43,6 +50,8 @@ import org.jboss.as.patching.generator.PatchGenerator;
  * options, but without hyphens and camel-cased. E.g. use {@code appliesToDist} as counterpart to
  * {@code --applies-to-dist}.
  * <p>
+ * The output of the tool goes to {@code patchgen.log} in the build directory, its progress is logged as well.
+ * <p>
  * Example usage:
  * <pre>
  * {@code
@@ -152,6 +161,8 @@ public class PatchGenMojo extends AbstractMojo {
             args.add( PatchGenerator.COMBINE_WITH + "=" + combineWith.getPath() );
         }
 
+        args.add( PatchGenerator.PROGRESS );
+
         // Ideally, we'd just invoke PatchGenerator directly; currently we cannot do so due to https://issues.jboss.org/browse/MODULES-136:
         // JBoss Modules, when used as a library, will set some system properties to values causing trouble for other plug-ins later in the
         // build; e.g. SAXParserFactory is redirected to a JBoss Modules specific variant which then cannot be found by other users such as
@@ -161,9 +172,9 @@ public class PatchGenMojo extends AbstractMojo {
         // PatchGenerator.main( args.toArray( new String[0] ) );
         try {
             Process p = new ProcessBuilder( args )
-                    .redirectOutput( new File( buildDirectory, LOG_FILE ) )
-                    .redirectError( new File( buildDirectory, LOG_FILE ) )
+                    .redirectErrorStream( true )
                     .start();
+            forwardOutput( p );
             p.waitFor();
         }
         catch (IOException | InterruptedException e) {
@@ -175,6 +186,25 @@ public class PatchGenMojo extends AbstractMojo {
         }
     }
 
+    /**
+     * Copies the output of the process to the log file, and its progress to the Maven log.
+     */
+    private void forwardOutput(Process p) throws IOException {
+        // The process uses the default encoding of the platform as well
+        final Charset charset = Charset.defaultCharset();
+        try ( BufferedReader reader = new BufferedReader( new InputStreamReader( p.getInputStream(), charset ) );
+              Writer log = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( new File( buildDirectory, LOG_FILE ) ), charset ) ) ) {
+            String line;
+            while ( ( line = reader.readLine() ) != null ) {
+                log.write( line );
+                log.write( System.lineSeparator() );
+                if ( line.startsWith( PatchGenerator.PROGRESS_PREFIX ) ) {
+                    getLog().info( line.substring( PatchGenerator.PROGRESS_PREFIX.length() ) );
+                }
+            }
+        }
+    }
+
     private String getClasspath() {
         StringBuilder sb = new StringBuilder();
         boolean first = true;
@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.PrintStream;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prints the progress of a patch generation: the phases, the hashing throughput and, once both distributions have
+ * been walked, the estimated time until the hashing is done. Every line starts with
+ * {@link PatchGenerator#PROGRESS_PREFIX}.
+ */
+class ConsoleProgress implements PatchGenerationListener {
+
+    private final PrintStream out;
+    private final boolean overwrite;
+    private final long started = System.nanoTime();
+    private long phaseStarted;
+    private long discovered;
+    private long discoveredBytes;
+    private long hashed;
+    private long hashedBytes;
+    // Whether all content has been discovered
+    private boolean scanned;
+    // The length of the status line to overwrite, if there is one
+    private int statusLength = -1;
+
+    /**
+     * Create the progress output.
+     *
+     * @param out       the stream to print to
+     * @param overwrite whether the hashing status overwrites the previous one, rather than getting a line each time
+     */
+    ConsoleProgress(final PrintStream out, final boolean overwrite) {
+        this.out = out;
+        this.overwrite = overwrite;
+    }
+
+    @Override
+    public void phaseStarted(final Phase phase) {
+        phaseStarted = System.nanoTime();
+        println(name(phase) + "...");
+    }
+
+    @Override
+    public void phaseFinished(final Phase phase) {
+        if (phase == Phase.SCAN) {
+            scanned = true;
+        }
+        println(String.format(Locale.ENGLISH, "%s finished in %s", name(phase), duration(System.nanoTime() - phaseStarted)));
+    }
+
+    @Override
+    public void itemsDiscovered(final long items, final long bytes) {
+        discovered += items;
+        discoveredBytes += bytes;
+    }
+
+    @Override
+    public void itemsHashed(final long items, final long bytes) {
+        hashed += items;
+        hashedBytes += bytes;
+        final long elapsed = System.nanoTime() - started;
+        final double rate = elapsed > 0 ? hashedBytes / (elapsed / 1e9) : 0;
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.ENGLISH, "hashed %d/%d items, %s of %s, %s/s",
+                hashed, discovered, size(hashedBytes), size(discoveredBytes), size((long) rate)));
+        if (scanned && rate > 0 && hashed < discovered) {
+            final long remaining = (long) ((discoveredBytes - hashedBytes) / rate * 1e9);
+            sb.append(", ETA ").append(duration(remaining));
+        }
+        status(sb.toString());
+    }
+
+    @Override
+    public void modificationsFound(final int modifications) {
+        println(String.format(Locale.ENGLISH, "found %d modifications", modifications));
+    }
+
+    private void println(final String line) {
+        if (statusLength >= 0) {
+            out.println();
+            statusLength = -1;
+        }
+        out.println(PatchGenerator.PROGRESS_PREFIX + line);
+        out.flush();
+    }
+
+    private void status(final String line) {
+        if (!overwrite) {
+            println(line);
+            return;
+        }
+        final StringBuilder sb = new StringBuilder("\r").append(PatchGenerator.PROGRESS_PREFIX).append(line);
+        final int length = PatchGenerator.PROGRESS_PREFIX.length() + line.length();
+        for (int i = length; i < statusLength; i++) {
+            sb.append(' ');
+        }
+        out.print(sb);
+        out.flush();
+        statusLength = length;
+    }
+
+    private static String name(final Phase phase) {
+        return phase.name().toLowerCase(Locale.ENGLISH);
+    }
+
+    static String size(final long bytes) {
+        if (bytes < 1024 * 1024) {
+            return String.format(Locale.ENGLISH, "%.1f KiB", bytes / 1024.0);
+        } else if (bytes < 1024L * 1024 * 1024) {
+            return String.format(Locale.ENGLISH, "%.1f MiB", bytes / (1024.0 * 1024));
+        }
+        return String.format(Locale.ENGLISH, "%.2f GiB", bytes / (1024.0 * 1024 * 1024));
+    }
+
+    static String duration(final long nanos) {
+        final long seconds = TimeUnit.NANOSECONDS.toSeconds(nanos);
+        if (seconds < 60) {
+            return String.format(Locale.ENGLISH, "%.1fs", nanos / 1e9);
+        }
+        return String.format(Locale.ENGLISH, "%d:%02d", seconds / 60, seconds % 60);
+    }
+
+}
@@ -0,0 +1,209 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.jboss.as.patching.metadata.ContentItem;
+import org.jboss.as.patching.metadata.ContentType;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModuleItem;
+
+/**
+ * The content specified in a patch config, indexed for the {@code ContentItemFilter} implementations. Misc files are
+ * looked up by name and relative path, modules and bundles by name and slot, so a lookup does not depend on the number
+ * of specified items.
+ * <p>
+ * The index is maintained when items are added, which only happens while the config is parsed. Lookups do not modify
+ * the index, so the filters can be used by concurrent comparisons.
+ */
+class ContentItemIndex extends AbstractSet<ContentItem> {
+
+    private final Set<ContentItem> items = new HashSet<ContentItem>();
+    // name -> relative paths
+    private final Map<String, Set<String>> miscFiles = new HashMap<String, Set<String>>();
+    // name -> slots
+    private final Map<String, Set<String>> modules = new HashMap<String, Set<String>>();
+
+    @Override
+    public boolean add(final ContentItem item) {
+        if (!items.add(item)) {
+            return false;
+        }
+        index(item);
+        return true;
+    }
+
+    @Override
+    public Iterator<ContentItem> iterator() {
+        final Iterator<ContentItem> delegate = items.iterator();
+        return new Iterator<ContentItem>() {
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public ContentItem next() {
+                return delegate.next();
+            }
+
+            @Override
+            public void remove() {
+                delegate.remove();
+                reindex();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return items.size();
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        return items.contains(o);
+    }
+
+    /**
+     * Check whether a misc file with the same name and relative path was specified.
+     *
+     * @param item the misc item
+     * @return {@code true} if it was specified
+     */
+    boolean containsMiscFile(final MiscContentItem item) {
+        return contains(miscFiles, item.getName(), item.getRelativePath());
+    }
+
+    /**
+     * Check whether a module or bundle with the same name and slot was specified.
+     *
+     * @param item the module or bundle
+     * @return {@code true} if it was specified
+     */
+    boolean containsModule(final ModuleItem item) {
+        return contains(modules, item.getName(), item.getSlot());
+    }
+
+    private void index(final ContentItem item) {
+        if (item.getContentType() == ContentType.MISC) {
+            final MiscContentItem misc = (MiscContentItem) item;
+            put(miscFiles, misc.getName(), misc.getRelativePath());
+        } else {
+            final ModuleItem module = (ModuleItem) item;
+            put(modules, module.getName(), module.getSlot());
+        }
+    }
+
+    private void reindex() {
+        miscFiles.clear();
+        modules.clear();
+        for (final ContentItem item : items) {
+            index(item);
+        }
+    }
+
+    private static void put(final Map<String, Set<String>> index, final String name, final String key) {
+        Set<String> keys = index.get(name);
+        if (keys == null) {
+            keys = new HashSet<String>();
+            index.put(name, keys);
+        }
+        keys.add(key);
+    }
+
+    private static boolean contains(final Map<String, Set<String>> index, final String name, final String key) {
+        final Set<String> keys = index.get(name);
+        return keys != null && keys.contains(key);
+    }
+
+    /**
+     * A list of regular expressions, where a path is accepted if it matches any of them. The expressions are combined
+     * into a single alternation, so a path is matched in one pass rather than once per expression.
+     */
+    static final class PathPatterns {
+
+        private static final Pattern BACK_REFERENCE = Pattern.compile("\\\\(?:[1-9]|k<)");
+
+        private final Pattern combined;
+        private final List<Pattern> patterns;
+
+        private PathPatterns(final Pattern combined, final List<Pattern> patterns) {
+            this.combined = combined;
+            this.patterns = patterns;
+        }
+
+        static PathPatterns compile(final List<Pattern> patterns) {
+            if (patterns.isEmpty()) {
+                return new PathPatterns(null, Collections.<Pattern>emptyList());
+            }
+            final StringBuilder sb = new StringBuilder();
+            for (final Pattern pattern : patterns) {
+                // Group numbers shift within the alternation, so back references would point to the wrong group
+                if (BACK_REFERENCE.matcher(pattern.pattern()).find()) {
+                    return new PathPatterns(null, patterns);
+                }
+                if (sb.length() > 0) {
+                    sb.append('|');
+                }
+                sb.append("(?:").append(pattern.pattern()).append(')');
+            }
+            try {
+                return new PathPatterns(Pattern.compile(sb.toString()), patterns);
+            } catch (PatternSyntaxException e) {
+                // e.g. the same named group in two of the expressions
+                return new PathPatterns(null, patterns);
+            }
+        }
+
+        /**
+         * Check whether the path matches any of the expressions.
+         *
+         * @param path the path
+         * @return {@code true} if one of the expressions matches the whole path
+         */
+        boolean matches(final String path) {
+            if (combined != null) {
+                return combined.matcher(path).matches();
+            }
+            for (final Pattern pattern : patterns) {
+                if (pattern.matcher(path).matches()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
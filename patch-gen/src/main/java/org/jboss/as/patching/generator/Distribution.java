@@ -28,7 +28,6 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.jboss.as.patching.IoUtils;
 
@@ -40,9 +39,11 @@ import org.jboss.as.patching.IoUtils;
  */
 class Distribution {
 
+    // Holds the hashes of all items, the misc tree as well as the modules and bundles
+    private final HashArena hashArena = new HashArena();
     // The distribution root
     // Node to self: this cannot be static, because of the associated children
-    protected final DistributionContentItem ROOT = new DistributionItemImpl(null, null, IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+    protected final DistributionContentItem ROOT = new DistributionItemImpl(null, null, hashArena, IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
 
     private final DistributionStructure structure;
     private final Map<String, ProcessedLayer> layers = new LinkedHashMap<String, ProcessedLayer>();
@@ -59,13 +60,27 @@ class Distribution {
      * @throws IOException
      */
     public static Distribution create(final File file, final String... ignored) throws IOException {
+        return create(file, null, ModuleDiffUtils.METADATA_ONLY, ignored);
+    }
+
+    /**
+     * Create and process the distribution right away, while the content gets hashed in the background.
+     *
+     * @param file            the distribution root
+     * @param scheduler       the hashing scheduler, {@code null} to hash the content on first access
+     * @param moduleDiffUtils the module inspection
+     * @return the processed distribution
+     * @throws IOException
+     */
+    public static Distribution create(final File file, final HashingScheduler scheduler, final ModuleDiffUtils moduleDiffUtils,
+                                      final String... ignored) throws IOException {
         final Distribution distribution = new Distribution();
         if (ignored != null) {
             for (String ignore : ignored) {
                 distribution.structure.registerIgnoredPath(ignore);
             }
         }
-        DistributionProcessor.process(distribution.ROOT, file, distribution);
+        DistributionProcessor.process(distribution.ROOT, file, distribution, scheduler, moduleDiffUtils);
         return distribution;
     }
 
@@ -166,7 +181,7 @@ class Distribution {
      * @return the layer
      */
     protected ProcessedLayer addLayer(final String name) {
-        return getOrCreate(name, layers);
+        return getOrCreate(name, layers, hashArena);
     }
 
     /**
@@ -176,13 +191,13 @@ class Distribution {
      * @return the add-on
      */
     protected ProcessedLayer addAddOn(final String name) {
-        return getOrCreate(name, addOns);
+        return getOrCreate(name, addOns, hashArena);
     }
 
-    private static ProcessedLayer getOrCreate(final String layerName, final Map<String, ProcessedLayer> layers) {
+    private static ProcessedLayer getOrCreate(final String layerName, final Map<String, ProcessedLayer> layers, final HashArena hashArena) {
         ProcessedLayer layer = layers.get(layerName);
         if (layer == null) {
-            layer = new ProcessedLayer(layerName);
+            layer = new ProcessedLayer(layerName, hashArena);
             layers.put(layerName, layer);
         }
         return layer;
@@ -191,23 +206,34 @@ class Distribution {
     static class ProcessedLayer {
 
         private final String name;
-        ProcessedLayer(String name) {
+        private final HashArena hashArena;
+        ProcessedLayer(String name, HashArena hashArena) {
             this.name = name;
+            this.hashArena = hashArena;
         }
 
-        private final Set<DistributionModuleItem> bundles = new TreeSet<DistributionModuleItem>();
-        private final Set<DistributionModuleItem> modules = new TreeSet<DistributionModuleItem>();
+        private final ModuleCatalog bundles = new ModuleCatalog();
+        private final ModuleCatalog modules = new ModuleCatalog();
 
         String getName() {
             return name;
         }
 
+        /**
+         * Get the arena holding the hashes of the distribution.
+         *
+         * @return the hash arena
+         */
+        HashArena getHashArena() {
+            return hashArena;
+        }
+
         /**
          * Get the available bundles.
          *
          * @return the bundles
          */
-        Set<DistributionModuleItem> getBundles() {
+        ModuleCatalog getBundles() {
             return bundles;
         }
 
@@ -216,7 +242,7 @@ class Distribution {
          *
          * @return the modules
          */
-        Set<DistributionModuleItem> getModules() {
+        ModuleCatalog getModules() {
             return modules;
         }
 
@@ -247,9 +273,7 @@ class Distribution {
         protected DistributionModuleItem createDistributionModuleItem(final DistributionContentItem item) {
             final String moduleName = item.getParent().getPath('.');
             final String slot = item.getName();
-            final byte[] metadata = item.getMetadataHash();
-            final byte[] comparison = item.getComparisonHash();
-            return new DistributionModuleItem(moduleName, slot, comparison, metadata);
+            return new DistributionModuleItem(moduleName, slot, hashArena, item);
         }
 
     }
@@ -44,25 +44,79 @@ abstract class DistributionContentItem implements Comparable<DistributionContent
 
     protected final DistributionContentItem parent;
     protected final String name;
-
-    protected DistributionContentItem(final DistributionContentItem parent, final String name) {
+    // Precomputed, since both are used for every comparison within the tree
+    private final int depth;
+    private final int hash;
+    // The state of the ignored path matcher for this path
+    IgnoredPathMatcher.State ignoredPathState;
+    // The match of the optional paths for this path
+    OptionalPathMatcher.Match optionalPathMatch;
+    // Holds the hashes of the whole distribution
+    final HashArena hashArena;
+
+    protected DistributionContentItem(final DistributionContentItem parent, final String name, final HashArena hashArena) {
         this.parent = parent;
-        this.name = name;
+        // The same names show up all over the distribution, e.g. main or module.xml
+        this.name = name == null ? null : name.intern();
+        this.depth = parent == null ? 1 : parent.depth + 1;
+        int result = 17;
+        result = 31 * result + (parent == null ? 0 : parent.hash);
+        result = 31 * result + (name == null ? 0 : name.hashCode());
+        this.hash = result;
+        this.hashArena = hashArena;
     }
 
+    /**
+     * Get the handle of the metadata hash in the {@link #hashArena}.
+     *
+     * @return the handle
+     */
+    abstract int getMetadataHandle();
+
+    /**
+     * Get the handle of the comparison hash in the {@link #hashArena}.
+     *
+     * @return the handle
+     */
+    abstract int getComparisonHandle();
+
     /**
      * Get the hash used for the metadata.
      *
      * @return the hash used for the metadata
      */
-    public abstract byte[] getMetadataHash();
+    public byte[] getMetadataHash() {
+        return hashArena.get(getMetadataHandle());
+    }
 
     /**
      * Get the hash which is used to check whether an item changed.
      *
      * @return the hash used for the comparison
      */
-    public abstract byte[] getComparisonHash();
+    public byte[] getComparisonHash() {
+        return hashArena.get(getComparisonHandle());
+    }
+
+    /**
+     * Check whether this and another item have the same comparison hash.
+     *
+     * @param other the other item
+     * @return whether the comparison hashes are equal
+     */
+    boolean hasSameComparisonHash(final DistributionContentItem other) {
+        return HashArena.equals(hashArena, getComparisonHandle(), other.hashArena, other.getComparisonHandle());
+    }
+
+    /**
+     * Check whether this and another item have the same metadata hash.
+     *
+     * @param other the other item
+     * @return whether the metadata hashes are equal
+     */
+    boolean hasSameMetadataHash(final DistributionContentItem other) {
+        return HashArena.equals(hashArena, getMetadataHandle(), other.hashArena, other.getMetadataHandle());
+    }
 
     /**
      * See whether this item is a leaf in the tree.
@@ -134,79 +188,78 @@ abstract class DistributionContentItem implements Comparable<DistributionContent
     }
 
     public int getDepth() {
-        int depth = 1;
-        DistributionContentItem ancestor = parent;
-        while (ancestor != null) {
-            depth++;
-            ancestor = ancestor.parent;
-        }
         return depth;
     }
 
     @Override
     public int hashCode() {
-        int result = 17;
-        result = 31 * result + (parent == null ? 0 : parent.hashCode());
-        result = 31 * result + (name == null ? 0 : name.hashCode());
-        return result;
+        return hash;
     }
 
     @Override
     public boolean equals(Object obj) {
-        boolean result = this == obj;
-        if (!result && obj instanceof DistributionContentItem) {
-            DistributionContentItem other = (DistributionContentItem) obj;
-            result = (parent == other.parent) || (parent != null && parent.equals(other.parent));
-            result = result && (same(name, other.name) || (name != null && name.equals(other.name)));
+        if (this == obj) {
+            return true;
+        } else if (!(obj instanceof DistributionContentItem)) {
+            return false;
+        }
+        DistributionContentItem me = this;
+        DistributionContentItem them = (DistributionContentItem) obj;
+        if (me.hash != them.hash || me.depth != them.depth) {
+            return false;
+        }
+        // Same depth, so both reach the root at the same time
+        while (me != them) {
+            if (!same(me.name, them.name) && (me.name == null || !me.name.equals(them.name))) {
+                return false;
+            }
+            me = me.parent;
+            them = them.parent;
         }
-        return result;
+        return true;
     }
 
     @Override
     public int compareTo(DistributionContentItem o) {
 
         // If the two items are at different depths in the tree, compare their ancestors at the same depth
-        int myDepth = getDepth();
-        int theirDepth = o.getDepth();
-        if (myDepth != theirDepth) {
-            DistributionContentItem me = this;
-            DistributionContentItem them = o;
-            if (myDepth < theirDepth) {
-                them = o.getAncestor(theirDepth - myDepth);
-            } else if (theirDepth < myDepth) {
-                me = getAncestor(myDepth - theirDepth);
+        if (depth != o.depth) {
+            final int result;
+            if (depth < o.depth) {
+                result = compareSameDepth(this, o.getAncestor(o.depth - depth));
+            } else {
+                result = compareSameDepth(getAncestor(depth - o.depth), o);
             }
-
-            int result = me.compareTo(them);
             if (result != 0) {
                 return result;
             } else {
-                return myDepth > theirDepth ? 1 : -1;
+                return depth > o.depth ? 1 : -1;
             }
         }
+        return compareSameDepth(this, o);
+    }
 
-        // Same depth
-        if (parent != o.parent) {
-            if (parent == null) {
-                return -1;
-            } else if (o.parent == null) {
-                return 1;
-            } else {
-                int result = parent.compareTo(o.parent);
-                if (result != 0) {
-                    return result;
-                }
+    private static int compareSameDepth(final DistributionContentItem me, final DistributionContentItem them) {
+        if (me == them) {
+            return 0;
+        }
+        // Siblings only need to compare their names
+        if (me.parent != them.parent) {
+            int result = compareSameDepth(me.parent, them.parent);
+            if (result != 0) {
+                return result;
             }
         }
-
-        if (same(name, o.name)) {
+        final String name = me.name;
+        final String other = them.name;
+        if (same(name, other)) {
             return 0;
         } else if (name == null) {
             return -1;
-        } else if (o.name == null) {
+        } else if (other == null) {
             return 1;
         }
-        return name.compareTo(o.name);
+        return name.compareTo(other);
     }
 
     private DistributionContentItem getAncestor(int generationsAbove) {
@@ -288,7 +341,7 @@ abstract class DistributionContentItem implements Comparable<DistributionContent
         }
     }
 
-    private static final Pattern GLOB_PATTERN = Pattern.compile("(\\*\\*?)|(\\?)|(\\\\.)|(/+)|([^*?]+)");
+    static final Pattern GLOB_PATTERN = Pattern.compile("(\\*\\*?)|(\\?)|(\\\\.)|(/+)|([^*?]+)");
 
     /**
      * Get a regular expression pattern which accept any path names which match the given glob.  The glob patterns
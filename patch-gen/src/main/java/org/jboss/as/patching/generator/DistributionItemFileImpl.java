@@ -27,9 +27,8 @@ import static org.jboss.as.patching.generator.PatchGenerator.processingError;
 import java.io.File;
 import java.io.IOException;
 import java.util.Set;
-import java.util.TreeSet;
-
-import org.jboss.as.patching.HashUtils;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 
 /**
  * File based content item implementation.
@@ -38,34 +37,89 @@ import org.jboss.as.patching.HashUtils;
  */
 class DistributionItemFileImpl extends DistributionContentItem {
 
+    private static final int NOT_CALCULATED = Integer.MIN_VALUE;
+
+    // Only kept for the top level items, the other ones resolve the file through their parent
     private final File file;
+    private final boolean leaf;
+    private final ModuleDiffUtils moduleDiffUtils;
     private final Set<DistributionContentItem> children;
-    private byte[] cachedMetadataHash = null;
+    private volatile int cachedMetadataHash = NOT_CALCULATED;
+    private volatile int cachedComparisonHash = NOT_CALCULATED;
+    private volatile Future<Void> hashing;
 
-    protected DistributionItemFileImpl(File file, DistributionContentItem parent) {
-        this(file, parent, file.getName());
+    protected DistributionItemFileImpl(DistributionWalker.Entry entry, DistributionContentItem parent, HashArena hashArena) {
+        this(entry, parent, hashArena, ModuleDiffUtils.METADATA_ONLY);
     }
 
-    protected DistributionItemFileImpl(File file, DistributionContentItem parent, String name) {
-        super(parent, name);
-        this.file = file;
-        if (file.isDirectory()) {
-            children = new TreeSet<DistributionContentItem>();
+    protected DistributionItemFileImpl(DistributionWalker.Entry entry, DistributionContentItem parent, HashArena hashArena, ModuleDiffUtils moduleDiffUtils) {
+        super(parent, entry.getName(), hashArena);
+        // The processor creates the children of an item from the listing of its directory
+        final boolean nested = parent instanceof DistributionItemFileImpl;
+        this.file = nested ? null : entry.getFile();
+        this.moduleDiffUtils = moduleDiffUtils;
+        // Use the attributes read by the walker, rather than asking the file system again
+        if (entry.isDirectory()) {
+            leaf = false;
+            children = new SortedChildren<DistributionContentItem>();
         } else {
+            leaf = entry.isFile();
             children = NO_CHILDREN;
         }
     }
 
-    @Override
-    public String getName() {
-        return file.getName();
+    /**
+     * Get the file of this item.
+     *
+     * @return the file
+     */
+    File getFile() {
+        if (file != null) {
+            return file;
+        }
+        return new File(((DistributionItemFileImpl) parent).getFile(), name);
+    }
+
+    /**
+     * Schedule the calculation of the hashes, which otherwise happens on first access.
+     *
+     * @param scheduler the hashing scheduler
+     */
+    void scheduleHashing(final HashingScheduler scheduler) {
+        scheduleHashing(scheduler, HashingScheduler.sizeOf(getFile()));
+    }
+
+    /**
+     * Schedule the calculation of the hashes, which otherwise happens on first access.
+     *
+     * @param scheduler the hashing scheduler
+     * @param size      the size of the content
+     */
+    void scheduleHashing(final HashingScheduler scheduler, final long size) {
+        final File file = getFile();
+        final PatchGenMetrics metrics = scheduler.getMetrics();
+        hashing = scheduler.schedule(size, new Callable<Void>() {
+            @Override
+            public Void call() throws Exception {
+                long start = metrics.start();
+                cachedMetadataHash = hashArena.add(FileHashUtils.hashFile(file));
+                metrics.record(PatchGenMetrics.Operation.METADATA_HASH, file, size, start);
+                start = metrics.start();
+                cachedComparisonHash = hashArena.add(JarDiffUtils.calculateHash(file, DistributionItemFileImpl.this, moduleDiffUtils));
+                metrics.record(PatchGenMetrics.Operation.COMPARISON_HASH, file, 0, start);
+                return null;
+            }
+        });
     }
 
     @Override
-    public byte[] getMetadataHash() {
+    int getMetadataHandle() {
+        if (cachedMetadataHash == NOT_CALCULATED) {
+            awaitHashing();
+        }
         try {
-            if (cachedMetadataHash == null) {
-                cachedMetadataHash = HashUtils.hashFile(file);
+            if (cachedMetadataHash == NOT_CALCULATED) {
+                cachedMetadataHash = hashArena.add(FileHashUtils.hashFile(getFile()));
             }
             return cachedMetadataHash;
         } catch (IOException e) {
@@ -74,17 +128,30 @@ class DistributionItemFileImpl extends DistributionContentItem {
     }
 
     @Override
-    public byte[] getComparisonHash() {
+    int getComparisonHandle() {
+        if (cachedComparisonHash == NOT_CALCULATED) {
+            awaitHashing();
+        }
         try {
-            return JarDiffUtils.calculateHash(file, this);
+            if (cachedComparisonHash == NOT_CALCULATED) {
+                cachedComparisonHash = hashArena.add(JarDiffUtils.calculateHash(getFile(), this, moduleDiffUtils));
+            }
+            return cachedComparisonHash;
         } catch (Exception e) {
             throw processingError(e, "failed to generate hash");
         }
     }
 
+    private void awaitHashing() {
+        final Future<Void> hashing = this.hashing;
+        if (hashing != null) {
+            HashingScheduler.get(hashing);
+        }
+    }
+
     @Override
     public boolean isLeaf() {
-        return file.isFile();
+        return leaf;
     }
 
     @Override
@@ -23,7 +23,6 @@
 package org.jboss.as.patching.generator;
 
 import java.util.Set;
-import java.util.TreeSet;
 
 /**
  * Metadata based implementation of a content item.
@@ -33,29 +32,33 @@ import java.util.TreeSet;
 class DistributionItemImpl extends DistributionContentItem {
 
     private final boolean leaf;
-    private final byte[] metadataHash;
-    private final byte[] comparisonHash;
+    private final int metadataHash;
+    private final int comparisonHash;
     private final Set<DistributionContentItem> children;
 
     DistributionItemImpl(DistributionContentItem parent, String name, byte[] comparisonHash, byte[] metadataHash, boolean leaf) {
-        super(parent, name);
-        this.metadataHash = metadataHash;
-        this.comparisonHash = comparisonHash;
+        this(parent, name, parent.hashArena, comparisonHash, metadataHash, leaf);
+    }
+
+    DistributionItemImpl(DistributionContentItem parent, String name, HashArena hashArena, byte[] comparisonHash, byte[] metadataHash, boolean leaf) {
+        super(parent, name, hashArena);
+        this.metadataHash = hashArena.add(metadataHash);
+        this.comparisonHash = hashArena.add(comparisonHash);
         this.leaf = leaf;
         if (leaf) {
             this.children = NO_CHILDREN;
         } else {
-            this.children = new TreeSet<DistributionContentItem>();
+            this.children = new SortedChildren<DistributionContentItem>();
         }
     }
 
     @Override
-    public byte[] getMetadataHash() {
+    int getMetadataHandle() {
         return metadataHash;
     }
 
     @Override
-    public byte[] getComparisonHash() {
+    int getComparisonHandle() {
         return comparisonHash;
     }
 
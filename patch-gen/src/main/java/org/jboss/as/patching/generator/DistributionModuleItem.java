@@ -29,14 +29,35 @@ class DistributionModuleItem implements Comparable<DistributionModuleItem> {
 
     private final String moduleName;
     private final String slot;
-    private final byte[] comparisonHash;
-    private final byte[] metadataHash;
+    private final HashArena hashArena;
+    private final int comparisonHash;
+    private final int metadataHash;
+    private final DistributionContentItem item;
 
-    DistributionModuleItem(String moduleName, String slot, byte[] comparisonHash, byte[] metadataHash) {
-        this.moduleName = moduleName;
-        this.slot = slot;
-        this.metadataHash = metadataHash;
-        this.comparisonHash = comparisonHash;
+    DistributionModuleItem(String moduleName, String slot, HashArena hashArena, byte[] comparisonHash, byte[] metadataHash) {
+        this.moduleName = moduleName.intern();
+        this.slot = slot.intern();
+        this.hashArena = hashArena;
+        this.metadataHash = hashArena.add(metadataHash);
+        this.comparisonHash = hashArena.add(comparisonHash);
+        this.item = null;
+    }
+
+    /**
+     * Create a module item resolving the hashes from the content item on first access.
+     *
+     * @param moduleName the module name
+     * @param slot       the slot
+     * @param hashArena  the arena of the distribution
+     * @param item       the content item
+     */
+    DistributionModuleItem(String moduleName, String slot, HashArena hashArena, DistributionContentItem item) {
+        this.moduleName = moduleName.intern();
+        this.slot = slot.intern();
+        this.hashArena = hashArena;
+        this.metadataHash = HashArena.NO_HASH;
+        this.comparisonHash = HashArena.NO_HASH;
+        this.item = item;
     }
 
     String getName() {
@@ -48,11 +69,48 @@ class DistributionModuleItem implements Comparable<DistributionModuleItem> {
     }
 
     byte[] getMetadataHash() {
-        return metadataHash;
+        return hashArena.get(getMetadataHandle());
     }
 
     byte[] getComparisonHash() {
-        return comparisonHash;
+        return hashArena.get(getComparisonHandle());
+    }
+
+    /**
+     * Get the arena holding the hashes.
+     *
+     * @return the hash arena
+     */
+    HashArena getHashArena() {
+        return hashArena;
+    }
+
+    private int getMetadataHandle() {
+        return item == null ? metadataHash : item.getMetadataHandle();
+    }
+
+    private int getComparisonHandle() {
+        return item == null ? comparisonHash : item.getComparisonHandle();
+    }
+
+    /**
+     * Check whether this and another item have the same comparison hash.
+     *
+     * @param other the other item
+     * @return whether the comparison hashes are equal
+     */
+    boolean hasSameComparisonHash(final DistributionModuleItem other) {
+        return HashArena.equals(hashArena, getComparisonHandle(), other.hashArena, other.getComparisonHandle());
+    }
+
+    /**
+     * Check whether this and another item have the same metadata hash.
+     *
+     * @param other the other item
+     * @return whether the metadata hashes are equal
+     */
+    boolean hasSameMetadataHash(final DistributionModuleItem other) {
+        return HashArena.equals(hashArena, getMetadataHandle(), other.hashArena, other.getMetadataHandle());
     }
 
     String getFullModuleName() {
@@ -80,6 +138,31 @@ class DistributionModuleItem implements Comparable<DistributionModuleItem> {
 
     @Override
     public int compareTo(DistributionModuleItem o) {
-        return getFullModuleName().compareTo(o.getFullModuleName());
+        if (moduleName == o.moduleName) {
+            return slot.compareTo(o.slot);
+        }
+        // Same order as comparing the full module names, without building them
+        final int l1 = moduleName.length() + 1 + slot.length();
+        final int l2 = o.moduleName.length() + 1 + o.slot.length();
+        final int l = Math.min(l1, l2);
+        for (int i = 0; i < l; i++) {
+            final char c1 = charAt(i);
+            final char c2 = o.charAt(i);
+            if (c1 != c2) {
+                return c1 - c2;
+            }
+        }
+        return l1 - l2;
+    }
+
+    private char charAt(final int i) {
+        final int l = moduleName.length();
+        if (i < l) {
+            return moduleName.charAt(i);
+        } else if (i == l) {
+            return ':';
+        } else {
+            return slot.charAt(i - l - 1);
+        }
     }
 }
@@ -25,13 +25,12 @@ package org.jboss.as.patching.generator;
 import static org.jboss.as.patching.generator.PatchGenerator.processingError;
 
 import java.io.File;
-import java.io.FileFilter;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -50,15 +49,22 @@ import org.jboss.modules.ModuleLoader;
  */
 class DistributionProcessor {
 
-    private Set<DistributionContentItem> moduleRoots = new LinkedHashSet<DistributionContentItem>();
+    // Always resolve the product name and version through the version module
+    private static final boolean USE_MODULE_LOADER = Boolean.getBoolean("patch.gen.product.module.loader");
 
     // Maybe fail if we find an overlay directory
-    private final FilenameFilter OVERLAYS_FILTER = new FilenameFilter() {
-        @Override
-        public boolean accept(File dir, String name) {
-            return !name.equals(".overlays");
-        }
-    };
+    private static final String OVERLAYS = ".overlays";
+
+    private Set<DistributionContentItem> moduleRoots = new LinkedHashSet<DistributionContentItem>();
+    private final HashingScheduler scheduler;
+    private final ModuleDiffUtils moduleDiffUtils;
+    private final DistributionWalker walker;
+
+    DistributionProcessor(final HashingScheduler scheduler, final ModuleDiffUtils moduleDiffUtils) {
+        this.scheduler = scheduler;
+        this.moduleDiffUtils = moduleDiffUtils;
+        this.walker = new DistributionWalker(DistributionWalker.getSymlinkPolicy(), scheduler == null ? PatchGenMetrics.DISABLED : scheduler.getMetrics());
+    }
 
     /**
      * Process a distribution root.
@@ -69,12 +75,25 @@ class DistributionProcessor {
      * @throws IOException
      */
     static void process(final DistributionContentItem parent, final File distributionRoot, Distribution distribution) throws IOException {
-        final DistributionProcessor processor = new DistributionProcessor();
-        final File[] children = distributionRoot.listFiles();
-        if (children != null && children.length != 0) {
-            for (final File child : children) {
-                processor.processMisc(parent, child, distribution);
-            }
+        process(parent, distributionRoot, distribution, null, ModuleDiffUtils.METADATA_ONLY);
+    }
+
+    /**
+     * Process a distribution root.
+     *
+     * @param parent           the misc root
+     * @param distributionRoot the distribution root
+     * @param distribution     the distribution
+     * @param scheduler        the hashing scheduler, {@code null} to hash the content on first access
+     * @param moduleDiffUtils  the module inspection
+     * @throws IOException
+     */
+    static void process(final DistributionContentItem parent, final File distributionRoot, Distribution distribution,
+                        HashingScheduler scheduler, ModuleDiffUtils moduleDiffUtils) throws IOException {
+        final DistributionProcessor processor = new DistributionProcessor(scheduler, moduleDiffUtils);
+        final DistributionWalker.Entry root = processor.walker.root(distributionRoot);
+        for (final DistributionWalker.Entry child : processor.walker.list(root)) {
+            processor.processMisc(parent, child, distribution);
         }
 
         if (processor.moduleRoots.isEmpty()) {
@@ -87,10 +106,18 @@ class DistributionProcessor {
             mp.add(file);
         }
 
-        // Update name and version
+        // Update name and version, loading the version module is only needed if the product files can't tell
+        if (!USE_MODULE_LOADER) {
+            final ProductResolver resolver = new ProductResolver(distributionRoot, mp);
+            if (resolver.resolve()) {
+                distribution.setName(resolver.getName());
+                distribution.setVersion(resolver.getVersion());
+                return;
+            }
+        }
         final ModuleLoader loader = new LocalModuleLoader(mp.toArray(new File[mp.size()]));
         try {
-            Module module = loader.loadModule(ModuleIdentifier.create("org.jboss.as.version"));
+            Module module = loader.loadModule(ModuleIdentifier.create(ProductResolver.VERSION_MODULE));
 
             final Class<?> clazz = module.getClassLoader().loadClass("org.jboss.as.version.ProductConfig");
             final Method resolveName = clazz.getMethod("resolveName");
@@ -118,8 +145,8 @@ class DistributionProcessor {
      * @param distribution the distribution
      * @throws IOException
      */
-    void processMisc(final DistributionContentItem parent, final File root, final Distribution distribution) throws IOException {
-        final DistributionContentItem item = new DistributionItemFileImpl(root, parent);
+    void processMisc(final DistributionContentItem parent, final DistributionWalker.Entry root, final Distribution distribution) throws IOException {
+        final DistributionItemFileImpl item = new DistributionItemFileImpl(root, parent, parent.hashArena);
         if (distribution.isIgnored(item)) {
             // Skip ignored ... Maybe only files?
             return;
@@ -137,12 +164,12 @@ class DistributionProcessor {
 
         // Build the misc file tree
         parent.getChildren().add(item);
+        if (root.isFile()) {
+            scheduleHashing(item, root.size());
+        }
         // Process the children
-        final File[] children = root.listFiles();
-        if (children != null && children.length != 0) {
-            for (final File child : children) {
-                processMisc(item, child, distribution);
-            }
+        for (final DistributionWalker.Entry child : walker.list(root)) {
+            processMisc(item, child, distribution);
         }
     }
 
@@ -154,29 +181,30 @@ class DistributionProcessor {
      * @param context the layered context (bundle/module)
      * @throws IOException
      */
-    void processLayeredRoot(final DistributionContentItem parent, final File root, final LayeredContext context) throws IOException {
-        final LayersConfig layersConfig = LayersConfig.getLayersConfig(root);
+    void processLayeredRoot(final DistributionContentItem parent, final DistributionWalker.Entry root, final LayeredContext context) throws IOException {
+        final LayersConfig layersConfig = LayersConfig.getLayersConfig(root.getFile());
         // Process layers
-        final File layersDir = new File(root, layersConfig.getLayersPath());
+        final DistributionWalker.Entry layersDir = walker.child(root, layersConfig.getLayersPath());
         final DistributionContentItem newParent = DistributionStructureImpl.createMiscItem(parent, layersConfig.getLayersPath());
         if (!layersDir.exists()) {
             if (layersConfig.isConfigured()) {
                 // Bad config from user
-                throw processingError("No layers directory found at " + layersDir);
+                throw processingError("No layers directory found at " + layersDir.getFile());
             }
             // else this isn't a root that has layers and add-ons
             return;
         }
         // check for a valid layer configuration
+        final Map<String, DistributionWalker.Entry> layerDirs = new HashMap<String, DistributionWalker.Entry>();
+        for (final DistributionWalker.Entry layerDir : walker.list(layersDir)) {
+            if (layerDir.isDirectory()) {
+                layerDirs.put(layerDir.getName(), layerDir);
+            }
+        }
         final List<String> layers;
         if (layersConfig.isConfigured()) {
             layers = layersConfig.getLayers();
-            if (layers.size() != layersDir.listFiles(new FileFilter() {
-                @Override
-                public boolean accept(File pathName) {
-                    return pathName.isDirectory();
-                }
-            }).length) {
+            if (layers.size() != layerDirs.size()) {
                 throw processingError("configured layers does not match actual ones %s", layers);
             }
         } else {
@@ -185,11 +213,14 @@ class DistributionProcessor {
         }
         //
         for (final String layer : layers) {
-            File layerDir = new File(layersDir, layer);
+            DistributionWalker.Entry layerDir = layerDirs.get(layer);
+            if (layerDir == null) {
+                layerDir = walker.child(layersDir, layer);
+            }
             if (!layerDir.exists()) {
                 if (layersConfig.isConfigured()) {
                     // Bad config from user
-                    throw processingError("Cannot find layer '%s' under directory %s", layer, layersDir);
+                    throw processingError("Cannot find layer '%s' under directory %s", layer, layersDir.getFile());
                 }
                 // else this isn't a standard layers and add-ons structure
                 return;
@@ -198,37 +229,43 @@ class DistributionProcessor {
         }
         // Finally process the add-ons
         final DistributionContentItem addOnsParent = DistributionStructureImpl.createMiscItem(parent, layersConfig.getAddOnsPath());
-        final File addOnsDir = new File(root, layersConfig.getAddOnsPath());
-        final File[] addOnsList = addOnsDir.listFiles();
-        if (addOnsList != null) {
-            for (final File addOn : addOnsList) {
-                context.addAddOn(addOnsParent, addOn.getName(), addOn);
-            }
+        final DistributionWalker.Entry addOnsDir = walker.child(root, layersConfig.getAddOnsPath());
+        for (final DistributionWalker.Entry addOn : walker.list(addOnsDir)) {
+            context.addAddOn(addOnsParent, addOn.getName(), addOn);
         }
     }
 
     /**
      * Try to find determine the modules.
      *
-     * @param parent  the parent content item
-     * @param root    the current root
-     * @param context the module context
+     * @param parent    the parent content item
+     * @param root      the current root
+     * @param hashArena the arena of the distribution
+     * @param context   the module context
      */
-    void processModules(final DistributionContentItem parent, final File root, final ModuleContext context) {
-
-        final DistributionContentItem item = new DistributionItemFileImpl(root, parent);
-        final File moduleXml = new File(root, "module.xml");
-        if (moduleXml.exists()) {
+    void processModules(final DistributionContentItem parent, final DistributionWalker.Entry root, final HashArena hashArena, final ModuleContext context) {
+
+        final DistributionItemFileImpl item = new DistributionItemFileImpl(root, parent, hashArena, moduleDiffUtils);
+        final List<DistributionWalker.Entry> children = walker.list(root);
+        // The listing tells whether there is a module.xml, no need to check for it separately
+        boolean module = false;
+        for (final DistributionWalker.Entry child : children) {
+            if (child.getName().equals("module.xml")) {
+                module = true;
+                break;
+            }
+        }
+        if (module) {
             // Only ignore actual modules
             if (context.isIgnored(item)) {
                 return;
             }
+            scheduleHashing(item);
             context.addModule(item);
         }
-        final File[] children = root.listFiles(OVERLAYS_FILTER);
-        if (children != null && children.length != 0) {
-            for (final File child : children) {
-                processModules(item, child, context);
+        for (final DistributionWalker.Entry child : children) {
+            if (!child.getName().equals(OVERLAYS)) {
+                processModules(item, child, hashArena, context);
             }
         }
     }
@@ -236,31 +273,50 @@ class DistributionProcessor {
     /**
      * Try to determine the bundles.
      *
-     * @param parent  the parent content item
-     * @param root    the current root
-     * @param context the bundle context
+     * @param parent    the parent content item
+     * @param root      the current root
+     * @param hashArena the arena of the distribution
+     * @param context   the bundle context
      */
-    void processBundles(final DistributionContentItem parent, final File root, final ModuleContext context) {
+    void processBundles(final DistributionContentItem parent, final DistributionWalker.Entry root, final HashArena hashArena, final ModuleContext context) {
 
-        final DistributionContentItem item = new DistributionItemFileImpl(root, parent);
-        final File[] children = root.listFiles(OVERLAYS_FILTER);
-        if (children != null && children.length != 0) {
-            for (final File child : children) {
+        final DistributionItemFileImpl item = new DistributionItemFileImpl(root, parent, hashArena, moduleDiffUtils);
+        final List<DistributionWalker.Entry> children = new ArrayList<DistributionWalker.Entry>();
+        for (final DistributionWalker.Entry child : walker.list(root)) {
+            if (!child.getName().equals(OVERLAYS)) {
+                children.add(child);
+            }
+        }
+        if (!children.isEmpty()) {
+            for (final DistributionWalker.Entry child : children) {
                 if (!child.isDirectory()) {
                     // Only ignore actual bundles
                     if (context.isIgnored(item)) {
                         return;
                     }
+                    scheduleHashing(item);
                     context.addModule(item);
                     return;
                 }
             }
-            for (final File child : children) {
-                processBundles(item, child, context);
+            for (final DistributionWalker.Entry child : children) {
+                processBundles(item, child, hashArena, context);
             }
         }
     }
 
+    void scheduleHashing(final DistributionItemFileImpl item) {
+        if (scheduler != null) {
+            item.scheduleHashing(scheduler);
+        }
+    }
+
+    void scheduleHashing(final DistributionItemFileImpl item, final long size) {
+        if (scheduler != null) {
+            item.scheduleHashing(scheduler, size);
+        }
+    }
+
     interface ProcessorContext {
 
         boolean isIgnored(final DistributionContentItem item);
@@ -275,9 +331,11 @@ class DistributionProcessor {
     abstract static class LayeredContext implements ProcessorContext {
 
         protected final Distribution distribution;
+        protected final DistributionWalker walker;
 
-        protected LayeredContext(Distribution distribution) {
+        protected LayeredContext(Distribution distribution, DistributionWalker walker) {
             this.distribution = distribution;
+            this.walker = walker;
         }
 
         @Override
@@ -285,16 +343,16 @@ class DistributionProcessor {
             return distribution.isIgnored(item);
         }
 
-        void addLayer(DistributionContentItem parent, String layer, File layerDir) {
+        void addLayer(DistributionContentItem parent, String layer, DistributionWalker.Entry layerDir) {
             final Distribution.ProcessedLayer processedLayer = distribution.addLayer(layer);
-            final DistributionContentItem item = new DistributionItemFileImpl(layerDir, parent);
+            final DistributionContentItem item = new DistributionItemFileImpl(layerDir, parent, processedLayer.getHashArena());
             addModuleRoot(item);
             doProcess(layerDir, processedLayer);
         }
 
-        void addAddOn(DistributionContentItem parent, String name, File addOn) {
+        void addAddOn(DistributionContentItem parent, String name, DistributionWalker.Entry addOn) {
             final Distribution.ProcessedLayer processedLayer = distribution.addAddOn(name);
-            final DistributionContentItem item = new DistributionItemFileImpl(addOn, parent);
+            final DistributionContentItem item = new DistributionItemFileImpl(addOn, parent, processedLayer.getHashArena());
             addModuleRoot(item);
             doProcess(addOn, processedLayer);
         }
@@ -303,13 +361,11 @@ class DistributionProcessor {
             //
         }
 
-        void doProcess(final File layerDir, final Distribution.ProcessedLayer processedLayer) {
-            final File[] children = layerDir.listFiles();
-            if (children != null && children.length > 0) {
-                for (final File child : children) {
-                    // Skip the layer dir as parent... we only need the module name and layer
-                    process(null, child, processedLayer);
-                }
+        void doProcess(final DistributionWalker.Entry layerDir, final Distribution.ProcessedLayer processedLayer) {
+            for (final DistributionWalker.Entry child : walker.list(layerDir)) {
+                // Skip the layer dir as parent... we only need the module name and layer, the hashes still go into
+                // the arena of the distribution
+                process(null, child, processedLayer);
             }
         }
 
@@ -320,14 +376,14 @@ class DistributionProcessor {
          * @param layerDir       the layer dir
          * @param processedLayer the currently processed layer
          */
-        abstract void process(DistributionContentItem parent, File layerDir, Distribution.ProcessedLayer processedLayer);
+        abstract void process(DistributionContentItem parent, DistributionWalker.Entry layerDir, Distribution.ProcessedLayer processedLayer);
 
     }
 
     class LayeredModuleContext extends LayeredContext {
 
         LayeredModuleContext(Distribution distribution) {
-            super(distribution);
+            super(distribution, DistributionProcessor.this.walker);
         }
 
         @Override
@@ -335,8 +391,8 @@ class DistributionProcessor {
             moduleRoots.add(item);
         }
 
-        void process(DistributionContentItem parent, File layerDir, final Distribution.ProcessedLayer processedLayer) {
-            processModules(parent, layerDir, new ModuleContext() {
+        void process(DistributionContentItem parent, DistributionWalker.Entry layerDir, final Distribution.ProcessedLayer processedLayer) {
+            processModules(parent, layerDir, processedLayer.getHashArena(), new ModuleContext() {
                 @Override
                 public void addModule(DistributionContentItem module) {
                     processedLayer.addModule(module);
@@ -353,12 +409,12 @@ class DistributionProcessor {
     class LayeredBundleContext extends LayeredContext {
 
         LayeredBundleContext(Distribution distribution) {
-            super(distribution);
+            super(distribution, DistributionProcessor.this.walker);
         }
 
         @Override
-        void process(final DistributionContentItem parent, final File layerDir, final Distribution.ProcessedLayer processedLayer) {
-            processBundles(parent, layerDir, new ModuleContext() {
+        void process(final DistributionContentItem parent, final DistributionWalker.Entry layerDir, final Distribution.ProcessedLayer processedLayer) {
+            processBundles(parent, layerDir, processedLayer.getHashArena(), new ModuleContext() {
                 @Override
                 public void addModule(DistributionContentItem module) {
                     processedLayer.addBundle(module);
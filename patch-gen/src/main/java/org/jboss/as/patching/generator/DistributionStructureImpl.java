@@ -22,8 +22,7 @@
 
 package org.jboss.as.patching.generator;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
 
@@ -42,7 +41,7 @@ class DistributionStructureImpl implements DistributionStructure {
 
     private final Set<DistributionContentItem> moduleSearchPath = new TreeSet<DistributionContentItem>();
     private final Set<DistributionContentItem> bundleSearchPath = new TreeSet<DistributionContentItem>();
-    private final List<DistributionContentItem.Filter> ignored = new ArrayList<DistributionContentItem.Filter>();
+    private IgnoredPathMatcher ignored = new IgnoredPathMatcher(Collections.<String>emptyList());
 
     protected DistributionStructureImpl(final DistributionContentItem root) {
 
@@ -95,8 +94,7 @@ class DistributionStructureImpl implements DistributionStructure {
 
     @Override
     public void registerIgnoredPath(String path) {
-        final DistributionContentItem.Filter filter = new DistributionContentItem.GlobPathFilter(path);
-        ignored.add(filter);
+        ignored = ignored.add(path);
     }
 
     @Override
@@ -111,12 +109,7 @@ class DistributionStructureImpl implements DistributionStructure {
 
     @Override
     public boolean isIgnored(final DistributionContentItem item) {
-        for (final DistributionContentItem.Filter filter : ignored) {
-            if (filter.accept(item)) {
-                return true;
-            }
-        }
-        return false;
+        return ignored.matches(item);
     }
 
     @Override
@@ -0,0 +1,226 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Walks the directories of a distribution. The attributes of every entry are read once while listing its directory,
+ * instead of asking {@code java.io.File} whether it exists, is a directory or is a file, which each cost a separate
+ * stat call.
+ * <p/>
+ * Symbolic links are handled according to {@code patch.gen.symlinks}: {@code follow} (the default) treats them like
+ * their target, {@code skip} leaves them out of the distribution. A link to one of its own parent directories is
+ * reported as an error rather than walked forever.
+ */
+class DistributionWalker {
+
+    enum SymlinkPolicy {
+        FOLLOW,
+        SKIP,
+    }
+
+    private final SymlinkPolicy symlinkPolicy;
+    private final PatchGenMetrics metrics;
+
+    DistributionWalker() {
+        this(getSymlinkPolicy());
+    }
+
+    DistributionWalker(final SymlinkPolicy symlinkPolicy) {
+        this(symlinkPolicy, PatchGenMetrics.DISABLED);
+    }
+
+    DistributionWalker(final SymlinkPolicy symlinkPolicy, final PatchGenMetrics metrics) {
+        this.symlinkPolicy = symlinkPolicy;
+        this.metrics = metrics;
+    }
+
+    static SymlinkPolicy getSymlinkPolicy() {
+        final String value = System.getProperty("patch.gen.symlinks", "follow");
+        try {
+            return SymlinkPolicy.valueOf(value.toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            throw processingError("invalid value '%s' for patch.gen.symlinks, expected follow or skip", value);
+        }
+    }
+
+    /**
+     * Get the entry of the root of a walk.
+     *
+     * @param file the root
+     * @return the entry
+     */
+    Entry root(final File file) {
+        return entry(null, file);
+    }
+
+    /**
+     * Get the entry of a file within a directory, which does not need to exist.
+     *
+     * @param directory the directory
+     * @param name      the name of the file
+     * @return the entry
+     */
+    Entry child(final Entry directory, final String name) {
+        return entry(directory, new File(directory.file, name));
+    }
+
+    /**
+     * List the entries of a directory. Just like {@code File.listFiles()}, nothing is listed for files and directories
+     * which cannot be read.
+     *
+     * @param directory the directory
+     * @return the entries
+     */
+    List<Entry> list(final Entry directory) {
+        if (!directory.isDirectory()) {
+            return Collections.emptyList();
+        }
+        final long start = metrics.start();
+        final List<Entry> entries = new ArrayList<Entry>();
+        try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.SCAN_DIRECTORY, directory.file)) {
+            try (final DirectoryStream<Path> stream = Files.newDirectoryStream(directory.file.toPath())) {
+                for (final Path path : stream) {
+                    final Entry entry = entry(directory, new File(directory.file, path.getFileName().toString()));
+                    if (entry.exists()) {
+                        entries.add(entry);
+                    }
+                }
+            } catch (IOException e) {
+                return Collections.emptyList();
+            }
+            event.success(entries.size());
+        }
+        metrics.record(PatchGenMetrics.Operation.SCAN_DIRECTORY, directory.file, 0, start);
+        return entries;
+    }
+
+    private Entry entry(final Entry parent, final File file) {
+        final Path path = file.toPath();
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return new Entry(parent, file, null);
+        } catch (IOException e) {
+            throw processingError(e, "failed to read the attributes of %s", file);
+        }
+        if (attributes.isSymbolicLink()) {
+            if (symlinkPolicy == SymlinkPolicy.SKIP) {
+                return new Entry(parent, file, null);
+            }
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (IOException e) {
+                // A dangling link, neither a file nor a directory
+                return new Entry(parent, file, attributes);
+            }
+            if (attributes.isDirectory()) {
+                final Object key = keyOf(path, attributes);
+                for (Entry ancestor = parent; ancestor != null; ancestor = ancestor.parent) {
+                    if (key.equals(ancestor.key())) {
+                        throw processingError("symbolic link %s points to its parent directory %s, set patch.gen.symlinks=skip to ignore links", file, ancestor.file);
+                    }
+                }
+            }
+        }
+        return new Entry(parent, file, attributes);
+    }
+
+    private static Object keyOf(final Path path, final BasicFileAttributes attributes) {
+        final Object key = attributes.fileKey();
+        if (key != null) {
+            return key;
+        }
+        // Not every file system has file keys
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            throw processingError(e, "failed to resolve %s", path);
+        }
+    }
+
+    /**
+     * A file or directory of the distribution.
+     */
+    static final class Entry {
+
+        private final Entry parent;
+        private final File file;
+        private final BasicFileAttributes attributes;
+        private Object key;
+
+        private Entry(final Entry parent, final File file, final BasicFileAttributes attributes) {
+            this.parent = parent;
+            this.file = file;
+            this.attributes = attributes;
+        }
+
+        File getFile() {
+            return file;
+        }
+
+        String getName() {
+            return file.getName();
+        }
+
+        boolean exists() {
+            return attributes != null;
+        }
+
+        boolean isDirectory() {
+            return attributes != null && attributes.isDirectory();
+        }
+
+        boolean isFile() {
+            return attributes != null && attributes.isRegularFile();
+        }
+
+        long size() {
+            return attributes == null ? 0L : attributes.size();
+        }
+
+        private Object key() {
+            if (key == null && attributes != null) {
+                key = keyOf(file.toPath(), attributes);
+            }
+            return key;
+        }
+
+    }
+
+}
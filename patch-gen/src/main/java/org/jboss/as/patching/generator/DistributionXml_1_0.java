@@ -292,12 +292,12 @@ class DistributionXml_1_0 implements XMLStreamConstants, XMLElementReader<Distri
             final Element element = Element.forName(reader.getLocalName());
             switch (element) {
                 case BUNDLE: {
-                    final DistributionModuleItem item = readModuleItem(reader);
+                    final DistributionModuleItem item = readModuleItem(reader, layer.getHashArena());
                     layer.getBundles().add(item);
                     break;
                 }
                 case MODULE: {
-                    final DistributionModuleItem item = readModuleItem(reader);
+                    final DistributionModuleItem item = readModuleItem(reader, layer.getHashArena());
                     layer.getModules().add(item);
                     break;
                 }
@@ -307,7 +307,7 @@ class DistributionXml_1_0 implements XMLStreamConstants, XMLElementReader<Distri
         }
     }
 
-    protected static DistributionModuleItem readModuleItem(final XMLExtendedStreamReader reader) throws XMLStreamException {
+    protected static DistributionModuleItem readModuleItem(final XMLExtendedStreamReader reader, final HashArena hashArena) throws XMLStreamException {
 
         String name = null;
         String slot = null;
@@ -339,7 +339,7 @@ class DistributionXml_1_0 implements XMLStreamConstants, XMLElementReader<Distri
             throw missingRequired(reader, "name", "slot", "comparison", "metadata");
         }
         requireNoContent(reader);
-        return new DistributionModuleItem(name, slot, hexStringToByteArray(comparison), hexStringToByteArray(metadata));
+        return new DistributionModuleItem(name, slot, hashArena, hexStringToByteArray(comparison), hexStringToByteArray(metadata));
     }
 
     protected static void readNodes(XMLExtendedStreamReader reader, DistributionContentItem parent) throws XMLStreamException {
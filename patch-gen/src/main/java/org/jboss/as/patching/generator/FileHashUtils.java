@@ -0,0 +1,301 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File hashing used for the content metadata. The resulting hashes are the same ones {@code HashUtils.hashFile}
+ * calculates, however large files are mapped in chunks rather than copied through a stream and the digests
+ * and buffers are reused per thread instead of being shared behind a global lock.
+ * <p/>
+ * A mapping is only released once its buffer got garbage collected. The bytes mapped and not yet released are kept
+ * within {@code patch.gen.hash.mapped.budget}, the rest of a file which does not fit is streamed.
+ */
+class FileHashUtils {
+
+    // Files at least this big are mapped into memory, smaller ones are streamed
+    static final long MAPPED_THRESHOLD = Long.getLong("patch.gen.hash.mapped.threshold", 4L * 1024 * 1024);
+    // The size of the region mapped at once, a single mapping cannot exceed 2GB
+    static final long CHUNK_SIZE = Math.min(Long.getLong("patch.gen.hash.chunk.size", 64L * 1024 * 1024), Integer.MAX_VALUE);
+    // The maximum number of bytes mapped and not yet released, 0 disables the mapping
+    static final long MAPPED_BUDGET = Long.getLong("patch.gen.hash.mapped.budget", 1024L * 1024 * 1024);
+
+    private static final MappingBudget MAPPINGS = new MappingBudget(MAPPED_BUDGET);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<MessageDigest> DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            return createDigest();
+        }
+    };
+
+    private static final ThreadLocal<byte[]> BUFFER = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[BUFFER_SIZE];
+        }
+    };
+
+    /**
+     * Calculate the hash for a file or directory.
+     *
+     * @param file the file
+     * @return the hash
+     * @throws IOException
+     */
+    static byte[] hashFile(final File file) throws IOException {
+        try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.HASH_FILE, file)) {
+            final MessageDigest digest = DIGEST.get();
+            digest.reset();
+            updateDigest(digest, file);
+            event.success();
+            return digest.digest();
+        }
+    }
+
+    /**
+     * Update a digest with the content of a file. Directories are processed recursively, with the children
+     * sorted by name.
+     *
+     * @param digest the digest
+     * @param file   the file
+     * @throws IOException
+     */
+    static void updateDigest(final MessageDigest digest, final File file) throws IOException {
+        if (file.isDirectory()) {
+            final File[] children = file.listFiles();
+            if (children != null) {
+                final Map<String, File> sorted = new TreeMap<String, File>();
+                for (final File child : children) {
+                    sorted.put(child.getName(), child);
+                }
+                for (final File child : sorted.values()) {
+                    updateDigest(digest, child);
+                }
+            }
+        } else if (file.length() >= MAPPED_THRESHOLD) {
+            updateDigestMapped(digest, file, CHUNK_SIZE);
+        } else {
+            updateDigestStreamed(digest, file);
+        }
+    }
+
+    /**
+     * Update a digest by mapping the file chunk by chunk.
+     *
+     * @param digest    the digest
+     * @param file      the file
+     * @param chunkSize the maximum size of a single mapping
+     * @throws IOException
+     */
+    static void updateDigestMapped(final MessageDigest digest, final File file, final long chunkSize) throws IOException {
+        updateDigestMapped(digest, file, chunkSize, MAPPINGS);
+    }
+
+    /**
+     * Update a digest by mapping the file chunk by chunk, as long as the chunks fit into the budget. The remaining
+     * content is streamed otherwise.
+     *
+     * @param digest    the digest
+     * @param file      the file
+     * @param chunkSize the maximum size of a single mapping
+     * @param budget    the budget of the mapped bytes
+     * @throws IOException
+     */
+    static void updateDigestMapped(final MessageDigest digest, final File file, final long chunkSize, final MappingBudget budget) throws IOException {
+        final FileInputStream is = new FileInputStream(file);
+        try {
+            final FileChannel channel = is.getChannel();
+            final long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                final long length = Math.min(chunkSize, size - position);
+                if (!budget.reserve(length)) {
+                    // The stream shares the position with the channel
+                    channel.position(position);
+                    updateDigest(digest, is);
+                    return;
+                }
+                final MappedByteBuffer buffer;
+                try {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                } catch (IOException e) {
+                    budget.cancel(length);
+                    throw e;
+                }
+                budget.register(buffer, length);
+                digest.update(buffer);
+                position += length;
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Update a digest by reading the file through a stream.
+     *
+     * @param digest the digest
+     * @param file   the file
+     * @throws IOException
+     */
+    static void updateDigestStreamed(final MessageDigest digest, final File file) throws IOException {
+        final InputStream is = new FileInputStream(file);
+        try {
+            updateDigest(digest, is);
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * Update a digest with the remaining content of a stream, using the buffer of the current thread.
+     *
+     * @param digest the digest
+     * @param is     the input stream
+     * @throws IOException
+     */
+    static void updateDigest(final MessageDigest digest, final InputStream is) throws IOException {
+        final byte[] buffer = BUFFER.get();
+        int l;
+        while ((l = is.read(buffer)) > 0) {
+            digest.update(buffer, 0, l);
+        }
+    }
+
+    static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private FileHashUtils() {
+        //
+    }
+
+    /**
+     * Tracks the bytes mapped by the hashing, a mapping is released once its buffer got collected.
+     */
+    static final class MappingBudget {
+
+        private final long limit;
+        private final AtomicLong mapped = new AtomicLong();
+        private final ReferenceQueue<MappedByteBuffer> released = new ReferenceQueue<MappedByteBuffer>();
+        // Keeps the references reachable until they are enqueued
+        private final Set<Mapping> mappings = Collections.newSetFromMap(new ConcurrentHashMap<Mapping, Boolean>());
+
+        MappingBudget(final long limit) {
+            this.limit = limit;
+        }
+
+        /**
+         * Reserve a number of bytes for a mapping.
+         *
+         * @param length the number of bytes
+         * @return {@code true} if they fit into the budget, {@code false} otherwise
+         */
+        boolean reserve(final long length) {
+            release();
+            for (;;) {
+                final long current = mapped.get();
+                if (current + length > limit) {
+                    return false;
+                }
+                if (mapped.compareAndSet(current, current + length)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Track a mapping, which got reserved before.
+         *
+         * @param buffer the mapped buffer
+         * @param length the number of bytes reserved
+         */
+        void register(final MappedByteBuffer buffer, final long length) {
+            mappings.add(new Mapping(buffer, released, length));
+        }
+
+        /**
+         * Return a reservation which did not get mapped.
+         *
+         * @param length the number of bytes reserved
+         */
+        void cancel(final long length) {
+            mapped.addAndGet(-length);
+        }
+
+        /**
+         * Get the number of bytes mapped and not yet released.
+         *
+         * @return the number of bytes
+         */
+        long getMapped() {
+            release();
+            return mapped.get();
+        }
+
+        private void release() {
+            Reference<? extends MappedByteBuffer> reference;
+            while ((reference = released.poll()) != null) {
+                final Mapping mapping = (Mapping) reference;
+                if (mappings.remove(mapping)) {
+                    mapped.addAndGet(-mapping.length);
+                }
+            }
+        }
+    }
+
+    private static final class Mapping extends PhantomReference<MappedByteBuffer> {
+
+        private final long length;
+
+        Mapping(final MappedByteBuffer buffer, final ReferenceQueue<? super MappedByteBuffer> queue, final long length) {
+            super(buffer, queue);
+            this.length = length;
+        }
+    }
+
+}
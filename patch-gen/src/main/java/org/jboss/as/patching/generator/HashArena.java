@@ -0,0 +1,130 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Storage for the SHA-1 hashes of a distribution. Instead of a separate {@code byte[]} per hash, the hashes are
+ * written back to back into large buffers and referenced by an {@code int} handle. Buffers are allocated one page at
+ * a time, so handles remain valid while the arena grows. Direct buffers can be used with
+ * {@code -Dpatch.gen.hash.arena.direct=true}.
+ */
+class HashArena {
+
+    static final int WIDTH = 20;
+    // Handles for the values which are not stored in a page
+    static final int NO_HASH = -1;
+    static final int EMPTY_HASH = -2;
+
+    private static final boolean DIRECT = Boolean.getBoolean("patch.gen.hash.arena.direct");
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SLOTS = 1 << PAGE_SHIFT;
+    private static final byte[] EMPTY = new byte[0];
+
+    private volatile ByteBuffer[] pages = new ByteBuffer[0];
+    private int next;
+
+    /**
+     * Store a hash.
+     *
+     * @param hash the hash, either {@code null}, empty or {@link #WIDTH} bytes long
+     * @return the handle
+     */
+    int add(final byte[] hash) {
+        if (hash == null) {
+            return NO_HASH;
+        } else if (hash.length == 0) {
+            return EMPTY_HASH;
+        } else if (hash.length != WIDTH) {
+            throw new IllegalArgumentException("unexpected hash length " + hash.length);
+        }
+        synchronized (this) {
+            final int handle = next++;
+            final int page = handle >>> PAGE_SHIFT;
+            ByteBuffer[] pages = this.pages;
+            if (page == pages.length) {
+                pages = Arrays.copyOf(pages, page + 1);
+                pages[page] = DIRECT ? ByteBuffer.allocateDirect(PAGE_SLOTS * WIDTH) : ByteBuffer.allocate(PAGE_SLOTS * WIDTH);
+                this.pages = pages;
+            }
+            final ByteBuffer buffer = pages[page];
+            final int offset = (handle & (PAGE_SLOTS - 1)) * WIDTH;
+            for (int i = 0; i < WIDTH; i++) {
+                buffer.put(offset + i, hash[i]);
+            }
+            return handle;
+        }
+    }
+
+    /**
+     * Get a copy of a hash.
+     *
+     * @param handle the handle
+     * @return the hash
+     */
+    byte[] get(final int handle) {
+        if (handle == NO_HASH) {
+            return null;
+        } else if (handle == EMPTY_HASH) {
+            return EMPTY;
+        }
+        final ByteBuffer buffer = page(handle);
+        final int offset = (handle & (PAGE_SLOTS - 1)) * WIDTH;
+        final byte[] hash = new byte[WIDTH];
+        for (int i = 0; i < WIDTH; i++) {
+            hash[i] = buffer.get(offset + i);
+        }
+        return hash;
+    }
+
+    private ByteBuffer page(final int handle) {
+        return pages[handle >>> PAGE_SHIFT];
+    }
+
+    /**
+     * Compare two hashes, which might be stored in different arenas.
+     *
+     * @param a1 the arena of the first hash
+     * @param h1 the handle of the first hash
+     * @param a2 the arena of the second hash
+     * @param h2 the handle of the second hash
+     * @return whether both hashes are equal
+     */
+    static boolean equals(final HashArena a1, final int h1, final HashArena a2, final int h2) {
+        if (h1 < 0 || h2 < 0) {
+            return h1 == h2;
+        } else if (a1 == a2 && h1 == h2) {
+            return true;
+        }
+        final ByteBuffer b1 = a1.page(h1);
+        final ByteBuffer b2 = a2.page(h2);
+        final int o1 = (h1 & (PAGE_SLOTS - 1)) * WIDTH;
+        final int o2 = (h2 & (PAGE_SLOTS - 1)) * WIDTH;
+        return b1.getLong(o1) == b2.getLong(o2)
+                && b1.getLong(o1 + 8) == b2.getLong(o2 + 8)
+                && b1.getInt(o1 + 16) == b2.getInt(o2 + 16);
+    }
+
+}
@@ -0,0 +1,379 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Schedules the hashing of the distribution content on a pool of worker threads. Pending tasks are processed largest
+ * first, so that a single big file does not end up as the tail of the run, and the number of bytes hashed at the same
+ * time is capped to not thrash the heap and page cache.
+ * <p/>
+ * A task which did not start yet when its result is requested runs on the requesting thread instead.
+ * <p/>
+ * The worker threads can be virtual ones on Java 21 and later, see {@link HashingThreads}. The tasks can also run on an
+ * executor of the caller. The pending tasks are then still kept in the order above, every task submitted to the
+ * executor just runs the first one pending at that time.
+ * <p/>
+ * Waiting for a result or for the permits of a task is a {@link ForkJoinPool.ManagedBlocker}, so that a fork-join pool
+ * the comparisons or the tasks run on makes up for the blocked threads rather than running out of them.
+ */
+class HashingScheduler {
+
+    // The number of worker threads
+    static final int THREADS = Integer.getInteger("patch.gen.hash.threads", Runtime.getRuntime().availableProcessors());
+    // The maximum number of bytes hashed at the same time, 0 disables the limit
+    static final long MAX_IN_FLIGHT = Long.getLong("patch.gen.hash.max.inflight", 512L * 1024 * 1024);
+
+    private final Executor executor;
+    // The threads created by this scheduler, null when running on the executor of the caller
+    private final ExecutorService pool;
+    private final PriorityBlockingQueue<HashTask<?>> queue = new PriorityBlockingQueue<HashTask<?>>();
+    private final Runnable runNext = new Runnable() {
+        @Override
+        public void run() {
+            final HashTask<?> task = queue.poll();
+            if (task != null) {
+                task.run();
+            }
+        }
+    };
+    private final Semaphore inFlight;
+    private final int maxPermits;
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final PatchGenMetrics metrics;
+    private final ProgressTracker progress;
+
+    HashingScheduler() {
+        this(PatchGenMetrics.DISABLED, null);
+    }
+
+    HashingScheduler(final PatchGenMetrics metrics, final ProgressTracker progress) {
+        this(THREADS, MAX_IN_FLIGHT, metrics, progress);
+    }
+
+    HashingScheduler(final int threads, final long maxInFlight) {
+        this(threads, maxInFlight, PatchGenMetrics.DISABLED, null);
+    }
+
+    /**
+     * Create a scheduler.
+     *
+     * @param threads     the number of worker threads, unless running on virtual threads
+     * @param maxInFlight the maximum number of bytes hashed at the same time, 0 for no limit
+     * @param metrics     the metrics of the hashing
+     * @param progress    the progress the scheduled and completed tasks are counted in, {@code null} for none
+     * @see HashingThreads
+     */
+    HashingScheduler(final int threads, final long maxInFlight, final PatchGenMetrics metrics, final ProgressTracker progress) {
+        this(HashingThreads.create(threads), true, maxInFlight, metrics, progress);
+    }
+
+    /**
+     * Create a scheduler running the tasks on the executor of the caller, which does not get shut down.
+     *
+     * @param executor    the executor
+     * @param maxInFlight the maximum number of bytes hashed at the same time, 0 for no limit
+     * @param metrics     the metrics of the hashing
+     * @param progress    the progress the scheduled and completed tasks are counted in, {@code null} for none
+     */
+    HashingScheduler(final Executor executor, final long maxInFlight, final PatchGenMetrics metrics, final ProgressTracker progress) {
+        this(executor, false, maxInFlight, metrics, progress);
+    }
+
+    private HashingScheduler(final Executor executor, final boolean owned, final long maxInFlight, final PatchGenMetrics metrics, final ProgressTracker progress) {
+        this.executor = executor;
+        this.pool = owned ? (ExecutorService) executor : null;
+        this.metrics = metrics;
+        this.progress = progress;
+        // The permits are counted in KiB
+        this.maxPermits = maxInFlight > 0 ? (int) Math.min(Integer.MAX_VALUE, Math.max(1, maxInFlight / 1024)) : 0;
+        this.inFlight = maxPermits > 0 ? new Semaphore(maxPermits, true) : null;
+    }
+
+    /**
+     * Get the metrics of the scheduled tasks.
+     *
+     * @return the metrics
+     */
+    PatchGenMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Schedule a task.
+     *
+     * @param size the number of bytes the task is going to read
+     * @param task the task
+     * @return the future
+     */
+    <T> Future<T> schedule(final long size, final Callable<T> task) {
+        final HashTask<T> future = new HashTask<T>(task, size, sequence.getAndIncrement());
+        pending.incrementAndGet();
+        if (progress != null) {
+            progress.itemDiscovered(size);
+        }
+        queue.add(future);
+        executor.execute(runNext);
+        return future;
+    }
+
+    /**
+     * Get the result of a scheduled task, running it on the calling thread if it did not start yet.
+     *
+     * @param future the future
+     * @return the result
+     */
+    static <T> T get(final Future<T> future) {
+        if (future instanceof Runnable) {
+            ((Runnable) future).run();
+        }
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    if (!future.isDone()) {
+                        ForkJoinPool.managedBlock(new ResultBlocker(future));
+                    }
+                    return future.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    } else if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw processingError((Exception) cause, "failed to generate hash");
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Wait until all scheduled tasks are done.
+     */
+    void awaitCompletion() {
+        boolean interrupted = false;
+        try {
+            synchronized (pending) {
+                while (pending.get() > 0) {
+                    try {
+                        pending.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Cancel the tasks which did not start yet and stop the worker threads, running tasks get interrupted. Tasks
+     * running on the executor of the caller are left to finish, the executor itself is left alone.
+     */
+    void shutdown() {
+        HashTask<?> task;
+        while ((task = queue.poll()) != null) {
+            // Counted as done as well
+            task.cancel(false);
+        }
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Get the number of bytes in a file or directory.
+     *
+     * @param file the file
+     * @return the size
+     */
+    static long sizeOf(final File file) {
+        if (file.isDirectory()) {
+            long size = 0;
+            final File[] children = file.listFiles();
+            if (children != null) {
+                for (final File child : children) {
+                    size += sizeOf(child);
+                }
+            }
+            return size;
+        }
+        return file.length();
+    }
+
+    class HashTask<T> extends FutureTask<T> implements Comparable<HashTask<?>> {
+
+        private final long size;
+        private final long sequence;
+        // Claimed by the first thread running it, either a worker or one requesting the result
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        HashTask(Callable<T> callable, long size, long sequence) {
+            super(callable);
+            this.size = size;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            // Only the thread claiming the task waits for the permits, the others go on waiting for the result
+            if (isDone() || !started.compareAndSet(false, true)) {
+                return;
+            }
+            final int permits = inFlight == null ? 0 : (int) Math.min(maxPermits, Math.max(1, size / 1024));
+            if (permits > 0) {
+                acquire(permits);
+            }
+            try {
+                super.run();
+            } finally {
+                if (permits > 0) {
+                    inFlight.release(permits);
+                }
+            }
+        }
+
+        private void acquire(final int permits) {
+            boolean interrupted = false;
+            try {
+                for (;;) {
+                    try {
+                        ForkJoinPool.managedBlock(new PermitBlocker(inFlight, permits));
+                        return;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (progress != null && !isCancelled()) {
+                progress.itemHashed(size);
+            }
+            if (pending.decrementAndGet() == 0) {
+                synchronized (pending) {
+                    pending.notifyAll();
+                }
+            }
+        }
+
+        @Override
+        public int compareTo(HashTask<?> o) {
+            // Largest first, otherwise in the order of scheduling
+            if (size != o.size) {
+                return size > o.size ? -1 : 1;
+            }
+            return Long.compare(sequence, o.sequence);
+        }
+    }
+
+    private static final class ResultBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final Future<?> future;
+
+        ResultBlocker(Future<?> future) {
+            this.future = future;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                // Reported by the caller
+            } catch (CancellationException e) {
+                // Reported by the caller
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return future.isDone();
+        }
+    }
+
+    private static final class PermitBlocker implements ForkJoinPool.ManagedBlocker {
+
+        private final Semaphore semaphore;
+        private final int permits;
+        private boolean acquired;
+
+        PermitBlocker(Semaphore semaphore, int permits) {
+            this.semaphore = semaphore;
+            this.permits = permits;
+        }
+
+        @Override
+        public boolean block() {
+            if (!acquired) {
+                semaphore.acquireUninterruptibly(permits);
+                acquired = true;
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            // Does not barge in front of the tasks already waiting, the semaphore is a fair one
+            if (!acquired && !semaphore.hasQueuedThreads()) {
+                acquired = semaphore.tryAcquire(permits);
+            }
+            return acquired;
+        }
+    }
+
+}
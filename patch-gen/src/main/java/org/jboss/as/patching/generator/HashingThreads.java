@@ -0,0 +1,93 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads a {@link HashingScheduler} runs its tasks on, unless the caller passes an executor.
+ * <p/>
+ * This is the version for Java 8, which only has platform threads. The multi-release jar contains a version for Java 21
+ * and later in {@code META-INF/versions/21}, built from {@code src/main/java21}, which can start a virtual thread per
+ * task and bound the number of files open at the same time instead. Both versions need the same signatures.
+ */
+final class HashingThreads {
+
+    // Opts in to the virtual threads where available, the platform threads are the default
+    static final boolean VIRTUAL = Boolean.getBoolean("patch.gen.hash.virtual");
+    // The maximum number of files hashed at the same time on virtual threads
+    static final int MAX_OPEN_FILES = Integer.getInteger("patch.gen.hash.max.open.files", 256);
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private HashingThreads() {
+    }
+
+    /**
+     * Check whether the tasks can run on virtual threads.
+     *
+     * @return whether virtual threads are available
+     */
+    static boolean isVirtualAvailable() {
+        return false;
+    }
+
+    /**
+     * Create the threads, virtual ones where available if {@code patch.gen.hash.virtual} is set.
+     *
+     * @param threads the number of platform threads
+     * @return the executor
+     */
+    static ExecutorService create(final int threads) {
+        return create(threads, VIRTUAL);
+    }
+
+    /**
+     * Create the threads.
+     *
+     * @param threads the number of platform threads
+     * @param virtual whether to use virtual threads, if available
+     * @return the executor
+     */
+    static ExecutorService create(final int threads, final boolean virtual) {
+        final int pool = POOL_COUNT.incrementAndGet();
+        final ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "patch-gen-hash-" + pool + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+}
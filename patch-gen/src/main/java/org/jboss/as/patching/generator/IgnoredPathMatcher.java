@@ -0,0 +1,297 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+
+/**
+ * Matches content items against a set of ignored path globs, with the same semantics as
+ * {@link DistributionContentItem.GlobPathFilter}. All globs are compiled into a single automaton, which is turned into
+ * a DFA lazily while matching. The state of an item is derived from the state of its parent by consuming the path
+ * delimiter and the item name, and cached on the item. Checking an item therefore only processes its own name, and the
+ * subtree of an item which cannot match any more is recognized with a single lookup.
+ * <p/>
+ * Instances are immutable, registering another path requires a new matcher.
+ */
+class IgnoredPathMatcher {
+
+    // Element types of a compiled glob
+    private static final byte CHAR = 0;         // a single literal character
+    private static final byte NON_SLASH = 1;    // '?', any single character except '/'
+    private static final byte NON_SLASHES = 2;  // '*', zero or more characters except '/'
+    private static final byte ANY = 3;          // '**', zero or more characters
+    private static final byte SLASHES = 4;      // zero or more '/', following a literal '/'
+    private static final byte END = 5;          // the end of the glob, the path matches
+    private static final byte TAIL = 6;         // anything below a matched path, following the end and a '/'
+
+    private final List<String> globs;
+    // The NFA, one position per element followed by the end and tail positions for each glob
+    private final byte[] types;
+    private final char[] chars;
+    private final Map<BitSet, State> states = new ConcurrentHashMap<BitSet, State>();
+    // The state of the empty path, which is not interned since no delimiter is consumed after it
+    private final State empty;
+    private final State dead;
+
+    IgnoredPathMatcher(final Collection<String> globs) {
+        this.globs = new ArrayList<String>(globs);
+        final List<Byte> types = new ArrayList<Byte>();
+        final StringBuilder chars = new StringBuilder();
+        final BitSet start = new BitSet();
+        for (final String glob : this.globs) {
+            start.set(types.size());
+            compile(glob, types, chars);
+            add(END, types, chars);
+            add(TAIL, types, chars);
+        }
+        final int size = types.size();
+        this.types = new byte[size];
+        this.chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            this.types[i] = types.get(i);
+            this.chars[i] = chars.charAt(i);
+        }
+        this.empty = new State(closure(start));
+        this.dead = intern(new BitSet());
+    }
+
+    /**
+     * Create a matcher with an additional glob.
+     *
+     * @param glob the path glob
+     * @return the new matcher
+     */
+    IgnoredPathMatcher add(final String glob) {
+        final List<String> globs = new ArrayList<String>(this.globs);
+        globs.add(glob);
+        return new IgnoredPathMatcher(globs);
+    }
+
+    /**
+     * Check whether the path of an item matches one of the globs.
+     *
+     * @param item the content item
+     * @return {@code true} if the item is matched
+     */
+    boolean matches(final DistributionContentItem item) {
+        return getState(item).accepting;
+    }
+
+    /**
+     * Check whether a path matches one of the globs.
+     *
+     * @param path the path
+     * @return {@code true} if the path is matched
+     */
+    boolean matches(final String path) {
+        return consume(empty, path).accepting;
+    }
+
+    private State getState(final DistributionContentItem item) {
+        if (item == null) {
+            return empty;
+        }
+        final State cached = item.ignoredPathState;
+        if (cached != null && cached.owner() == this) {
+            return cached;
+        }
+        State state = getState(item.getParent());
+        // Same as the path, which only gets a delimiter if the parent path is not empty
+        if (state != empty) {
+            state = state.next('/');
+        }
+        if (item.name != null) {
+            state = consume(state, item.name);
+        }
+        item.ignoredPathState = state;
+        return state;
+    }
+
+    private State consume(State state, final String s) {
+        final int length = s.length();
+        for (int i = 0; i < length && state != dead; i++) {
+            state = state.next(s.charAt(i));
+        }
+        return state;
+    }
+
+    private State intern(final BitSet nfa) {
+        State state = states.get(nfa);
+        if (state == null) {
+            state = new State(nfa);
+            final State existing = states.putIfAbsent(nfa, state);
+            if (existing != null) {
+                state = existing;
+            }
+        }
+        return state;
+    }
+
+    private BitSet closure(final BitSet positions) {
+        final BitSet result = new BitSet();
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            addClosure(result, i);
+        }
+        return result;
+    }
+
+    private void addClosure(final BitSet result, int position) {
+        result.set(position);
+        // Repetitions can match nothing
+        while (types[position] == NON_SLASHES || types[position] == ANY || types[position] == SLASHES) {
+            result.set(++position);
+        }
+    }
+
+    private State step(final State state, final char c) {
+        final BitSet next = new BitSet();
+        final BitSet current = state.nfa;
+        for (int i = current.nextSetBit(0); i >= 0; i = current.nextSetBit(i + 1)) {
+            switch (types[i]) {
+                case CHAR:
+                    if (chars[i] == c) {
+                        addClosure(next, i + 1);
+                    }
+                    break;
+                case NON_SLASH:
+                    if (c != '/') {
+                        addClosure(next, i + 1);
+                    }
+                    break;
+                case NON_SLASHES:
+                    if (c != '/') {
+                        addClosure(next, i);
+                    }
+                    break;
+                case ANY:
+                    addClosure(next, i);
+                    break;
+                case SLASHES:
+                    if (c == '/') {
+                        addClosure(next, i);
+                    }
+                    break;
+                case END:
+                    if (c == '/') {
+                        next.set(i + 1);
+                    }
+                    break;
+                case TAIL:
+                    next.set(i);
+                    break;
+            }
+        }
+        return intern(next);
+    }
+
+    /**
+     * Compile a glob into elements, following the same rules as {@code DistributionContentItem.getGlobPattern}.
+     */
+    private static void compile(final String glob, final List<Byte> types, final StringBuilder chars) {
+        final Matcher m = DistributionContentItem.GLOB_PATTERN.matcher(glob);
+        boolean lastWasSlash = false;
+        while (m.find()) {
+            lastWasSlash = false;
+            String grp;
+            if ((grp = m.group(1)) != null) {
+                add(grp.length() == 2 ? ANY : NON_SLASHES, types, chars);
+            } else if (m.group(2) != null) {
+                add(NON_SLASH, types, chars);
+            } else if (m.group(3) != null) {
+                literal(m.group().substring(1), types, chars);
+            } else if (m.group(4) != null) {
+                literal("/", types, chars);
+                add(SLASHES, types, chars);
+                lastWasSlash = true;
+            } else {
+                literal(m.group(), types, chars);
+            }
+        }
+        if (lastWasSlash) {
+            // ends in /, append **
+            add(ANY, types, chars);
+        }
+    }
+
+    private static void add(final byte type, final List<Byte> types, final StringBuilder chars) {
+        types.add(type);
+        chars.append('\0');
+    }
+
+    private static void literal(final String s, final List<Byte> types, final StringBuilder chars) {
+        for (int i = 0; i < s.length(); i++) {
+            types.add(CHAR);
+            chars.append(s.charAt(i));
+        }
+    }
+
+    final class State {
+
+        private final BitSet nfa;
+        private final boolean accepting;
+        // Transitions are computed on demand, racing threads compute the same interned state
+        private final State[] ascii = new State[128];
+        private final Map<Character, State> other = new ConcurrentHashMap<Character, State>();
+
+        State(final BitSet nfa) {
+            this.nfa = nfa;
+            boolean accepting = false;
+            for (int i = nfa.nextSetBit(0); i >= 0; i = nfa.nextSetBit(i + 1)) {
+                if (types[i] == END || types[i] == TAIL) {
+                    accepting = true;
+                    break;
+                }
+            }
+            this.accepting = accepting;
+        }
+
+        IgnoredPathMatcher owner() {
+            return IgnoredPathMatcher.this;
+        }
+
+        State next(final char c) {
+            State next;
+            if (c < 128) {
+                next = ascii[c];
+                if (next == null) {
+                    next = step(this, c);
+                    ascii[c] = next;
+                }
+            } else {
+                next = other.get(c);
+                if (next == null) {
+                    next = step(this, c);
+                    other.put(c, next);
+                }
+            }
+            return next;
+        }
+    }
+
+}
@@ -4,17 +4,28 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * @author Emanuel Muckenhuber
@@ -22,6 +33,23 @@ import java.util.jar.Manifest;
 class JarDiffUtils {
 
     private static final boolean USE_METADATA_HASH = Boolean.getBoolean("patch.gen.use.metadata.hash");
+    // Jars at least this big have their entries hashed in parallel
+    static final long PARALLEL_THRESHOLD = Long.getLong("patch.gen.jar.parallel.threshold", 16L * 1024 * 1024);
+    // The number of ranges the entries of a large jar are split into
+    static final int PARALLELISM = Integer.getInteger("patch.gen.jar.parallelism", ForkJoinPool.getCommonPoolParallelism() + 1);
+
+    private static final String META_INF = "META-INF/";
+
+    // The entries of large jars are hashed on threads of their own, reading them blocks
+    private static final ForkJoinPool POOL = createPool();
+
+    // The digest used for the single jar entries
+    private static final ThreadLocal<MessageDigest> ENTRY_DIGEST = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            return FileHashUtils.createDigest();
+        }
+    };
 
     // Ignored manifest attributes
     private static final Set<String> ignoredManifestAttributes = new HashSet<>();
@@ -48,20 +76,21 @@ class JarDiffUtils {
     /**
      * Calculate a has for a file. This might use different ways to calculate the hash for modules, jars and other files.
      *
-     * @param root the file system path
-     * @param item the content item
+     * @param root            the file system path
+     * @param item            the content item
+     * @param moduleDiffUtils the module inspection
      * @return the hash for the path
      * @throws NoSuchAlgorithmException
      * @throws IOException
      */
-    public static byte[] calculateHash(final File root, final DistributionContentItem item) throws NoSuchAlgorithmException, IOException {
+    public static byte[] calculateHash(final File root, final DistributionContentItem item, final ModuleDiffUtils moduleDiffUtils) throws NoSuchAlgorithmException, IOException {
         if (USE_METADATA_HASH) {
             return item.getMetadataHash();
         } else {
 
             final File moduleXml = new File(root, "module.xml");
             if (moduleXml.exists()) {
-                return ModuleDiffUtils.processModule(root, item.getParent().getPath('.'), item.getMetadataHash());
+                return moduleDiffUtils.processModule(root, item.getParent().getPath('.'), item.getMetadataHash());
             } else if (root.getName().equals(".jar")) {
                 return internalJarComparison(root);
             } else {
@@ -86,48 +115,44 @@ class JarDiffUtils {
      * @throws IOException
      */
     public static void internalJarComparison(final File file, final MessageDigest jarDigest, boolean debug) throws NoSuchAlgorithmException, IOException {
+        final TreeSet<Entry> entries;
+        try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.NORMALIZE_JAR, file)) {
+            if (PARALLELISM > 1 && file.length() >= PARALLEL_THRESHOLD) {
+                entries = hashEntries(file, PARALLELISM);
+            } else {
+                entries = hashEntries(file);
+            }
+            event.success();
+        }
+        // Add the hashes to the jarDigest
+        for (final Entry entry : entries) {
+            final byte[] hash = entry.getHash();
+            if (hash != null) {
+                jarDigest.update(hash);
+            }
+        }
+    }
+
+    /**
+     * Hash the entries of a jar one after another while reading it as a stream.
+     *
+     * @param file the jar file
+     * @return the sorted entries
+     * @throws IOException
+     */
+    static TreeSet<Entry> hashEntries(final File file) throws IOException {
         final TreeSet<Entry> entries = new TreeSet<>();
-        final MessageDigest digest = MessageDigest.getInstance("SHA1");
+        final MessageDigest digest = ENTRY_DIGEST.get();
         final JarInputStream in = new JarInputStream(new BufferedInputStream(new FileInputStream(file)));
         try {
             JarEntry entry;
             while ((entry = in.getNextJarEntry()) != null) {
-                // do not hash directories
-                if (entry.isDirectory()) {
-                    continue;
-                }
                 final String name = entry.getName();
-                // do not hash information added by jarsigner
-                if (name.startsWith("META-INF/")) {
-                    if (name.endsWith(".SF") || name.endsWith(".DSA"))
-                        continue;
-                }
-                if (name.equals("META-INF/INDEX.LIST")) {
+                if (entry.isDirectory() || isIgnored(name)) {
                     continue;
                 }
-                // do not hash timestamped maven artifacts
-                // TODO: make this optional, enabled by default
-                if (name.startsWith("META-INF/maven/")) {
-                    if (name.endsWith("/pom.properties")
-                            || name.endsWith("/pom.xml")
-                            || name.endsWith("/effective-pom.xml")) {
-                        continue;
-                    }
-                }
-                // Ignore generated logger and bundle, since the created classes are not consistent
-                if (name.endsWith(".class")) {
-                    if (name.endsWith("_$bundle.class") || name.endsWith("_$logger.class")
-                            || name.contains("_$bundle_") || name.contains("_$logger_")) {
-                        continue;
-                    }
-                }
-
                 digest.reset();
-                final byte[] buf = new byte[4096];
-                int l;
-                while ((l = in.read(buf)) > 0) {
-                    digest.update(buf, 0, l);
-                }
+                FileHashUtils.updateDigest(digest, in);
                 final byte[] d = digest.digest();
                 // Add to ordered set
                 entries.add(new Entry(name, d));
@@ -135,29 +160,233 @@ class JarDiffUtils {
         } finally {
             in.close();
         }
-
         // Process the manifest if there is any
-        final Manifest manifest =  in.getManifest();
+        final Manifest manifest = in.getManifest();
         if (manifest != null) {
-            digest.reset();
-            final Attributes attributes = manifest.getMainAttributes();
-            for (final Map.Entry<Object, Object> entry : attributes.entrySet()) {
-                final String name = entry.getKey().toString();
-                // Ignore attributes that change with every rebuild
-                if (! ignoredManifestAttributes.contains(name)) {
-                    final String value = (String) entry.getValue();
-                    digest.update(name.getBytes());
-                    digest.update(value.getBytes());
+            entries.add(manifestEntry(manifest, digest));
+        }
+        return entries;
+    }
+
+    /**
+     * Hash the entries of a jar using random access, the entries are split into ranges of about the same compressed
+     * size which get inflated and hashed on a fork join pool of {@code patch.gen.jar.parallelism} threads. The
+     * resulting entries are the same ones the streaming mode creates. A jar with several entries of the same name is
+     * hashed as a stream, random access only reads one of them.
+     *
+     * @param file       the jar file
+     * @param partitions the number of ranges
+     * @return the sorted entries
+     * @throws IOException
+     */
+    static TreeSet<Entry> hashEntries(final File file, final int partitions) throws IOException {
+        final List<? extends ZipEntry> zipEntries;
+        Manifest manifest = null;
+        int manifestIndex = -1;
+        final ZipFile zip = new ZipFile(file);
+        try {
+            zipEntries = Collections.list(zip.entries());
+            // JarInputStream only picks up the manifest as one of the first two entries, in all other cases it
+            // gets hashed like any other entry
+            for (int i = 0; i < Math.min(2, zipEntries.size()); i++) {
+                final ZipEntry entry = zipEntries.get(i);
+                if (i == 0 && entry.getName().equalsIgnoreCase(META_INF)) {
+                    continue;
+                }
+                if (entry.getName().equalsIgnoreCase(JarFile.MANIFEST_NAME)) {
+                    final InputStream is = zip.getInputStream(entry);
+                    try {
+                        manifest = new Manifest(is);
+                    } finally {
+                        is.close();
+                    }
+                    manifestIndex = i;
                 }
+                break;
             }
-            // Add the manifest
-            entries.add(new Entry(JarFile.MANIFEST_NAME, digest.digest()));
+        } finally {
+            zip.close();
         }
-        // Add the hashes to the jarDigest
-        for (final Entry entry : entries) {
-            final byte[] hash = entry.getHash();
-            if (hash != null) {
-                jarDigest.update(hash);
+
+        final int size = zipEntries.size();
+        final String[] names = new String[size];
+        final byte[][] hashes = new byte[size][];
+        final Set<String> unique = new HashSet<>();
+        long total = 0;
+        for (int i = 0; i < size; i++) {
+            final ZipEntry entry = zipEntries.get(i);
+            final String name = entry.getName();
+            if (i != manifestIndex && !entry.isDirectory() && !isIgnored(name)) {
+                if (!unique.add(name)) {
+                    // JarInputStream keeps the first of the duplicates, ZipFile returns the last one
+                    return hashEntries(file);
+                }
+                names[i] = name;
+                total += compressedSize(entry);
+            }
+        }
+
+        // Split into contiguous ranges, which keeps the reads of a single task sequential
+        final List<EntryHashTask> tasks = new ArrayList<>(partitions);
+        final long limit = Math.max(1, total / partitions);
+        int start = 0;
+        long current = 0;
+        for (int i = 0; i < size; i++) {
+            if (names[i] != null) {
+                current += compressedSize(zipEntries.get(i));
+                if (current >= limit && tasks.size() < partitions - 1) {
+                    tasks.add(new EntryHashTask(file, names, hashes, start, i + 1));
+                    start = i + 1;
+                    current = 0;
+                }
+            }
+        }
+        if (start < size) {
+            tasks.add(new EntryHashTask(file, names, hashes, start, size));
+        }
+        final ForkJoinTask<Void> hashing = POOL.submit(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+        try {
+            // Does not hold up a fork join pool the caller runs on
+            HashingScheduler.get(hashing);
+        } catch (UncheckedIOException e) {
+            // The exception might have been recreated for the calling thread
+            Throwable cause = e;
+            while (cause != null && !(cause instanceof IOException)) {
+                cause = cause.getCause();
+            }
+            if (cause != null) {
+                throw (IOException) cause;
+            }
+            throw e;
+        }
+
+        // Assemble in the order of the jar
+        final TreeSet<Entry> entries = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            if (names[i] != null) {
+                entries.add(new Entry(names[i], hashes[i]));
+            }
+        }
+        if (manifest != null) {
+            entries.add(manifestEntry(manifest, ENTRY_DIGEST.get()));
+        }
+        return entries;
+    }
+
+    /**
+     * Check whether a jar entry should not be part of the hash.
+     *
+     * @param name the entry name
+     * @return {@code true} if the entry is ignored
+     */
+    static boolean isIgnored(final String name) {
+        // do not hash information added by jarsigner
+        if (name.startsWith("META-INF/")) {
+            if (name.endsWith(".SF") || name.endsWith(".DSA"))
+                return true;
+        }
+        if (name.equals("META-INF/INDEX.LIST")) {
+            return true;
+        }
+        // do not hash timestamped maven artifacts
+        // TODO: make this optional, enabled by default
+        if (name.startsWith("META-INF/maven/")) {
+            if (name.endsWith("/pom.properties")
+                    || name.endsWith("/pom.xml")
+                    || name.endsWith("/effective-pom.xml")) {
+                return true;
+            }
+        }
+        // Ignore generated logger and bundle, since the created classes are not consistent
+        if (name.endsWith(".class")) {
+            if (name.endsWith("_$bundle.class") || name.endsWith("_$logger.class")
+                    || name.contains("_$bundle_") || name.contains("_$logger_")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static Entry manifestEntry(final Manifest manifest, final MessageDigest digest) {
+        digest.reset();
+        final Attributes attributes = manifest.getMainAttributes();
+        for (final Map.Entry<Object, Object> entry : attributes.entrySet()) {
+            final String name = entry.getKey().toString();
+            // Ignore attributes that change with every rebuild
+            if (! ignoredManifestAttributes.contains(name)) {
+                final String value = (String) entry.getValue();
+                digest.update(name.getBytes());
+                digest.update(value.getBytes());
+            }
+        }
+        return new Entry(JarFile.MANIFEST_NAME, digest.digest());
+    }
+
+    private static ForkJoinPool createPool() {
+        final ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("patch-gen-jar-" + thread.getPoolIndex());
+                return thread;
+            }
+        };
+        return new ForkJoinPool(Math.max(1, PARALLELISM), threadFactory, null, false);
+    }
+
+    private static long compressedSize(final ZipEntry entry) {
+        final long size = entry.getCompressedSize();
+        return size < 0 ? 0 : size;
+    }
+
+    /**
+     * Hashes a range of entries, using a separate {@code ZipFile} so the tasks don't contend on the same file.
+     */
+    static class EntryHashTask extends RecursiveAction {
+
+        private final File file;
+        private final String[] names;
+        private final byte[][] hashes;
+        private final int start;
+        private final int end;
+
+        EntryHashTask(File file, String[] names, byte[][] hashes, int start, int end) {
+            this.file = file;
+            this.names = names;
+            this.hashes = hashes;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                final MessageDigest digest = ENTRY_DIGEST.get();
+                final ZipFile zip = new ZipFile(file);
+                try {
+                    for (int i = start; i < end; i++) {
+                        if (names[i] == null) {
+                            continue;
+                        }
+                        final InputStream is = zip.getInputStream(zip.getEntry(names[i]));
+                        try {
+                            digest.reset();
+                            FileHashUtils.updateDigest(digest, is);
+                            hashes[i] = digest.digest();
+                        } finally {
+                            is.close();
+                        }
+                    }
+                } finally {
+                    zip.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
             }
         }
     }
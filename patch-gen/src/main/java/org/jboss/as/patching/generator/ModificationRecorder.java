@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.as.patching.metadata.ContentModification;
+import org.jboss.as.patching.metadata.ModificationBuilderTarget;
+
+/**
+ * Records the content modifications of a comparison running concurrently, so they can be added to the actual builder
+ * later on in a well defined order. A {@link PatchBuilderWrapper.ContentListener} learns about every modification
+ * right away. With a {@link ModificationSpool} only the handles of the modifications are kept.
+ */
+class ModificationRecorder extends ModificationBuilderTarget<ModificationRecorder> {
+
+    private final List<ContentModification> modifications;
+    private final ModificationSpool spool;
+    private final ModificationSpool.Handles handles;
+    private final PatchBuilderWrapper.ContentListener listener;
+    private final String layer;
+    private final boolean addOn;
+
+    ModificationRecorder() {
+        this(null, null, null, false);
+    }
+
+    /**
+     * Create a recorder.
+     *
+     * @param spool    the spool keeping the modifications, {@code null} to keep them on the heap
+     * @param listener the listener, {@code null} for none
+     * @param layer    the layer or add-on the modifications are part of, {@code null} for misc content
+     * @param addOn    whether it is an add-on
+     */
+    ModificationRecorder(final ModificationSpool spool, final PatchBuilderWrapper.ContentListener listener, final String layer, final boolean addOn) {
+        this.spool = spool;
+        this.modifications = spool == null ? new ArrayList<ContentModification>() : null;
+        this.handles = spool == null ? null : new ModificationSpool.Handles();
+        this.listener = listener;
+        this.layer = layer;
+        this.addOn = addOn;
+    }
+
+    @Override
+    protected ModificationRecorder returnThis() {
+        return this;
+    }
+
+    @Override
+    protected void internalAddModification(final ContentModification modification) {
+        if (spool == null) {
+            modifications.add(modification);
+        } else {
+            try {
+                handles.add(spool.add(modification));
+            } catch (IOException e) {
+                throw processingError(e, "failed to spool modification");
+            }
+        }
+        if (listener != null) {
+            listener.modified(layer, addOn, modification);
+        }
+    }
+
+    boolean isEmpty() {
+        return spool == null ? modifications.isEmpty() : handles.size() == 0;
+    }
+
+    /**
+     * Add the recorded modifications to a builder, in the order they were recorded.
+     *
+     * @param target the builder
+     */
+    void replay(final ModificationBuilderTarget<?> target) {
+        if (spool == null) {
+            for (final ContentModification modification : modifications) {
+                target.addContentModification(modification);
+            }
+            return;
+        }
+        if (target instanceof PatchBuilderWrapper && ((PatchBuilderWrapper) target).addSpooled(spool, handles)) {
+            return;
+        }
+        for (int i = 0; i < handles.size(); i++) {
+            final ContentModification modification;
+            try {
+                modification = spool.get(handles.get(i));
+            } catch (IOException e) {
+                throw processingError(e, "failed to read spooled modification");
+            }
+            target.addContentModification(modification);
+        }
+    }
+
+}
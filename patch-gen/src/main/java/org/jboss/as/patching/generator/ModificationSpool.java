@@ -0,0 +1,302 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.metadata.BundleItem;
+import org.jboss.as.patching.metadata.ContentItem;
+import org.jboss.as.patching.metadata.ContentModification;
+import org.jboss.as.patching.metadata.ContentType;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModificationCondition;
+import org.jboss.as.patching.metadata.ModificationType;
+import org.jboss.as.patching.metadata.ModuleItem;
+
+/**
+ * Keeps content modifications off the heap. The first {@code patch.gen.spool.threshold} modifications are kept as they
+ * are, the ones after that get written to a temporary file and are read back whenever they are needed. Every
+ * modification is referred to by a handle, which takes eight bytes on the heap instead of the modification with its
+ * item, path and hashes.
+ * <p/>
+ * The conditions of the modifications only exist once per optional path, they stay on the heap. Thread safe.
+ */
+class ModificationSpool implements Closeable {
+
+    // The number of modifications kept on the heap, 0 writes all of them to the file
+    static final int THRESHOLD = Integer.getInteger("patch.gen.spool.threshold", 10000);
+
+    private static final int NO_HASH = -1;
+    private static final ModificationType[] TYPES = ModificationType.values();
+    private static final ContentType[] CONTENT_TYPES = ContentType.values();
+
+    private final int threshold;
+    private final List<ContentModification> heap = new ArrayList<ContentModification>();
+    private final List<ModificationCondition> conditions = new ArrayList<ModificationCondition>();
+    private final Map<ModificationCondition, Integer> conditionIndex = new IdentityHashMap<ModificationCondition, Integer>();
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private File file;
+    private DataOutputStream out;
+    private RandomAccessFile in;
+    private long position;
+    private boolean flushed = true;
+
+    ModificationSpool() {
+        this(THRESHOLD);
+    }
+
+    /**
+     * Create a spool.
+     *
+     * @param threshold the number of modifications kept on the heap
+     */
+    ModificationSpool(final int threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * Add a modification.
+     *
+     * @param modification the modification
+     * @return the handle
+     * @throws IOException if writing to the file fails
+     */
+    synchronized long add(final ContentModification modification) throws IOException {
+        if (heap.size() < threshold) {
+            heap.add(modification);
+            return heap.size() - 1;
+        }
+        if (out == null) {
+            file = File.createTempFile("patch-gen-spool", ".bin");
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+            in = new RandomAccessFile(file, "r");
+        }
+        record.reset();
+        write(new DataOutputStream(record), modification);
+        final long handle = -(position + 1);
+        out.writeInt(record.size());
+        record.writeTo(out);
+        position += 4 + record.size();
+        flushed = false;
+        return handle;
+    }
+
+    /**
+     * Get a modification.
+     *
+     * @param handle the handle
+     * @return the modification
+     * @throws IOException if reading from the file fails
+     */
+    synchronized ContentModification get(final long handle) throws IOException {
+        if (handle >= 0) {
+            return heap.get((int) handle);
+        }
+        if (!flushed) {
+            out.flush();
+            flushed = true;
+        }
+        in.seek(-handle - 1);
+        final byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+    }
+
+    /**
+     * Get a list of modifications, which are read whenever an element is accessed.
+     *
+     * @param handles the handles
+     * @return the list
+     */
+    List<ContentModification> list(final Handles handles) {
+        return new SpooledList(handles.toArray());
+    }
+
+    /**
+     * Check whether modifications were written to the file.
+     *
+     * @return whether there is a file
+     */
+    synchronized boolean isSpilled() {
+        return file != null;
+    }
+
+    /**
+     * Delete the file. The handles of the modifications in the file are no longer valid.
+     */
+    @Override
+    public synchronized void close() {
+        IoUtils.safeClose(out);
+        IoUtils.safeClose(in);
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private void write(final DataOutputStream os, final ContentModification modification) throws IOException {
+        final ContentItem item = modification.getItem();
+        os.writeByte(modification.getType().ordinal());
+        os.writeByte(item.getContentType().ordinal());
+        os.writeUTF(item.getName());
+        writeHash(os, item.getContentHash());
+        writeHash(os, modification.getTargetHash());
+        if (item.getContentType() == ContentType.MISC) {
+            final MiscContentItem misc = (MiscContentItem) item;
+            final String[] path = misc.getPath();
+            os.writeInt(path.length);
+            for (final String segment : path) {
+                os.writeUTF(segment);
+            }
+            os.writeBoolean(misc.isDirectory());
+            os.writeBoolean(misc.isAffectsRuntime());
+        } else {
+            os.writeUTF(((ModuleItem) item).getSlot());
+        }
+        final ModificationCondition condition = modification.getCondition();
+        if (condition == null) {
+            os.writeInt(-1);
+        } else {
+            Integer index = conditionIndex.get(condition);
+            if (index == null) {
+                index = conditions.size();
+                conditions.add(condition);
+                conditionIndex.put(condition, index);
+            }
+            os.writeInt(index);
+        }
+    }
+
+    private ContentModification read(final DataInputStream is) throws IOException {
+        final ModificationType type = TYPES[is.readByte()];
+        final ContentType contentType = CONTENT_TYPES[is.readByte()];
+        final String name = is.readUTF();
+        final byte[] hash = readHash(is);
+        final byte[] targetHash = readHash(is);
+        final ContentItem item;
+        if (contentType == ContentType.MISC) {
+            final String[] path = new String[is.readInt()];
+            for (int i = 0; i < path.length; i++) {
+                path[i] = is.readUTF();
+            }
+            final boolean directory = is.readBoolean();
+            final boolean affectsRuntime = is.readBoolean();
+            item = new MiscContentItem(name, path, hash, directory, affectsRuntime);
+        } else if (contentType == ContentType.BUNDLE) {
+            item = new BundleItem(name, is.readUTF(), hash);
+        } else {
+            item = new ModuleItem(name, is.readUTF(), hash);
+        }
+        final int condition = is.readInt();
+        return new ContentModification(item, targetHash, type, condition < 0 ? null : conditions.get(condition));
+    }
+
+    private static void writeHash(final DataOutputStream os, final byte[] hash) throws IOException {
+        if (hash == null) {
+            os.writeShort(NO_HASH);
+        } else {
+            os.writeShort(hash.length);
+            os.write(hash);
+        }
+    }
+
+    private static byte[] readHash(final DataInputStream is) throws IOException {
+        final int length = is.readShort();
+        if (length == NO_HASH) {
+            return null;
+        }
+        final byte[] hash = new byte[length];
+        is.readFully(hash);
+        return hash;
+    }
+
+    /**
+     * A growing list of handles.
+     */
+    static final class Handles {
+
+        private long[] handles = new long[16];
+        private int size;
+
+        void add(final long handle) {
+            if (size == handles.length) {
+                handles = Arrays.copyOf(handles, size * 2);
+            }
+            handles[size++] = handle;
+        }
+
+        int size() {
+            return size;
+        }
+
+        long get(final int index) {
+            return handles[index];
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(handles, size);
+        }
+    }
+
+    private final class SpooledList extends AbstractList<ContentModification> implements RandomAccess {
+
+        private final long[] handles;
+
+        private SpooledList(final long[] handles) {
+            this.handles = handles;
+        }
+
+        @Override
+        public ContentModification get(final int index) {
+            try {
+                return ModificationSpool.this.get(handles[index]);
+            } catch (IOException e) {
+                throw processingError(e, "failed to read spooled modification");
+            }
+        }
+
+        @Override
+        public int size() {
+            return handles.length;
+        }
+    }
+
+}
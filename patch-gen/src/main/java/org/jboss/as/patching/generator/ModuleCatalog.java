@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+/**
+ * The modules or bundles of a layer, appended while the distribution is processed and sorted once when the catalog is
+ * read, just like the {@link SortedChildren} of a directory item.
+ * <p>
+ * Walking two catalogs with {@link #compare(ModuleCatalog, ModuleCatalog, Visitor)} does not allocate, the comparison
+ * hashes are checked in place within their {@link HashArena}.
+ */
+class ModuleCatalog extends SortedChildren<DistributionModuleItem> {
+
+    /**
+     * Walk the original and updated catalog side by side. The removed and matched items are visited first, the added
+     * ones after all of them, just like the comparison of the module sets did before. Each group is in name order.
+     *
+     * @param original the original catalog
+     * @param updated  the updated catalog
+     * @param visitor  the visitor
+     */
+    static void compare(final ModuleCatalog original, final ModuleCatalog updated, final Visitor visitor) {
+        final Object[] os;
+        final int oSize;
+        synchronized (original) {
+            os = original.sortedItems();
+            oSize = original.size();
+        }
+        final Object[] ns;
+        final int nSize;
+        synchronized (updated) {
+            ns = updated.sortedItems();
+            nSize = updated.size();
+        }
+        walk(os, oSize, ns, nSize, visitor, false);
+        walk(os, oSize, ns, nSize, visitor, true);
+    }
+
+    private static void walk(final Object[] os, final int oSize, final Object[] ns, final int nSize,
+                             final Visitor visitor, final boolean added) {
+        int i = 0;
+        int j = 0;
+        while (i < oSize && j < nSize) {
+            final DistributionModuleItem o = get(os, i);
+            final DistributionModuleItem n = get(ns, j);
+            final int c = o.compareTo(n);
+            if (c < 0) {
+                if (!added) {
+                    visitor.removed(o);
+                }
+                i++;
+            } else if (c > 0) {
+                if (added) {
+                    visitor.added(n);
+                }
+                j++;
+            } else {
+                if (!added) {
+                    visitor.matched(o, n, o.hasSameComparisonHash(n));
+                }
+                i++;
+                j++;
+            }
+        }
+        while (!added && i < oSize) {
+            visitor.removed(ModuleCatalog.<DistributionModuleItem>get(os, i++));
+        }
+        while (added && j < nSize) {
+            visitor.added(ModuleCatalog.<DistributionModuleItem>get(ns, j++));
+        }
+    }
+
+    interface Visitor {
+
+        /**
+         * An item only present in the original catalog.
+         *
+         * @param original the original item
+         */
+        void removed(DistributionModuleItem original);
+
+        /**
+         * An item only present in the updated catalog.
+         *
+         * @param updated the updated item
+         */
+        void added(DistributionModuleItem updated);
+
+        /**
+         * An item present in both catalogs.
+         *
+         * @param original       the original item
+         * @param updated        the updated item
+         * @param sameComparison whether both have the same comparison hash
+         */
+        void matched(DistributionModuleItem original, DistributionModuleItem updated, boolean sameComparison);
+
+    }
+
+}
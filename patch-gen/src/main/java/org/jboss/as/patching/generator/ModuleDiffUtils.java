@@ -11,19 +11,90 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
-
-import org.jboss.as.patching.HashUtils;
+import java.util.regex.Pattern;
 
 /**
+ * Calculates the comparison hash of modules. By default modules are compared by their metadata hash, modules selected
+ * for a deep inspection get their module.xml and resources compared instead, ignoring changes which usually happen
+ * with every rebuild.
+ * <p/>
+ * Instances are immutable and can be used from multiple threads.
+ *
  * @author Emanuel Muckenhuber
  */
 class ModuleDiffUtils implements XMLStreamConstants {
 
-    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    /**
+     * Compares all modules by their metadata hash.
+     */
+    static final ModuleDiffUtils METADATA_ONLY = new ModuleDiffUtils(false, Collections.<String>emptyList());
 
-    protected static volatile boolean deepInspection = false;
+    // The parser factory is not thread-safe, so each thread gets its own
+    static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = new ThreadLocal<XMLInputFactory>() {
+        @Override
+        protected XMLInputFactory initialValue() {
+            final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+            setIfSupported(inputFactory, XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
+            setIfSupported(inputFactory, XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            return inputFactory;
+        }
+    };
+
+    private final boolean deepInspection;
+    private final List<Pattern> modules;
+    private final PatchGenMetrics metrics;
+
+    /**
+     * Create a new instance.
+     *
+     * @param deepInspection whether all modules should be inspected
+     * @param modules        the name globs of the modules to inspect, where {@code *} matches any sequence of characters
+     *                       and {@code ?} a single character
+     */
+    ModuleDiffUtils(final boolean deepInspection, final Collection<String> modules) {
+        this(deepInspection, modules, PatchGenMetrics.DISABLED);
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param deepInspection whether all modules should be inspected
+     * @param modules        the name globs of the modules to inspect
+     * @param metrics        the metrics recording the jar normalization
+     */
+    ModuleDiffUtils(final boolean deepInspection, final Collection<String> modules, final PatchGenMetrics metrics) {
+        this.metrics = metrics;
+        this.deepInspection = deepInspection;
+        final List<Pattern> patterns = new ArrayList<>(modules.size());
+        for (final String module : modules) {
+            patterns.add(getGlobPattern(module));
+        }
+        this.modules = patterns;
+    }
+
+    /**
+     * Whether a module gets inspected in detail.
+     *
+     * @param moduleName the module name
+     * @return {@code true} if the module.xml and resources get compared
+     */
+    boolean isDeepInspection(final String moduleName) {
+        if (deepInspection) {
+            return true;
+        }
+        for (final Pattern pattern : modules) {
+            if (pattern.matcher(moduleName).matches()) {
+                return true;
+            }
+        }
+        return false;
+    }
 
     /**
      * Process a module.
@@ -38,34 +109,42 @@ class ModuleDiffUtils implements XMLStreamConstants {
      * @throws IOException
      * @throws NoSuchAlgorithmException
      */
-    public static byte[] processModule(final File root, final String moduleName, final byte[] metadataHash) throws IOException, NoSuchAlgorithmException {
+    public byte[] processModule(final File root, final String moduleName, final byte[] metadataHash) throws IOException, NoSuchAlgorithmException {
 
-        if (! deepInspection) {
+        if (! isDeepInspection(moduleName)) {
             return metadataHash;
         }
 
+        final Set<String> resources = new LinkedHashSet<>();
+        try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.INSPECT_MODULE, root)) {
+            final byte[] hash = inspectModule(root, resources);
+            event.success(resources.size());
+            return hash;
+        }
+    }
+
+    private byte[] inspectModule(final File root, final Set<String> resources) throws IOException, NoSuchAlgorithmException {
+
         final File moduleXml = new File(root, "module.xml");
         if (! moduleXml.isFile()) {
             throw new IOException("not a module" + root.getAbsolutePath());
         }
 
-        final Set<String> resources = new LinkedHashSet<>();
         final MessageDigest moduleDigest = MessageDigest.getInstance("SHA1");
 
         // Process the module.xml
         final InputStream stream = new FileInputStream(moduleXml);
         try {
-            final XMLInputFactory inputFactory = INPUT_FACTORY;
-            setIfSupported(inputFactory, XMLInputFactory.IS_VALIDATING, Boolean.FALSE);
-            setIfSupported(inputFactory, XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
-            final XMLStreamReader reader = inputFactory.createXMLStreamReader(stream);
-            processRoot(reader, moduleDigest, resources);
+            final XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(stream);
+            try {
+                processRoot(reader, moduleDigest, resources);
+            } finally {
+                reader.close();
+            }
         } catch (XMLStreamException e) {
             throw new IOException(e);
         } finally {
-            if (stream != null) {
-                stream.close();
-            }
+            stream.close();
         }
 
         // Process resource paths
@@ -76,19 +155,21 @@ class ModuleDiffUtils implements XMLStreamConstants {
             }
             if (path.endsWith(".jar")) {
                 try {
+                    final long start = metrics.start();
                     JarDiffUtils.internalJarComparison(resource, moduleDigest, false);
+                    metrics.record(PatchGenMetrics.Operation.JAR_NORMALIZATION, resource, metrics.isEnabled() ? resource.length() : 0, start);
                 } catch (Exception e) {
                     throw new IOException("failed to process " + resource.getAbsolutePath(), e);
                 }
             } else {
-                moduleDigest.update(HashUtils.hashFile(resource));
+                moduleDigest.update(FileHashUtils.hashFile(resource));
             }
         }
 
         // Process native libs
         final File lib = new File(root, "lib");
         if (lib.exists()) {
-            moduleDigest.update(HashUtils.hashFile(lib));
+            moduleDigest.update(FileHashUtils.hashFile(lib));
         }
 
         return moduleDigest.digest();
@@ -156,6 +237,25 @@ class ModuleDiffUtils implements XMLStreamConstants {
         }
     }
 
+    private static Pattern getGlobPattern(final String glob) {
+        final StringBuilder b = new StringBuilder();
+        int start = 0;
+        for (int i = 0; i < glob.length(); i++) {
+            final char c = glob.charAt(i);
+            if (c == '*' || c == '?') {
+                if (start < i) {
+                    b.append(Pattern.quote(glob.substring(start, i)));
+                }
+                b.append(c == '*' ? ".*" : ".");
+                start = i + 1;
+            }
+        }
+        if (start < glob.length()) {
+            b.append(Pattern.quote(glob.substring(start)));
+        }
+        return Pattern.compile(b.toString());
+    }
+
     private static void setIfSupported(final XMLInputFactory inputFactory, final String property, final Object value) {
         if (inputFactory.isPropertySupported(property)) {
             inputFactory.setProperty(property, value);
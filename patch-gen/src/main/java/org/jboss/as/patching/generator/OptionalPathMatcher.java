@@ -0,0 +1,182 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModificationCondition;
+
+/**
+ * The optional paths of a patch, compiled into an immutable trie. The match of an item is derived from the match of
+ * its parent and cached on the item, so resolving the condition of a misc item does not walk its ancestors again.
+ * <p>
+ * An item matches if its path follows the trie down to a leaf, or ends on the way there. All items below a matched
+ * leaf get the same condition as the leaf: the optional directory has to exist, or the item the deepest matched path
+ * {@code requires}.
+ */
+class OptionalPathMatcher {
+
+    static final OptionalPathMatcher NONE = new OptionalPathMatcher(new Node("root", false, null, Collections.<Node>emptyList()));
+
+    private final Node root;
+    private final Match noMatch;
+
+    OptionalPathMatcher(final Node root) {
+        this.root = root;
+        this.noMatch = new Match(this, null, null);
+    }
+
+    /**
+     * Get the condition for a modification of a misc item.
+     *
+     * @param item the item
+     * @return the condition, {@code null} if the item is not within an optional path
+     */
+    ModificationCondition getCondition(final DistributionContentItem item) {
+        if (root.children.length == 0) {
+            return null;
+        }
+        return getMatch(item).condition;
+    }
+
+    /**
+     * Get the item which has to exist for a modification of a misc item to apply.
+     *
+     * @param item the item
+     * @return the required item, {@code null} if the item is not within an optional path
+     */
+    MiscContentItem getRequiredItem(final DistributionContentItem item) {
+        if (root.children.length == 0) {
+            return null;
+        }
+        return getMatch(item).required;
+    }
+
+    private Match getMatch(final DistributionContentItem item) {
+        final Match cached = item.optionalPathMatch;
+        if (cached != null && cached.owner == this) {
+            return cached;
+        }
+        final DistributionContentItem parent = item.getParent();
+        Match match;
+        if (parent == null || parent.name == null) {
+            final Node node = root.find(item.getName());
+            match = node == null ? noMatch : new Match(this, node, Collections.<String>emptyList());
+        } else {
+            match = getMatch(parent);
+            if (match != noMatch && match.node.children.length != 0) {
+                final Node node = match.node.find(item.getName());
+                if (node == null) {
+                    match = noMatch;
+                } else {
+                    final List<String> path = new ArrayList<String>(match.path.size() + 1);
+                    path.addAll(match.path);
+                    path.add(match.node.name);
+                    match = new Match(this, node, Collections.unmodifiableList(path));
+                }
+            }
+        }
+        item.optionalPathMatch = match;
+        return match;
+    }
+
+    static final class Node {
+
+        private final String name;
+        private final boolean wildcard;
+        private final String[] requires;
+        private final Node[] children;
+        // Only used if none of the children is a wildcard, otherwise the first matching child wins
+        private final Map<String, Node> index;
+
+        /**
+         * Create a node.
+         *
+         * @param name     the name, without the trailing wildcard
+         * @param wildcard whether the name is a prefix
+         * @param requires the path of the item required instead of this directory, {@code null} for none
+         * @param children the children, in the order in which they are tried
+         */
+        Node(final String name, final boolean wildcard, final String[] requires, final List<Node> children) {
+            this.name = name;
+            this.wildcard = wildcard;
+            this.requires = requires;
+            this.children = children.toArray(new Node[children.size()]);
+            Map<String, Node> index = new HashMap<String, Node>();
+            for (final Node child : children) {
+                if (child.wildcard) {
+                    index = null;
+                    break;
+                }
+                index.put(child.name, child);
+            }
+            this.index = index;
+        }
+
+        Node find(final String name) {
+            if (index != null) {
+                return index.get(name);
+            }
+            for (final Node child : children) {
+                if (child.wildcard ? name.startsWith(child.name) : child.name.equals(name)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+    }
+
+    static final class Match {
+
+        private final OptionalPathMatcher owner;
+        private final Node node;
+        private final List<String> path;
+        private final MiscContentItem required;
+        private final ModificationCondition condition;
+
+        Match(final OptionalPathMatcher owner, final Node node, final List<String> path) {
+            this.owner = owner;
+            this.node = node;
+            this.path = path;
+            if (node == null) {
+                this.required = null;
+                this.condition = null;
+            } else {
+                if (node.requires != null) {
+                    // The same item as generated before the matcher was compiled, which takes the first segment as name
+                    this.required = new MiscContentItem(node.requires[0], Arrays.asList(Arrays.copyOf(node.requires, node.requires.length - 1)), null, false);
+                } else {
+                    this.required = new MiscContentItem(node.name, path, null, true);
+                }
+                this.condition = ModificationCondition.Factory.exists(required);
+            }
+        }
+    }
+
+}
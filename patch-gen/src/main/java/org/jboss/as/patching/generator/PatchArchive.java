@@ -0,0 +1,260 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.as.patching.PatchingException;
+import org.jboss.as.patching.metadata.PatchMerger;
+
+/**
+ * Writes the patch archive to a {@link PatchOutput}. The layout is the same as the one of {@code ZipUtils.zip()}, with
+ * an entry for every directory, but the archive is streamed to the output rather than written to a file. The entries
+ * can be added one by one, the directory entries of their parents are added as needed.
+ * <p/>
+ * Not thread safe.
+ */
+class PatchArchive implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final CountingOutputStream counting;
+    private final ZipOutputStream zos;
+    private final Set<String> directories = new HashSet<String>();
+
+    /**
+     * Open the output and start the archive.
+     *
+     * @param output the output
+     * @throws IOException
+     */
+    PatchArchive(final PatchOutput output) throws IOException {
+        this.counting = new CountingOutputStream(output.open());
+        this.zos = new ZipOutputStream(new BufferedOutputStream(counting, BUFFER_SIZE));
+    }
+
+    /**
+     * Write the content of the patch directory as archive.
+     *
+     * @param root   the patch directory
+     * @param output the output
+     * @return the number of bytes written
+     * @throws IOException
+     */
+    static long write(final File root, final PatchOutput output) throws IOException {
+        final PatchArchive archive = new PatchArchive(output);
+        try {
+            for (final File file : list(root)) {
+                archive.add(file.getName(), file);
+            }
+        } finally {
+            archive.close();
+        }
+        return archive.getBytesWritten();
+    }
+
+    /**
+     * Combine the patch with a previous cumulative patch. {@link PatchMerger} only writes files, so the combined archive
+     * is written to a temporary file first.
+     *
+     * @param previousCp the previous patch
+     * @param root       the patch directory
+     * @param output     the output
+     * @return the number of bytes written
+     * @throws IOException
+     * @throws PatchingException
+     */
+    static long merge(final File previousCp, final File root, final PatchOutput output) throws IOException, PatchingException {
+        final File target = output.getFile();
+        if (target != null) {
+            PatchMerger.merge(previousCp, root, target);
+            return target.length();
+        }
+        final File merged = File.createTempFile("patch-gen-merged", ".zip");
+        try {
+            PatchMerger.merge(previousCp, root, merged);
+            try (final OutputStream os = output.open()) {
+                return Files.copy(merged.toPath(), os);
+            }
+        } finally {
+            merged.delete();
+        }
+    }
+
+    /**
+     * Add a directory entry, unless it was added already.
+     *
+     * @param path the path of the directory within the archive
+     * @throws IOException
+     */
+    void addDirectory(final String path) throws IOException {
+        if (!directories.add(path)) {
+            return;
+        }
+        addParents(path);
+        zos.putNextEntry(new ZipEntry(path + "/"));
+        zos.closeEntry();
+    }
+
+    /**
+     * Add a file, or a directory including all of its content.
+     *
+     * @param path the path within the archive
+     * @param file the file
+     * @return the number of bytes read
+     * @throws IOException
+     */
+    long add(final String path, final File file) throws IOException {
+        if (file.isDirectory()) {
+            addDirectory(path);
+            long size = 0;
+            for (final File child : list(file)) {
+                size += add(path + "/" + child.getName(), child);
+            }
+            return size;
+        }
+        addParents(path);
+        try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.WRITE_ZIP_ENTRY, path)) {
+            final ZipEntry entry = new ZipEntry(path);
+            entry.setTime(file.lastModified());
+            zos.putNextEntry(entry);
+            final long size = Files.copy(file.toPath(), zos);
+            zos.closeEntry();
+            event.success(size);
+            return size;
+        }
+    }
+
+    /**
+     * Start a file entry, which is complete once the returned stream is closed.
+     *
+     * @param path the path within the archive
+     * @return the stream to write the content of the entry to
+     * @throws IOException
+     */
+    OutputStream addEntry(final String path) throws IOException {
+        addParents(path);
+        // Ends when the stream is closed
+        final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.WRITE_ZIP_ENTRY, path);
+        try {
+            zos.putNextEntry(new ZipEntry(path));
+        } catch (IOException e) {
+            event.close();
+            throw e;
+        }
+        return new FilterOutputStream(zos) {
+            private long size;
+
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                size++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+                size += len;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    zos.closeEntry();
+                    event.success(size);
+                } finally {
+                    event.close();
+                }
+            }
+        };
+    }
+
+    /**
+     * Get the number of bytes written to the output so far.
+     *
+     * @return the number of bytes
+     */
+    long getBytesWritten() {
+        return counting.count;
+    }
+
+    /**
+     * Complete the archive and close the output.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void close() throws IOException {
+        zos.close();
+    }
+
+    private void addParents(final String path) throws IOException {
+        final int index = path.lastIndexOf('/');
+        if (index > 0) {
+            addDirectory(path.substring(0, index));
+        }
+    }
+
+    private static File[] list(final File dir) {
+        final File[] children = dir.listFiles();
+        if (children == null) {
+            return new File[0];
+        }
+        // Stable entry order, independent of the file system
+        Arrays.sort(children);
+        return children;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+}
@@ -24,8 +24,8 @@ package org.jboss.as.patching.generator;
 
 import static org.jboss.as.patching.generator.PatchGenerator.processingError;
 
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -33,10 +33,13 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
 
-import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ContentItem;
+import org.jboss.as.patching.metadata.ContentModification;
 import org.jboss.as.patching.metadata.ModificationBuilderTarget;
-import org.jboss.as.patching.metadata.ModificationCondition;
 import org.jboss.as.patching.metadata.Patch;
 import org.jboss.as.patching.metadata.PatchBuilder;
 import org.jboss.as.patching.metadata.PatchElementBuilder;
@@ -48,9 +51,25 @@ import org.jboss.as.patching.metadata.PatchElementBuilder;
  */
 abstract class PatchBuilderWrapper extends PatchBuilder {
 
+    // Compare the misc files, layers and add-ons one after the other, unless set otherwise
+    static final boolean SERIAL_COMPARE = Boolean.getBoolean("patch.gen.compare.serial");
+    // The number of threads comparing, unless the caller passes a pool
+    static final int COMPARE_THREADS = Integer.getInteger("patch.gen.compare.threads", Runtime.getRuntime().availableProcessors());
+    // The number of sibling items of the misc tree compared by a single task
+    static final int MISC_THRESHOLD = Integer.getInteger("patch.gen.compare.misc.threshold", 32);
 
     private FSPathElement optionalPaths = new FSPathElement("root");
+    private OptionalPathMatcher optionalPathMatcher = OptionalPathMatcher.NONE;
     private boolean skipNoConfigLayers = false;
+    private ContentListener contentListener;
+    private ModificationSpool spool;
+    private ForkJoinPool comparePool;
+    private boolean serialCompare = SERIAL_COMPARE;
+    // The handles of the misc modifications, when spooled
+    private final ModificationSpool.Handles miscHandles = new ModificationSpool.Handles();
+    // The handle of the spooled modification being added by addSpooled, if any
+    private boolean addingSpooled;
+    private long spooledHandle;
 
     protected PatchBuilderWrapper() {
         //
@@ -64,6 +83,11 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
                 e.requires = path.getRequires().split("/");
             }
         }
+        optionalPathMatcher = new OptionalPathMatcher(this.optionalPaths.compile());
+    }
+
+    OptionalPathMatcher getOptionalPathMatcher() {
+        return optionalPathMatcher;
     }
 
     public void setSkipNonConfiguredLayers(boolean skipNoConfigLayers) {
@@ -74,6 +98,104 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
 
     abstract PatchElementBuilder modifyLayer(final String name, final boolean addOn);
 
+    /**
+     * Check whether the content item filter of the builder a modification gets added to accepts it.
+     *
+     * @param layer the layer or add-on, {@code null} for misc content
+     * @param item  the item
+     * @return whether the item becomes part of the patch
+     */
+    boolean isIncluded(final String layer, final ContentItem item) {
+        return true;
+    }
+
+    /**
+     * Set the listener learning about the modifications while the comparison is running. The modifications are not
+     * filtered yet, see {@link #isIncluded}.
+     *
+     * @param contentListener the listener, {@code null} for none
+     */
+    void setContentListener(final ContentListener contentListener) {
+        this.contentListener = contentListener;
+    }
+
+    /**
+     * Set the spool keeping the misc modifications, which are the bulk of a large patch. The patch created by
+     * {@link #compare} reads them from the spool, so it must not be closed before the patch was written.
+     *
+     * @param spool the spool, {@code null} to keep the modifications on the heap
+     */
+    void setModificationSpool(final ModificationSpool spool) {
+        this.spool = spool;
+    }
+
+    /**
+     * Set the pool running the comparisons. They wait for the hashes of the content, so they do not run on the common
+     * pool, which other code relies on.
+     *
+     * @param comparePool the pool, {@code null} to create one for every comparison
+     */
+    void setComparePool(final ForkJoinPool comparePool) {
+        this.comparePool = comparePool;
+    }
+
+    /**
+     * Set whether to compare the misc files, layers and add-ons one after the other. Both give the same patch.
+     *
+     * @param serialCompare whether to compare serially, {@code patch.gen.compare.serial} by default
+     */
+    void setSerialCompare(final boolean serialCompare) {
+        this.serialCompare = serialCompare;
+    }
+
+    /**
+     * Add modifications spooled already, without writing them to the spool again. They still pass the content item
+     * filter of the builder.
+     *
+     * @param spool   the spool holding the modifications
+     * @param handles their handles
+     * @return {@code true} if added, {@code false} if they are in another spool
+     */
+    boolean addSpooled(final ModificationSpool spool, final ModificationSpool.Handles handles) {
+        if (spool == null || spool != this.spool) {
+            return false;
+        }
+        for (int i = 0; i < handles.size(); i++) {
+            final long handle = handles.get(i);
+            final ContentModification modification;
+            try {
+                modification = spool.get(handle);
+            } catch (IOException e) {
+                throw processingError(e, "failed to read spooled modification");
+            }
+            addingSpooled = true;
+            spooledHandle = handle;
+            try {
+                addContentModification(modification);
+            } finally {
+                addingSpooled = false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    protected void internalAddModification(final ContentModification modification) {
+        if (spool == null) {
+            super.internalAddModification(modification);
+            return;
+        }
+        if (addingSpooled) {
+            miscHandles.add(spooledHandle);
+            return;
+        }
+        try {
+            miscHandles.add(spool.add(modification));
+        } catch (IOException e) {
+            throw processingError(e, "failed to spool modification");
+        }
+    }
+
     /**
      * Create a patch based on the comparison of two distributions.
      *
@@ -83,7 +205,8 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
      */
     protected Patch compare(Distribution base, Distribution updated, boolean includeVersion) {
         compare(this, base, updated, includeVersion);
-        return build();
+        final Patch patch = build();
+        return spool == null ? patch : new SpooledPatch(patch, spool.list(miscHandles));
     }
 
     /**
@@ -155,67 +278,315 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
      */
     static void compare(final PatchBuilderWrapper builder, final Distribution original, final Distribution updated, final boolean includeVersion) {
 
-        // Compare misc files
         final DistributionContentItem or = original.getRoot();
         final DistributionContentItem nr = updated.getRoot();
 
-        compareMiscFiles(builder, or, nr, builder.optionalPaths);
-
-        // Compare layers
-        final Set<String> originalLayers = new LinkedHashSet<String>(original.getLayers());
+        // Layers and add-ons in the order their element builders get created
+        final ContentListener listener = builder.contentListener;
+        final ModificationSpool spool = builder.spool;
+        final List<LayerComparison> layers = new ArrayList<LayerComparison>();
         final Set<String> updatedLayers = new LinkedHashSet<String>(updated.getLayers());
+        for (final String layer : original.getLayers()) {
+            final Distribution.ProcessedLayer updatedLayer = updatedLayers.remove(layer) ? updated.getLayer(layer) : null;
+            layers.add(new LayerComparison(layer, false, original.getLayer(layer), updatedLayer, includeVersion, listener));
+        }
+        for (final String layer : updatedLayers) {
+            layers.add(new LayerComparison(layer, false, null, updated.getLayer(layer), includeVersion, listener));
+        }
+        final Set<String> updatedAddOns = new LinkedHashSet<String>(updated.getAddOns());
+        for (final String addOn : original.getAddOns()) {
+            final Distribution.ProcessedLayer updatedAddOn = updatedAddOns.remove(addOn) ? updated.getAddOn(addOn) : null;
+            layers.add(new LayerComparison(addOn, true, original.getAddOn(addOn), updatedAddOn, includeVersion, listener));
+        }
+        for (final String addOn : updatedAddOns) {
+            layers.add(new LayerComparison(addOn, true, null, updated.getAddOn(addOn), includeVersion, listener));
+        }
 
-        for (final String layer : originalLayers) {
-            final Distribution.ProcessedLayer originalLayer = original.getLayer(layer);
-            final Distribution.ProcessedLayer updatedLayer;
-            final PatchElementBuilder elementBuilder;
-            if (updatedLayers.remove(layer)) {
-                elementBuilder = builder.modifyLayer(layer);
-                updatedLayer = updated.getLayer(layer);
-            } else {
-                elementBuilder = builder.removeLayer(layer);
-                updatedLayer = null;
+        if (builder.serialCompare) {
+            compareMiscFiles(builder, or, nr, builder.optionalPathMatcher);
+            for (final LayerComparison layer : layers) {
+                final PatchElementBuilder elementBuilder = layer.createElementBuilder(builder);
+                if (!layer.isSkipped(builder, elementBuilder)) {
+                    layer.compare(elementBuilder);
+                }
             }
-            //
-            if (!builder.skipNoConfigLayers || elementBuilder != null) {
-                compareLayer(layer, elementBuilder, originalLayer, updatedLayer, includeVersion);
+            return;
+        }
+
+        // Compare everything at once, and add the results to the builders in the same order as a serial run would
+        // The misc comparison records and replays its results itself
+        final RecordedComparison misc = new RecordedComparison(null, null, null, false) {
+            private MiscComparison comparison;
+
+            @Override
+            void compare(final ModificationBuilderTarget<?> target) {
+                comparison = MiscComparison.forChildren(or, nr, builder.optionalPathMatcher, listener, spool);
+                comparison.invoke();
+            }
+
+            @Override
+            void replay(final String layer, final ModificationBuilderTarget<?> target) {
+                super.replay(layer, target);
+                comparison.replay(target);
+            }
+        };
+        final List<RecordedComparison> comparisons = new ArrayList<RecordedComparison>();
+        comparisons.add(misc);
+        comparisons.addAll(layers);
+        final ForkJoinPool pool = builder.comparePool != null ? builder.comparePool : createComparePool();
+        try {
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(comparisons);
+                }
+            });
+        } finally {
+            if (pool != builder.comparePool) {
+                pool.shutdown();
             }
         }
 
-        for (final String layer : updatedLayers) {
-            final Distribution.ProcessedLayer originalLayer = null;
-            final Distribution.ProcessedLayer updatedLayer = updated.getLayer(layer);
-            final PatchElementBuilder elementBuilder = builder.addLayer(layer);
-            //
-            if (!builder.skipNoConfigLayers || elementBuilder != null) {
-                compareLayer(layer, elementBuilder, originalLayer, updatedLayer, includeVersion);
+        misc.replay("misc", builder);
+        for (final LayerComparison layer : layers) {
+            final PatchElementBuilder elementBuilder = layer.createElementBuilder(builder);
+            if (!layer.isSkipped(builder, elementBuilder)) {
+                layer.replay(layer.name, elementBuilder);
             }
         }
+    }
 
-        // Compare add-ons
-        final Set<String> originalAddOns = new LinkedHashSet<String>(original.getAddOns());
-        final Set<String> updatedAddOns = new LinkedHashSet<String>(updated.getAddOns());
+    private static ForkJoinPool createComparePool() {
+        final ForkJoinPool.ForkJoinWorkerThreadFactory threadFactory = new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+            @Override
+            public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+                final ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("patch-gen-compare-" + thread.getPoolIndex());
+                return thread;
+            }
+        };
+        return new ForkJoinPool(COMPARE_THREADS, threadFactory, null, false);
+    }
+
+    /**
+     * A comparison recording its results, which can run concurrently to other comparisons.
+     */
+    abstract static class RecordedComparison extends RecursiveAction {
+
+        private final ModificationRecorder recorder;
+        private RuntimeException failure;
+
+        RecordedComparison(final ModificationSpool spool, final ContentListener listener, final String layer, final boolean addOn) {
+            this.recorder = new ModificationRecorder(spool, listener, layer, addOn);
+        }
+
+        abstract void compare(ModificationBuilderTarget<?> target);
+
+        @Override
+        protected void compute() {
+            try {
+                compare(recorder);
+            } catch (RuntimeException e) {
+                // Thrown once the results are replayed, as a serial run would have failed at that point
+                failure = e;
+            }
+        }
+
+        /**
+         * Add the recorded modifications to the actual builder.
+         *
+         * @param layer  the layer name
+         * @param target the builder, {@code null} if there is no patch-config for the layer
+         */
+        void replay(final String layer, final ModificationBuilderTarget<?> target) {
+            if (failure != null) {
+                throw failure;
+            }
+            if (!recorder.isEmpty()) {
+                if (target == null) {
+                    throw processingError("missing patch-config for layer/add-on %s", layer);
+                }
+                recorder.replay(target);
+            }
+        }
+    }
+
+    /**
+     * Compares a range of sibling items of the misc tree. Large ranges are split, and every directory gets compared by
+     * a task of its own. The results are kept in tree order, so replaying them gives the same modifications as
+     * {@link #compareMiscFiles} in a single thread.
+     */
+    static class MiscComparison extends RecursiveAction {
+
+        private final DistributionContentItem[] originals;
+        private final DistributionContentItem[] updates;
+        private final int from;
+        private final int to;
+        private final OptionalPathMatcher optionalPaths;
+        private final ContentListener listener;
+        private final ModificationSpool spool;
+        // Recorded modifications and the comparisons of nested directories or ranges, in tree order
+        private final List<Object> results = new ArrayList<Object>();
+
+        private MiscComparison(final DistributionContentItem[] originals, final DistributionContentItem[] updates,
+                               final int from, final int to, final OptionalPathMatcher optionalPaths, final ContentListener listener,
+                               final ModificationSpool spool) {
+            this.originals = originals;
+            this.updates = updates;
+            this.from = from;
+            this.to = to;
+            this.optionalPaths = optionalPaths;
+            this.listener = listener;
+            this.spool = spool;
+        }
 
-        for (final String addOn : originalAddOns) {
-            final Distribution.ProcessedLayer originalLayer = original.getAddOn(addOn);
-            final Distribution.ProcessedLayer updatedLayer;
-            final PatchElementBuilder elementBuilder;
-            if (updatedAddOns.remove(addOn)) {
-                elementBuilder = builder.modifyAddOn(addOn);
-                updatedLayer = updated.getAddOn(addOn);
+        /**
+         * Create the comparison of the children of two directories.
+         *
+         * @param o             the original directory, {@code null} if it was added
+         * @param n             the updated directory
+         * @param optionalPaths the optional paths
+         * @param listener      the listener learning about the modifications, {@code null} for none
+         * @param spool         the spool keeping the modifications, {@code null} to keep them on the heap
+         * @return the comparison
+         */
+        static MiscComparison forChildren(final DistributionContentItem o, final DistributionContentItem n, final OptionalPathMatcher optionalPaths,
+                                          final ContentListener listener, final ModificationSpool spool) {
+            final List<DistributionContentItem> originals = new ArrayList<DistributionContentItem>();
+            final List<DistributionContentItem> updates = new ArrayList<DistributionContentItem>();
+            if (o == null) {
+                for (final DistributionContentItem child : n.getChildren()) {
+                    originals.add(null);
+                    updates.add(child);
+                }
             } else {
-                elementBuilder = builder.removeAddOn(addOn);
-                updatedLayer = null;
+                // Same order as compareMiscFiles
+                final Map<String, DistributionContentItem> children = new HashMap<String, DistributionContentItem>();
+                for (final DistributionContentItem child : n.getChildren()) {
+                    children.put(child.getName(), child);
+                }
+                for (final DistributionContentItem child : o.getChildren()) {
+                    originals.add(child);
+                    updates.add(children.remove(child.getName()));
+                }
+                for (final DistributionContentItem child : children.values()) {
+                    originals.add(null);
+                    updates.add(child);
+                }
             }
-            //
-            compareLayer(addOn, elementBuilder, originalLayer, updatedLayer, includeVersion);
+            final int size = originals.size();
+            return new MiscComparison(originals.toArray(new DistributionContentItem[size]),
+                    updates.toArray(new DistributionContentItem[size]), 0, size, optionalPaths, listener, spool);
         }
 
-        for (final String addOn : updatedAddOns) {
-            final PatchElementBuilder elementBuilder = builder.addAddOn(addOn);
-            compareLayer(addOn, elementBuilder, null, updated.getAddOn(addOn), includeVersion);
+        @Override
+        protected void compute() {
+            if (to - from > MISC_THRESHOLD) {
+                final int middle = (from + to) >>> 1;
+                final MiscComparison first = new MiscComparison(originals, updates, from, middle, optionalPaths, listener, spool);
+                final MiscComparison second = new MiscComparison(originals, updates, middle, to, optionalPaths, listener, spool);
+                invokeAll(first, second);
+                results.add(first);
+                results.add(second);
+                return;
+            }
+            final List<MiscComparison> directories = new ArrayList<MiscComparison>();
+            ModificationRecorder recorder = null;
+            for (int i = from; i < to; i++) {
+                final DistributionContentItem o = originals[i];
+                final DistributionContentItem n = updates[i];
+                if (isDirectory(o, n)) {
+                    final MiscComparison directory = forChildren(o, n, optionalPaths, listener, spool);
+                    directories.add(directory);
+                    results.add(directory);
+                    recorder = null;
+                } else {
+                    if (recorder == null) {
+                        recorder = new ModificationRecorder(spool, listener, null, false);
+                        results.add(recorder);
+                    }
+                    // Does not recurse for anything but directories
+                    compareMiscFiles(recorder, o, n, optionalPaths);
+                }
+            }
+            invokeAll(directories);
         }
 
+        private static boolean isDirectory(final DistributionContentItem o, final DistributionContentItem n) {
+            if (n == null || n.isLeaf()) {
+                return false;
+            } else if (o == null) {
+                return true;
+            }
+            // Mismatches are reported by compareMiscFiles
+            return !o.isLeaf() && o.equals(n);
+        }
+
+        /**
+         * Add the modifications to a builder, in tree order.
+         *
+         * @param target the builder
+         */
+        void replay(final ModificationBuilderTarget<?> target) {
+            for (final Object result : results) {
+                if (result instanceof ModificationRecorder) {
+                    ((ModificationRecorder) result).replay(target);
+                } else {
+                    ((MiscComparison) result).replay(target);
+                }
+            }
+        }
+    }
+
+    /**
+     * The comparison of a single layer or add-on.
+     */
+    static class LayerComparison extends RecordedComparison {
+
+        private final String name;
+        private final boolean addOn;
+        private final Distribution.ProcessedLayer originalLayer;
+        private final Distribution.ProcessedLayer updatedLayer;
+        private final boolean includeVersion;
+
+        LayerComparison(final String name, final boolean addOn, final Distribution.ProcessedLayer originalLayer,
+                        final Distribution.ProcessedLayer updatedLayer, final boolean includeVersion, final ContentListener listener) {
+            // Modules and bundles are few enough to stay on the heap
+            super(null, listener, name, addOn);
+            this.name = name;
+            this.addOn = addOn;
+            this.originalLayer = originalLayer;
+            this.updatedLayer = updatedLayer;
+            this.includeVersion = includeVersion;
+        }
+
+        @Override
+        void compare(final ModificationBuilderTarget<?> target) {
+            try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.COMPARE_LAYER, addOn ? "add-on " + name : "layer " + name)) {
+                compareLayer(name, target, originalLayer, updatedLayer, includeVersion);
+                final Distribution.ProcessedLayer layer = updatedLayer != null ? updatedLayer : originalLayer;
+                event.success(layer.getModules().size() + layer.getBundles().size());
+            }
+        }
+
+        PatchElementBuilder createElementBuilder(final PatchBuilderWrapper builder) {
+            if (addOn) {
+                if (originalLayer == null) {
+                    return builder.addAddOn(name);
+                }
+                return updatedLayer == null ? builder.removeAddOn(name) : builder.modifyAddOn(name);
+            } else {
+                if (originalLayer == null) {
+                    return builder.addLayer(name);
+                }
+                return updatedLayer == null ? builder.removeLayer(name) : builder.modifyLayer(name);
+            }
+        }
+
+        boolean isSkipped(final PatchBuilderWrapper builder, final PatchElementBuilder elementBuilder) {
+            // Add-ons are always compared
+            return !addOn && builder.skipNoConfigLayers && elementBuilder == null;
+        }
     }
 
     /**
@@ -225,74 +596,72 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
      * @param originalLayer  the original layer
      * @param updatedLayer   the updated layer
      */
-    static void compareLayer(final String layer, final PatchElementBuilder elementBuilder, final Distribution.ProcessedLayer originalLayer,
+    static void compareLayer(final String layer, final ModificationBuilderTarget<?> elementBuilder, final Distribution.ProcessedLayer originalLayer,
             final Distribution.ProcessedLayer updatedLayer, boolean includeVersion) {
-        compareModuleItems(layer, elementBuilder, originalLayer.getModules(), updatedLayer.getModules(), false, includeVersion); // Modules
-        compareModuleItems(layer, elementBuilder, originalLayer.getBundles(), updatedLayer.getBundles(), true, false);  // Bundles
+        // A removed or added layer is compared against an empty catalog
+        final ModuleCatalog originalModules = originalLayer == null ? new ModuleCatalog() : originalLayer.getModules();
+        final ModuleCatalog originalBundles = originalLayer == null ? new ModuleCatalog() : originalLayer.getBundles();
+        final ModuleCatalog updatedModules = updatedLayer == null ? new ModuleCatalog() : updatedLayer.getModules();
+        final ModuleCatalog updatedBundles = updatedLayer == null ? new ModuleCatalog() : updatedLayer.getBundles();
+        compareModuleItems(layer, elementBuilder, originalModules, updatedModules, false, includeVersion); // Modules
+        compareModuleItems(layer, elementBuilder, originalBundles, updatedBundles, true, false);  // Bundles
     }
 
     /**
      * Compare a module or bundle item.
      *
      * @param elementBuilder the element builder
-     * @param original       the original module set
-     * @param updated        the updated module set
+     * @param original       the original module catalog
+     * @param updated        the updated module catalog
      * @param bundle         whether is a bundle or module
      */
-    static void compareModuleItems(final String layer, final PatchElementBuilder elementBuilder, final Collection<DistributionModuleItem> original,
-                                   final Collection<DistributionModuleItem> updated, boolean bundle, boolean includeVersion) {
-
-        final Map<String, DistributionModuleItem> modules = new HashMap<String, DistributionModuleItem>();
-        for (final DistributionModuleItem item : updated) {
-            modules.put(item.getFullModuleName(), item);
-        }
+    static void compareModuleItems(final String layer, final ModificationBuilderTarget<?> elementBuilder, final ModuleCatalog original,
+                                   final ModuleCatalog updated, final boolean bundle, final boolean includeVersion) {
 
-        for (final DistributionModuleItem o : original) {
-            final DistributionModuleItem n = modules.remove(o.getFullModuleName());
-            if (n == null) {
-                if(elementBuilder == null) {
-                    throw processingError("missing patch-config for layer/add-on %s", layer);
+        ModuleCatalog.compare(original, updated, new ModuleCatalog.Visitor() {
+            @Override
+            public void removed(final DistributionModuleItem o) {
+                if (bundle) {
+                    builder().removeBundle(o.getName(), o.getSlot(), o.getMetadataHash());
+                } else {
+                    builder().removeModule(o.getName(), o.getSlot(), o.getMetadataHash());
                 }
+            }
+
+            @Override
+            public void added(final DistributionModuleItem n) {
                 if (bundle) {
-                    elementBuilder.removeBundle(o.getName(), o.getSlot(), o.getMetadataHash());
+                    builder().addBundle(n.getName(), n.getSlot(), n.getMetadataHash());
                 } else {
-                    elementBuilder.removeModule(o.getName(), o.getSlot(), o.getMetadataHash());
+                    builder().addModule(n.getName(), n.getSlot(), n.getMetadataHash());
                 }
-            } else {
-                if (!Arrays.equals(n.getComparisonHash(), o.getComparisonHash())) {
-                    if(elementBuilder == null) {
-                        throw processingError("missing patch-config for layer/add-on %s", layer);
-                    }
+            }
+
+            @Override
+            public void matched(final DistributionModuleItem o, final DistributionModuleItem n, final boolean sameComparison) {
+                if (!sameComparison) {
                     if (bundle) {
-                        elementBuilder.modifyBundle(n.getName(), n.getSlot(), o.getMetadataHash(), n.getMetadataHash());
+                        builder().modifyBundle(n.getName(), n.getSlot(), o.getMetadataHash(), n.getMetadataHash());
                     } else {
-                        elementBuilder.modifyModule(n.getName(), n.getSlot(), o.getMetadataHash(), n.getMetadataHash());
+                        builder().modifyModule(n.getName(), n.getSlot(), o.getMetadataHash(), n.getMetadataHash());
                     }
                 } else {
                     // Treat the version module separately, since the comparison hash will ignore the version property in the manifest
                     if (includeVersion && n.getName().equals("org.jboss.as.version")) {
-                        if (! Arrays.equals(o.getMetadataHash(), n.getMetadataHash())) {
-                            if(elementBuilder == null) {
-                                throw processingError("missing patch-config for layer/add-on %s", layer);
-                            }
-                            elementBuilder.modifyModule(n.getName(), n.getSlot(), o.getMetadataHash(), n.getMetadataHash());
+                        if (!o.hasSameMetadataHash(n)) {
+                            builder().modifyModule(n.getName(), n.getSlot(), o.getMetadataHash(), n.getMetadataHash());
                         }
                     }
                 }
             }
-        }
-        if(!modules.isEmpty()) {
-            if(elementBuilder == null) {
-                throw processingError("missing patch-config for layer/add-on %s", layer);
-            }
-            for (final DistributionModuleItem item : modules.values()) {
-                if (bundle) {
-                    elementBuilder.addBundle(item.getName(), item.getSlot(), item.getMetadataHash());
-                } else {
-                    elementBuilder.addModule(item.getName(), item.getSlot(), item.getMetadataHash());
+
+            private ModificationBuilderTarget<?> builder() {
+                if (elementBuilder == null) {
+                    throw processingError("missing patch-config for layer/add-on %s", layer);
                 }
+                return elementBuilder;
             }
-        }
+        });
     }
 
     /**
@@ -301,11 +670,11 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
      * @param o the original root
      * @param n the updated root
      */
-    static void compareMiscFiles(final ModificationBuilderTarget<?> builder, final DistributionContentItem o, final DistributionContentItem n, FSPathElement optionalPaths) {
+    static void compareMiscFiles(final ModificationBuilderTarget<?> builder, final DistributionContentItem o, final DistributionContentItem n, final OptionalPathMatcher optionalPaths) {
         if (o == null && n == null) {
             return;
         } else if (o != null && n == null) {
-            builder.removeFile(o.getName(), o.getParent().getPathAsList(), o.getMetadataHash(), !o.isLeaf(), getCondition(optionalPaths, o));
+            builder.removeFile(o.getName(), o.getParent().getPathAsList(), o.getMetadataHash(), !o.isLeaf(), optionalPaths.getCondition(o));
         } else if (o == null && n != null) {
             boolean directory = !n.isLeaf();
             if (directory) {
@@ -313,7 +682,7 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
                     compareMiscFiles(builder, null, child, optionalPaths);
                 }
             } else {
-                builder.addFile(n.getName(), n.getParent().getPathAsList(), n.getMetadataHash(), directory, getCondition(optionalPaths, n));
+                builder.addFile(n.getName(), n.getParent().getPathAsList(), n.getMetadataHash(), directory, optionalPaths.getCondition(n));
             }
         } else {
             if (!n.equals(o)) {
@@ -322,8 +691,8 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
             if (n.isLeaf() != o.isLeaf()) {
                 throw processingError("TODO");
             }
-            if (n.isLeaf() && !Arrays.equals(o.getComparisonHash(), n.getComparisonHash())) {
-                builder.modifyFile(n.getName(), n.getParent().getPathAsList(), o.getMetadataHash(), n.getMetadataHash(), !n.isLeaf(), getCondition(optionalPaths, o));
+            if (n.isLeaf() && !o.hasSameComparisonHash(n)) {
+                builder.modifyFile(n.getName(), n.getParent().getPathAsList(), o.getMetadataHash(), n.getMetadataHash(), !n.isLeaf(), optionalPaths.getCondition(o));
             } else {
 
                 final Collection<DistributionContentItem> nc = n.getChildren();
@@ -344,55 +713,20 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
         }
     }
 
-    static ModificationCondition getCondition(FSPathElement optionalPaths, DistributionContentItem item) {
-        if(optionalPaths.children.isEmpty()) {
-            return null;
-        }
-        final FSPathElement e = new FSPathElement(optionalPaths);
-        final List<String> path = matchOptionalPath(e, item);
-        if(path == null) {
-            return null;
-        }
-        final MiscContentItem misc;
-        if(e.requires != null) {
-            misc = new MiscContentItem(e.requires[0], Arrays.asList(Arrays.copyOf(e.requires, e.requires.length - 1)), null, false);
-        } else {
-            misc = new MiscContentItem(e.name, path, null, true);
-        }
-        return ModificationCondition.Factory.exists(misc);
-    }
+    /**
+     * Learns about the content modifications while the comparison is running, possibly on several threads at once.
+     */
+    interface ContentListener {
+
+        /**
+         * A modification was found.
+         *
+         * @param layer        the layer or add-on, {@code null} for misc content
+         * @param addOn        whether it is an add-on
+         * @param modification the modification
+         */
+        void modified(String layer, boolean addOn, ContentModification modification);
 
-    static List<String> matchOptionalPath(FSPathElement root, DistributionContentItem item) {
-        if(item.getParent() == null || item.getParent().name == null) {
-            final FSPathElement dir = root.getMatchingElement(item.getName());
-            if(dir != null) {
-                root.linkTo(dir);
-                return Collections.emptyList();
-            }
-            return null;
-        }
-        List<String> path = matchOptionalPath(root, item.getParent());
-        if(path == null) {
-            return null;
-        }
-        if(root.children.isEmpty()) {
-            return path;
-        }
-        final FSPathElement dir = root.getMatchingElement(item.getName());
-        if(dir != null) {
-            switch(path.size()) {
-                case 0:
-                    path = Collections.singletonList(root.name);
-                    break;
-                case 1:
-                    path = new ArrayList<String>(path);
-                default:
-                    path.add(root.name);
-            }
-            root.linkTo(dir);
-            return path;
-        }
-        return null;
     }
 
     private static final class FSPathElement {
@@ -414,28 +748,6 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
             }
         }
 
-        FSPathElement(FSPathElement linkTo) {
-        	containsWildcard = linkTo.containsWildcard;
-            name = linkTo.name;
-            children = linkTo.children;
-        }
-
-        FSPathElement getMatchingElement(String targetName) {
-        	for(FSPathElement child : children.values()) {
-        		if(child.matches(targetName)) {
-        			return child;
-        		}
-        	}
-        	return null;
-        }
-        
-        boolean matches(String targetName) {
-        	if(containsWildcard) {
-        		return targetName.startsWith(name);
-        	}
-    		return name.equals(targetName);
-        }
-        
         FSPathElement addChild(String... names) {
             FSPathElement parent = this;
             FSPathElement child = null;
@@ -482,11 +794,12 @@ abstract class PatchBuilderWrapper extends PatchBuilder {
             }
         }
 
-        void linkTo(FSPathElement dir) {
-        	this.containsWildcard = dir.containsWildcard;
-            this.name = dir.name;
-            this.children = dir.children;
-            this.requires = dir.requires;
+        OptionalPathMatcher.Node compile() {
+            final List<OptionalPathMatcher.Node> nodes = new ArrayList<OptionalPathMatcher.Node>(children.size());
+            for (final FSPathElement child : children.values()) {
+                nodes.add(child.compile());
+            }
+            return new OptionalPathMatcher.Node(name, containsWildcard, requires, nodes);
         }
     }
 }
@@ -118,6 +118,14 @@ public interface PatchConfig {
      */
     Collection<OptionalPath> getOptionalPaths();
 
+    /**
+     * Get the name globs of the modules which should be inspected in detail, rather than compared by their
+     * metadata hash only.
+     *
+     * @return the module name globs. Will not return {@code null}
+     */
+    Collection<String> getDetailedInspectionModules();
+
     /**
      * Returns whether we should skip checking the identities of the servers used to
      * generate the diff.
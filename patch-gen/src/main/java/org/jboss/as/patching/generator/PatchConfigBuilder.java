@@ -64,9 +64,10 @@ class PatchConfigBuilder implements ContentItemFilter {
     private Patch.PatchType patchType;
     private boolean generateByDiff = true;
     private Set<String> runtimeUseItems = new HashSet<String>();
-    private Set<ContentItem> specifiedContent = new HashSet<ContentItem>();
+    private final ContentItemIndex specifiedContent = new ContentItemIndex();
     private Map<String, PatchElementConfigBuilder> elements = new LinkedHashMap<String, PatchElementConfigBuilder>();
     private List<OptionalPath> optionalPaths = Collections.emptyList();
+    private List<String> detailedInspectionModules = new ArrayList<String>();
     private boolean skipNonConfiguredLayers;
     private boolean overrideIdentity;
     private ContentItemFilter contentItemFilter;
@@ -158,6 +159,11 @@ class PatchConfigBuilder implements ContentItemFilter {
         return this;
     }
 
+    PatchConfigBuilder addDetailedInspectionModule(String module) {
+        detailedInspectionModules.add(module);
+        return this;
+    }
+
     public PatchConfigBuilder setSkipNonConfiguredLayers(boolean skipNonConfiguredLayers) {
         this.skipNonConfiguredLayers = skipNonConfiguredLayers;
         return this;
@@ -241,6 +247,11 @@ class PatchConfigBuilder implements ContentItemFilter {
             return optionalPaths;
         }
 
+        @Override
+        public Collection<String> getDetailedInspectionModules() {
+            return detailedInspectionModules;
+        }
+
         @Override
         public boolean isOverrideIdentity() {
             return overrideIdentity;
@@ -271,6 +282,16 @@ class PatchConfigBuilder implements ContentItemFilter {
                     builder.setContentItemFilter(config);
                     return builder;
                 }
+
+                @Override
+                boolean isIncluded(String layer, ContentItem item) {
+                    // The same filters as the builders the modifications get added to
+                    if (layer == null) {
+                        return (contentItemFilter != null ? contentItemFilter : PatchConfigBuilder.this).accepts(item);
+                    }
+                    final PatchElementConfigBuilder config = PatchConfigBuilder.this.elements.get(layer);
+                    return config != null && config.accepts(item);
+                }
             };
 
             wrapper.setDescription(description);
@@ -291,18 +312,9 @@ class PatchConfigBuilder implements ContentItemFilter {
             return true;
         }
         if (item.getContentType() == ContentType.MISC) {
-            for (final ContentItem s : specifiedContent) {
-                if (accepts((MiscContentItem) item, (MiscContentItem) s)) {
-                    return true;
-                }
-            }
+            return specifiedContent.containsMiscFile((MiscContentItem) item);
         }
         return false;
     }
 
-    protected boolean accepts(MiscContentItem one, MiscContentItem two) {
-        return one.getName().equals(two.getName()) &&
-                one.getRelativePath().equals(two.getRelativePath());
-    }
-
 }
@@ -48,6 +48,7 @@ public class PatchConfigXml {
         MAPPER.registerRootElement(new QName(Namespace.PATCH_1_2.getNamespace(), PatchConfigXml_1_0.Element.PATCH_CONFIG.name), INSTANCE);
         MAPPER.registerRootElement(new QName(Namespace.PATCH_1_3.getNamespace(), PatchConfigXml_1_0.Element.PATCH_CONFIG.name), INSTANCE);
         MAPPER.registerRootElement(new QName(Namespace.PATCH_1_4.getNamespace(), PatchConfigXml_1_0.Element.PATCH_CONFIG.name), INSTANCE);
+        MAPPER.registerRootElement(new QName(Namespace.PATCH_1_5.getNamespace(), PatchConfigXml_1_0.Element.PATCH_CONFIG.name), INSTANCE);
 
     }
 
@@ -57,6 +58,7 @@ public class PatchConfigXml {
         PATCH_1_2("urn:jboss:patch-config:1.2"),
         PATCH_1_3("urn:jboss:patch-config:1.3"),
         PATCH_1_4("urn:jboss:patch-config:1.4"),
+        PATCH_1_5("urn:jboss:patch-config:1.5"),
         UNKNOWN(null);
 
         private final String namespace;
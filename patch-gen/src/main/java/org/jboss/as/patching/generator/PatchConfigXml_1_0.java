@@ -64,11 +64,13 @@ class PatchConfigXml_1_0 implements XMLStreamConstants, XMLElementReader<PatchCo
         APPLIES_TO_VERSION("applies-to-version"),
         BUNDLES("bundles"),
         DESCRIPTION("description"),
+        DETAILED_INSPECTION("detailed-inspection"),
         ELEMENT("element"),
         EXCEPTION("exception"),
         GENERATE_BY_DIFF("generate-by-diff"),
         IN_RUNTIME_USE("in-runtime-use"),
         MISC_FILES("misc-files"),
+        MODULE("module"),
         MODULES("modules"),
         NAME("name"),
         ONE_OFF("one-off"),
@@ -180,6 +182,9 @@ class PatchConfigXml_1_0 implements XMLStreamConstants, XMLElementReader<PatchCo
                 case OPTIONAL_PATHS:
                     parseOptionalPaths(reader, patchConfigBuilder);
                     break;
+                case DETAILED_INSPECTION:
+                    parseDetailedInspection(reader, patchConfigBuilder);
+                    break;
                 default:
                     throw unexpectedElement(reader);
             }
@@ -742,4 +747,40 @@ class PatchConfigXml_1_0 implements XMLStreamConstants, XMLElementReader<PatchCo
 
         builder.setContentItemFilter(SkipMiscFilesContentItemFilter.create(exceptions));
     }
+
+    private void parseDetailedInspection(final XMLExtendedStreamReader reader, final PatchConfigBuilder builder) throws XMLStreamException {
+        requireNoAttributes(reader);
+
+        while (reader.hasNext() && reader.nextTag() != END_ELEMENT) {
+            final Element element = Element.forName(reader.getLocalName());
+            switch (element) {
+                case MODULE:
+                    parseDetailedInspectionModule(reader, builder);
+                    break;
+                default:
+                    throw unexpectedElement(reader);
+            }
+        }
+    }
+
+    private void parseDetailedInspectionModule(final XMLExtendedStreamReader reader, final PatchConfigBuilder builder) throws XMLStreamException {
+        String name = null;
+        final int count = reader.getAttributeCount();
+        for (int i = 0; i < count; i++) {
+            final String value = reader.getAttributeValue(i);
+            final Attribute attribute = Attribute.forName(reader.getAttributeLocalName(i));
+            switch (attribute) {
+                case NAME:
+                    name = value;
+                    break;
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        if (name == null) {
+            throw missingRequired(reader, EnumSet.of(Attribute.NAME));
+        }
+        requireNoContent(reader);
+        builder.addDetailedInspectionModule(name);
+    }
 }
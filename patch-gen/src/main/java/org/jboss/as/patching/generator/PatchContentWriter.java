@@ -65,6 +65,12 @@ abstract class PatchContentWriter {
 
     private static final String README = "README.txt";
 
+    private final PatchGenMetrics metrics;
+
+    PatchContentWriter(final PatchGenMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     abstract File getSourceFile(final ContentItem item) throws IOException;
 
     abstract File getTargetFile(final ContentItem item) throws IOException;
@@ -87,11 +93,20 @@ abstract class PatchContentWriter {
             if (!source.exists()) {
                 throw processingError("source item does not exist %s", source.getAbsolutePath());
             }
-            IoUtils.copyFile(source, target);
+            final long start = metrics.start();
+            try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.COPY_ITEM, source)) {
+                IoUtils.copyFile(source, target);
+                event.success();
+            }
+            metrics.record(PatchGenMetrics.Operation.COPY, source, metrics.isEnabled() ? HashingScheduler.sizeOf(target) : 0, start);
         }
     }
 
     static void process(final File targetRoot, final File distributionRoot, final Patch patch) throws IOException, XMLStreamException {
+        process(targetRoot, distributionRoot, patch, PatchGenMetrics.DISABLED);
+    }
+
+    static void process(final File targetRoot, final File distributionRoot, final Patch patch, final PatchGenMetrics metrics) throws IOException, XMLStreamException {
         try {
             targetRoot.mkdirs();
 
@@ -110,14 +125,16 @@ abstract class PatchContentWriter {
 
             // Write the patch xml
             final File patchXml = new File(targetRoot, PatchXml.PATCH_XML);
+            final long start = metrics.start();
             final FileOutputStream os = new FileOutputStream(patchXml);
             try {
                 PatchXml.marshal(os, patch);
             } finally {
                 IoUtils.safeClose(os);
             }
+            metrics.record(PatchGenMetrics.Operation.MARSHAL_PATCH_XML, patchXml, metrics.isEnabled() ? patchXml.length() : 0, start);
             // Copy
-            internalProcess(targetRoot, distributionRoot, patch);
+            internalProcess(targetRoot, distributionRoot, patch, metrics);
 
         } finally {
 
@@ -130,10 +147,11 @@ abstract class PatchContentWriter {
      * @param targetRoot       the target root
      * @param distributionRoot the distribution root
      * @param patch            the patch
+     * @param metrics          the metrics recording the copied items
      * @throws IOException
      * @throws XMLStreamException
      */
-    static void internalProcess(final File targetRoot, final File distributionRoot, final Patch patch) throws IOException, XMLStreamException {
+    static void internalProcess(final File targetRoot, final File distributionRoot, final Patch patch, final PatchGenMetrics metrics) throws IOException, XMLStreamException {
 
         // TODO get from distribution structure ...
         final File bundles = new File(distributionRoot, "bundles");
@@ -146,7 +164,7 @@ abstract class PatchContentWriter {
             final String base = element.getProvider().isAddOn() ? Constants.DEFAULT_ADD_ONS_PATH : Constants.DEFAULT_LAYERS_PATH;
 
             final PatchContentLoader elementLoader = PatchContentLoader.create(elementRoot);
-            final PatchContentWriter elementWriter = new PatchContentWriter() {
+            final PatchContentWriter elementWriter = new PatchContentWriter(metrics) {
                 @Override
                 File getSourceFile(ContentItem item) throws IOException {
                     if (item.getContentType() == ContentType.BUNDLE) {
@@ -173,7 +191,7 @@ abstract class PatchContentWriter {
         // Copy misc items for distribution
         final File patchRoot = new File(targetRoot, patch.getPatchId());
         final PatchContentLoader targetLoader = PatchContentLoader.create(patchRoot);
-        final PatchContentWriter writer = new PatchContentWriter() {
+        final PatchContentWriter writer = new PatchContentWriter(metrics) {
             @Override
             File getSourceFile(ContentItem item) throws IOException {
                 if (item.getContentType() == ContentType.MISC) {
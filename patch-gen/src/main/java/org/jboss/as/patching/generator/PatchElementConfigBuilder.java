@@ -22,7 +22,6 @@
 
 package org.jboss.as.patching.generator;
 
-import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
 
@@ -43,7 +42,7 @@ class PatchElementConfigBuilder implements PatchElementConfig, ContentItemFilter
     private Patch.PatchType patchType;
     private String patchId = UUID.randomUUID().toString();
     private String description = "no description available";
-    private final Set<ContentItem> specifiedContents = new HashSet<ContentItem>();
+    private final ContentItemIndex specifiedContents = new ContentItemIndex();
 
     PatchElementConfigBuilder(String layerName, PatchConfigBuilder parent) {
         this.layerName = layerName;
@@ -89,12 +88,8 @@ class PatchElementConfigBuilder implements PatchElementConfig, ContentItemFilter
 
     @Override
     public boolean accepts(ContentItem item) {
-        if (item.getContentType() != ContentType.MISC) {
-            for (final ContentItem s : specifiedContents) {
-                if (accepts((ModuleItem) s, (ModuleItem) item)) {
-                    return true;
-                }
-            }
+        if (item.getContentType() != ContentType.MISC && specifiedContents.containsModule((ModuleItem) item)) {
+            return true;
         }
         if (parent.isGeneratedByDiff()) {
             return true;
@@ -102,9 +97,4 @@ class PatchElementConfigBuilder implements PatchElementConfig, ContentItemFilter
         return false;
     }
 
-    static boolean accepts(ModuleItem one, ModuleItem two) {
-        return one.getName().equals(two.getName())
-                && one.getSlot().equals(two.getSlot());
-    }
-
 }
@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+/**
+ * An operation recorded as a Java Flight Recorder event, see {@link PatchGenEvents}. The event ends when it is
+ * closed, with a failure as outcome unless {@link #success(long)} was called before:
+ * <pre><code>
+ *   try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.HASH_FILE, file)) {
+ *       ...
+ *       event.success();
+ *   }
+ * </code></pre>
+ */
+interface PatchGenEvent extends AutoCloseable {
+
+    enum Kind {
+        SCAN_DIRECTORY,
+        HASH_FILE,
+        NORMALIZE_JAR,
+        INSPECT_MODULE,
+        COMPARE_LAYER,
+        COPY_ITEM,
+        WRITE_ZIP,
+        WRITE_ZIP_ENTRY,
+    }
+
+    /**
+     * Mark the operation as successful, with the length of the file as size.
+     */
+    void success();
+
+    /**
+     * Mark the operation as successful.
+     *
+     * @param size the number of bytes processed, or entries for a directory, module or layer
+     */
+    void success(long size);
+
+    @Override
+    void close();
+
+}
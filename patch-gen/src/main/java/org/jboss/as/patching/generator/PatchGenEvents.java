@@ -0,0 +1,62 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+/**
+ * Creates the Java Flight Recorder events of a patch generation.
+ * <p/>
+ * This is the version for Java 8, which records nothing. The multi-release jar contains a version for Java 11 and
+ * later in {@code META-INF/versions/11}, built from {@code src/main/java11}, which emits {@code jdk.jfr} events. Both
+ * versions need the same signatures.
+ */
+final class PatchGenEvents {
+
+    private static final PatchGenEvent NONE = new PatchGenEvent() {
+        @Override
+        public void success() {
+        }
+
+        @Override
+        public void success(final long size) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private PatchGenEvents() {
+    }
+
+    /**
+     * Begin an event.
+     *
+     * @param kind the kind of operation
+     * @param item the item the operation is performed on, its {@code toString()} is the path of the event
+     * @return the event
+     */
+    static PatchGenEvent begin(final PatchGenEvent.Kind kind, final Object item) {
+        return NONE;
+    }
+
+}
@@ -0,0 +1,257 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of the operations of a patch generation, written as a JSON report at the end.
+ * <p/>
+ * The time of an operation is summed up over all threads performing it, so with several hashing threads the time spent
+ * hashing exceeds the time of the phase, and the rates are those of a single thread. The {@link #DISABLED} instance
+ * does not even read the clock.
+ */
+class PatchGenMetrics {
+
+    enum Operation {
+        SCAN_DIRECTORY("scanDirectory", false, false),
+        METADATA_HASH("metadataHash", true, false),
+        COMPARISON_HASH("comparisonHash", false, false),
+        JAR_NORMALIZATION("jarNormalization", true, false),
+        COPY("copy", true, true),
+        MARSHAL_PATCH_XML("marshalPatchXml", false, true),
+        ZIP("zip", false, true),
+        ;
+
+        private final String key;
+        private final boolean read;
+        private final boolean written;
+
+        Operation(final String key, final boolean read, final boolean written) {
+            this.key = key;
+            this.read = read;
+            this.written = written;
+        }
+    }
+
+    static final PatchGenMetrics DISABLED = new PatchGenMetrics(false, 0);
+
+    // The number of slowest items listed in the report
+    static final int TOP_ITEMS = Integer.getInteger("patch.gen.metrics.top", 20);
+
+    private final boolean enabled;
+    private final int topItems;
+    private final LongAdder[] counts = adders();
+    private final LongAdder[] nanos = adders();
+    private final LongAdder[] bytes = adders();
+    // The slowest items, the fastest of them first
+    private final PriorityQueue<Item> slowest = new PriorityQueue<Item>();
+    // Items faster than this do not make it into the slowest items
+    private volatile long slowestThreshold;
+
+    PatchGenMetrics() {
+        this(true, TOP_ITEMS);
+    }
+
+    PatchGenMetrics(final boolean enabled, final int topItems) {
+        this.enabled = enabled;
+        this.topItems = topItems;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start timing an operation.
+     *
+     * @return the start time to pass to {@link #record(Operation, Object, long, long)}
+     */
+    long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Record an operation.
+     *
+     * @param operation the operation
+     * @param item      the item the operation was performed on, its {@code toString()} is only called for the slowest
+     * @param size      the number of bytes read or written
+     * @param start     the start time
+     */
+    void record(final Operation operation, final Object item, final long size, final long start) {
+        if (!enabled) {
+            return;
+        }
+        final long duration = System.nanoTime() - start;
+        final int index = operation.ordinal();
+        counts[index].increment();
+        nanos[index].add(duration);
+        bytes[index].add(size);
+        if (topItems > 0 && duration > slowestThreshold) {
+            synchronized (slowest) {
+                slowest.add(new Item(operation, item, size, duration));
+                if (slowest.size() > topItems) {
+                    slowest.poll();
+                    slowestThreshold = slowest.peek().nanos;
+                }
+            }
+        }
+    }
+
+    long getCount(final Operation operation) {
+        return counts[operation.ordinal()].sum();
+    }
+
+    long getNanos(final Operation operation) {
+        return nanos[operation.ordinal()].sum();
+    }
+
+    long getBytes(final Operation operation) {
+        return bytes[operation.ordinal()].sum();
+    }
+
+    /**
+     * Write the report.
+     *
+     * @param file    the report file
+     * @param timings the timings of the phases
+     * @throws IOException
+     */
+    void writeReport(final File file, final PhaseTimings timings) throws IOException {
+        final StringBuilder sb = new StringBuilder("{\n");
+        long total = 0;
+        sb.append("  \"phases\": {");
+        for (final PatchGenerationListener.Phase phase : PatchGenerationListener.Phase.values()) {
+            final long phaseNanos = timings.getNanos(phase);
+            total += phaseNanos;
+            sb.append(phase.ordinal() == 0 ? "" : ", ");
+            sb.append('"').append(phase.name().toLowerCase(Locale.ROOT)).append("Ms\": ").append(millis(phaseNanos));
+        }
+        sb.append("},\n");
+        sb.append("  \"totalMs\": ").append(millis(total)).append(",\n");
+
+        long read = 0;
+        long written = 0;
+        for (final Operation operation : Operation.values()) {
+            read += operation.read ? getBytes(operation) : 0;
+            written += operation.written ? getBytes(operation) : 0;
+        }
+        sb.append("  \"bytesRead\": ").append(read).append(",\n");
+        sb.append("  \"bytesWritten\": ").append(written).append(",\n");
+
+        sb.append("  \"operations\": {\n");
+        for (final Operation operation : Operation.values()) {
+            final long count = getCount(operation);
+            final long operationNanos = getNanos(operation);
+            final long operationBytes = getBytes(operation);
+            final double seconds = operationNanos / 1e9;
+            sb.append("    \"").append(operation.key).append("\": {");
+            sb.append("\"count\": ").append(count);
+            sb.append(", \"totalMs\": ").append(millis(operationNanos));
+            sb.append(", \"bytes\": ").append(operationBytes);
+            sb.append(", \"perSecond\": ").append(rate(count, seconds));
+            sb.append(", \"bytesPerSecond\": ").append(rate(operationBytes, seconds));
+            sb.append(operation.ordinal() < Operation.values().length - 1 ? "},\n" : "}\n");
+        }
+        sb.append("  },\n");
+
+        final List<Item> items;
+        synchronized (slowest) {
+            items = new ArrayList<Item>(slowest);
+        }
+        Collections.sort(items, Collections.reverseOrder());
+        sb.append("  \"slowest\": [\n");
+        for (int i = 0; i < items.size(); i++) {
+            final Item item = items.get(i);
+            sb.append("    {\"operation\": \"").append(item.operation.key);
+            sb.append("\", \"item\": \"").append(escape(String.valueOf(item.item)));
+            sb.append("\", \"ms\": ").append(millis(item.nanos));
+            sb.append(", \"bytes\": ").append(item.size);
+            sb.append(i < items.size() - 1 ? "},\n" : "}\n");
+        }
+        sb.append("  ]\n}\n");
+        Files.write(file.toPath(), sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LongAdder[] adders() {
+        final LongAdder[] adders = new LongAdder[Operation.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static String millis(final long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+
+    private static String rate(final long amount, final double seconds) {
+        return seconds > 0 ? String.format(Locale.ROOT, "%.1f", amount / seconds) : "0";
+    }
+
+    static String escape(final String value) {
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                sb.append('\\').append(c);
+            } else if (c < 0x20) {
+                sb.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static final class Item implements Comparable<Item> {
+
+        private final Operation operation;
+        private final Object item;
+        private final long size;
+        private final long nanos;
+
+        Item(final Operation operation, final Object item, final long size, final long nanos) {
+            this.operation = operation;
+            this.item = item;
+            this.size = size;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public int compareTo(final Item o) {
+            return Long.compare(nanos, o.nanos);
+        }
+    }
+
+}
@@ -0,0 +1,549 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.PatchingException;
+import org.jboss.as.patching.generator.PatchGenerationListener.Phase;
+import org.jboss.as.patching.metadata.Patch;
+import org.jboss.as.patching.metadata.PatchElement;
+
+/**
+ * Generates a patch in-process, the programmatic counterpart of {@link PatchGenerator}:
+ * <pre><code>
+ *   PatchGeneration.Result result = PatchGeneration.builder()
+ *           .appliesTo(originalDist)
+ *           .updated(updatedDist)
+ *           .config(patchConfig)
+ *           .outputFile(patchFile)
+ *           .generate();
+ * </code></pre>
+ * A generation keeps all of its state to itself, so several of them can run in the same JVM at the same time. A builder
+ * should not be shared between threads while it is being configured, but it can be used for more than one generation.
+ */
+public final class PatchGeneration {
+
+    /**
+     * Create a builder for a patch generation.
+     *
+     * @return the builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final File patchConfigFile;
+    private final File oldRoot;
+    private final File newRoot;
+    private final PatchOutput output;
+    private final File previousCp;
+    private final File metricsReport;
+    private final boolean includeVersion;
+    private final boolean detailedInspection;
+    private final boolean awaitHashing;
+    private final boolean serialCompare;
+    private final Executor executor;
+    private final PatchGenerationListener listener;
+
+    private PatchGeneration(final Builder builder) {
+        this.patchConfigFile = builder.patchConfig;
+        this.oldRoot = builder.appliesTo;
+        this.newRoot = builder.updated;
+        this.output = builder.output;
+        this.previousCp = builder.combineWith;
+        this.metricsReport = builder.metricsReport;
+        this.includeVersion = builder.includeVersion;
+        this.detailedInspection = builder.detailedInspection;
+        this.awaitHashing = builder.awaitHashing;
+        this.serialCompare = builder.serialCompare;
+        this.executor = builder.executor;
+        this.listener = builder.listener;
+    }
+
+    private Result generate() throws PatchingException, IOException, XMLStreamException {
+        if (patchConfigFile == null) {
+            throw processingError("no patch-config set");
+        } else if (oldRoot == null) {
+            throw processingError("no distribution set the patch applies to");
+        } else if (newRoot == null) {
+            throw processingError("no updated distribution set");
+        }
+
+        final PhaseTimings timings = new PhaseTimings(awaitHashing);
+        final PatchGenMetrics metrics = metricsReport == null ? PatchGenMetrics.DISABLED : new PatchGenMetrics();
+        final ProgressTracker tracker = new ProgressTracker(timings, listener);
+        final HashingScheduler scheduler = executor == null
+                ? new HashingScheduler(metrics, tracker)
+                : new HashingScheduler(executor, HashingScheduler.MAX_IN_FLIGHT, metrics, tracker);
+        File tmp = null;
+        PatchPipeline pipeline = null;
+        ModificationSpool spool = new ModificationSpool();
+        try {
+            final PatchConfig patchConfig = parsePatchConfig();
+
+            // See whether to include the updated version information
+            boolean includeVersion = patchConfig.getPatchType() == Patch.PatchType.CUMULATIVE ? true : this.includeVersion;
+            final String[] ignored = includeVersion ? new String[0] : new String[] {"org/jboss/as/product", "org/jboss/as/version"};
+
+            // Modules selected for a detailed inspection, either all or the ones from the patch-config
+            final ModuleDiffUtils moduleDiffUtils = new ModuleDiffUtils(detailedInspection, patchConfig.getDetailedInspectionModules(), metrics);
+
+            // Create the distributions, the content of both gets hashed in the background
+            tracker.startPhase(Phase.SCAN);
+            final Distribution base = Distribution.create(oldRoot, scheduler, moduleDiffUtils, ignored);
+            final Distribution updated = Distribution.create(newRoot, scheduler, moduleDiffUtils, ignored);
+            if (awaitHashing) {
+                tracker.startPhase(Phase.HASH);
+                scheduler.awaitCompletion();
+            }
+            tracker.startPhase(Phase.COMPARE);
+
+            if (!patchConfig.isOverrideIdentity()) {
+                // Only do this checks unless we are overriding the identity
+                if (!base.getName().equals(updated.getName())) {
+                    throw processingError("distribution names don't match, expected: %s, but was %s ", base.getName(), updated.getName());
+                }
+                //
+                if (patchConfig.getAppliesToProduct() != null && ! patchConfig.getAppliesToProduct().equals(base.getName())) {
+                    throw processingError("patch target does not match, expected: %s, but was %s", patchConfig.getAppliesToProduct(), base.getName());
+                }
+                //
+                if (patchConfig.getAppliesToVersion() != null && ! patchConfig.getAppliesToVersion().equals(base.getVersion())) {
+                    throw processingError("patch target version does not match, expected: %s, but was %s", patchConfig.getAppliesToVersion(), base.getVersion());
+                }
+            }
+
+            // Build the patch metadata
+            final PatchBuilderWrapper builder = patchConfig.toPatchBuilder();
+            builder.setPatchId(patchConfig.getPatchId());
+            builder.setDescription(patchConfig.getDescription());
+            builder.setOptionalPaths(patchConfig.getOptionalPaths());
+            builder.setModificationSpool(spool);
+            builder.setSerialCompare(serialCompare);
+            if (executor instanceof ForkJoinPool) {
+                // Compare on the pool of the caller as well, otherwise on one of the generation
+                builder.setComparePool((ForkJoinPool) executor);
+            }
+            if (patchConfig.getPatchType() == Patch.PatchType.CUMULATIVE) {
+                // CPs need to upgrade
+                if (base.getVersion().equals(updated.getVersion())) {
+                    // Not to stdout, which might be the output of the patch
+                    System.err.println("WARN: cumulative patch does not upgrade version " + base.getVersion());
+                }
+                String name = base.getName();
+                String version = base.getVersion();
+                String toVersion = updated.getVersion();
+                if (patchConfig.isOverrideIdentity()) {
+                    // The parser checked that all these are set
+                    name = patchConfig.getAppliesToProduct();
+                    version = patchConfig.getAppliesToVersion();
+                    toVersion = patchConfig.getResultingVersion();
+                }
+                builder.upgradeIdentity(name, version, toVersion);
+            } else {
+                if (patchConfig.isOverrideIdentity()) {
+                    // This allows to build one-off patch based on "name" and "applies-to-version", to e.g.
+                    // have a totally separately named and versioned patch stream from the servers used to create the diff.
+                    builder.oneOffPatchIdentity(patchConfig.getAppliesToProduct(), patchConfig.getAppliesToVersion());
+                } else {
+                    builder.oneOffPatchIdentity(base.getName(), base.getVersion());
+                }
+            }
+
+            // Write the content while comparing, unless it has to be merged with a previous patch
+            if (output != null && previousCp == null && !PatchPipeline.DISABLED) {
+                pipeline = new PatchPipeline(builder, patchConfig, newRoot, output, metrics);
+                builder.setContentListener(pipeline);
+            }
+
+            // Create the resulting patch
+            final Patch patch = builder.compare(base, updated, includeVersion);
+            int modifications = patch.getModifications().size();
+            for (final PatchElement element : patch.getElements()) {
+                modifications += element.getModifications().size();
+            }
+            tracker.modificationsFound(modifications);
+
+            long patchSize = 0;
+            if (pipeline != null) {
+                // Most of the content is written already
+                tracker.startPhase(Phase.WRITE);
+                final long start = metrics.start();
+                try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.WRITE_ZIP, output)) {
+                    patchSize = pipeline.finish(patch);
+                    pipeline = null;
+                    event.success(patchSize);
+                }
+                metrics.record(PatchGenMetrics.Operation.ZIP, output, patchSize, start);
+            } else if (output != null) {
+                // Copy the contents to the temp dir structure
+                tracker.startPhase(Phase.WRITE);
+                tmp = createTempStructure(patchConfig.getPatchId());
+                PatchContentWriter.process(tmp, newRoot, patch, metrics);
+
+                tracker.startPhase(Phase.ZIP);
+                final long start = metrics.start();
+                try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.WRITE_ZIP, output)) {
+                    if (previousCp != null) {
+                        patchSize = PatchArchive.merge(previousCp, tmp, output);
+                    } else {
+                        patchSize = PatchArchive.write(tmp, output);
+                    }
+                    event.success(patchSize);
+                }
+                metrics.record(PatchGenMetrics.Operation.ZIP, output, patchSize, start);
+            }
+            tracker.finishPhase();
+
+            if (metricsReport != null) {
+                metrics.writeReport(metricsReport, timings);
+            }
+            // The result reads the spooled modifications until it gets closed
+            final Result result = new Result(patch, spool, output == null ? null : output.getFile(), patchSize, modifications, tracker.getItemsHashed(), tracker.getBytesHashed(), timings);
+            spool = null;
+            return result;
+
+        } finally {
+            if (pipeline != null) {
+                pipeline.abort();
+            }
+            if (spool != null) {
+                spool.close();
+            }
+            tracker.close();
+            scheduler.shutdown();
+            if (tmp != null) {
+                IoUtils.recursiveDelete(tmp);
+            }
+        }
+    }
+
+    private PatchConfig parsePatchConfig() throws IOException, XMLStreamException {
+        try (final InputStream is = new BufferedInputStream(new FileInputStream(patchConfigFile))) {
+            return PatchConfigXml.parse(is);
+        }
+    }
+
+    private static File createTempStructure(final String patchId) throws IOException {
+        // Unique even when several generations of the same patch run at the same time
+        final File tmp = Files.createTempDirectory("jboss-as-patch-" + patchId + "-").toFile();
+        new File(tmp, "META-INF").mkdir();
+        new File(tmp, "misc").mkdir();
+        return tmp;
+    }
+
+    /**
+     * Configures a patch generation.
+     */
+    public static final class Builder {
+
+        private File patchConfig;
+        private File appliesTo;
+        private File updated;
+        private PatchOutput output;
+        private File combineWith;
+        private File metricsReport;
+        private boolean includeVersion;
+        private boolean detailedInspection;
+        private boolean awaitHashing;
+        private boolean serialCompare = PatchBuilderWrapper.SERIAL_COMPARE;
+        private Executor executor;
+        private PatchGenerationListener listener;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the pristine distribution of the version the patch applies to.
+         *
+         * @param appliesTo the root of the distribution
+         * @return this builder
+         */
+        public Builder appliesTo(final File appliesTo) {
+            this.appliesTo = appliesTo;
+            return this;
+        }
+
+        /**
+         * Set the distribution containing the changes which should be part of the patch.
+         *
+         * @param updated the root of the distribution
+         * @return this builder
+         */
+        public Builder updated(final File updated) {
+            this.updated = updated;
+            return this;
+        }
+
+        /**
+         * Set the patch generation configuration file.
+         *
+         * @param patchConfig the patch-config xml
+         * @return this builder
+         */
+        public Builder config(final File patchConfig) {
+            this.patchConfig = patchConfig;
+            return this;
+        }
+
+        /**
+         * Set the file the patch is written to. Without one only the patch metadata is created.
+         *
+         * @param outputFile the patch file, {@code null} for none
+         * @return this builder
+         */
+        public Builder outputFile(final File outputFile) {
+            this.output = outputFile == null ? null : PatchOutput.toFile(outputFile);
+            return this;
+        }
+
+        /**
+         * Set the output the patch is written to, for example a stream uploading it. Without one only the patch metadata
+         * is created.
+         *
+         * @param output the output, {@code null} for none
+         * @return this builder
+         */
+        public Builder output(final PatchOutput output) {
+            this.output = output;
+            return this;
+        }
+
+        /**
+         * Set a previous cumulative patch to package together with the generated one.
+         *
+         * @param combineWith the previous patch file, {@code null} for none
+         * @return this builder
+         */
+        public Builder combineWith(final File combineWith) {
+            this.combineWith = combineWith;
+            return this;
+        }
+
+        /**
+         * Set the file a JSON report of the time spent in each phase and operation is written to.
+         *
+         * @param metricsReport the report file, {@code null} for none
+         * @return this builder
+         */
+        public Builder metricsReport(final File metricsReport) {
+            this.metricsReport = metricsReport;
+            return this;
+        }
+
+        /**
+         * Set whether to include the updated version information in a one-off patch. Cumulative patches always do.
+         *
+         * @param includeVersion whether to include the version
+         * @return this builder
+         */
+        public Builder includeVersion(final boolean includeVersion) {
+            this.includeVersion = includeVersion;
+            return this;
+        }
+
+        /**
+         * Set whether all modules get inspected in detail, instead of only the ones listed in the patch-config.
+         *
+         * @param detailedInspection whether to inspect all modules
+         * @return this builder
+         */
+        public Builder detailedInspection(final boolean detailedInspection) {
+            this.detailedInspection = detailedInspection;
+            return this;
+        }
+
+        /**
+         * Set the executor hashing the content of the distributions. It is not shut down by the generation, but the
+         * hashing the generation still has queued is cancelled once it returns or fails; only tasks already running
+         * finish. Without one every generation creates a pool of {@code patch.gen.hash.threads} threads, or uses
+         * virtual threads on Java 21 and later with {@code patch.gen.hash.virtual}.
+         * <p/>
+         * The distributions get compared on a {@link ForkJoinPool} of {@code patch.gen.compare.threads} threads
+         * created by the generation, or on the executor if it is a {@code ForkJoinPool}.
+         *
+         * @param executor the executor, {@code null} for a pool of the generation
+         * @return this builder
+         */
+        public Builder executor(final Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Set the listener receiving the progress of the generation.
+         *
+         * @param listener the listener, {@code null} for none
+         * @return this builder
+         */
+        public Builder listener(final PatchGenerationListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        // Wait for all hashes after the scan, which gives the hashing a phase of its own in the timings
+        Builder awaitHashing(final boolean awaitHashing) {
+            this.awaitHashing = awaitHashing;
+            return this;
+        }
+
+        // Compare one after the other instead of concurrently, which gives the same patch
+        Builder serialCompare(final boolean serialCompare) {
+            this.serialCompare = serialCompare;
+            return this;
+        }
+
+        /**
+         * Generate the patch.
+         *
+         * @return the result
+         * @throws PatchingException if the patch cannot be created
+         * @throws IOException if reading the distributions or writing the patch fails
+         * @throws XMLStreamException if the patch-config cannot be parsed
+         */
+        public Result generate() throws PatchingException, IOException, XMLStreamException {
+            return new PatchGeneration(this).generate();
+        }
+
+    }
+
+    /**
+     * The result of a patch generation. The misc modifications of a large patch are read from a temporary file, which
+     * the result keeps until it gets closed.
+     */
+    public static final class Result implements Closeable {
+
+        private final Patch patch;
+        private final ModificationSpool spool;
+        private final File patchFile;
+        private final long patchSize;
+        private final int modifications;
+        private final long itemsHashed;
+        private final long bytesHashed;
+        private final PhaseTimings timings;
+
+        Result(final Patch patch, final ModificationSpool spool, final File patchFile, final long patchSize, final int modifications, final long itemsHashed, final long bytesHashed, final PhaseTimings timings) {
+            this.patch = patch;
+            this.spool = spool;
+            this.patchFile = patchFile;
+            this.patchSize = patchSize;
+            this.modifications = modifications;
+            this.itemsHashed = itemsHashed;
+            this.bytesHashed = bytesHashed;
+            this.timings = timings;
+        }
+
+        /**
+         * Get the patch metadata. Its modifications are read as they are accessed and only as long as the result is
+         * not closed, a copy needs to be made to keep them beyond that.
+         *
+         * @return the patch
+         */
+        public Patch getPatch() {
+            return patch;
+        }
+
+        /**
+         * Get the patch file.
+         *
+         * @return the patch file, {@code null} if the patch was not written to a file
+         */
+        public File getPatchFile() {
+            return patchFile;
+        }
+
+        /**
+         * Get the size of the patch archive.
+         *
+         * @return the number of bytes written to the output, 0 if there was none
+         */
+        public long getPatchSize() {
+            return patchSize;
+        }
+
+        /**
+         * Get the number of content modifications of the patch and all of its elements.
+         *
+         * @return the number of modifications
+         */
+        public int getModifications() {
+            return modifications;
+        }
+
+        /**
+         * Get the number of items hashed in both distributions.
+         *
+         * @return the number of items
+         */
+        public long getItemsHashed() {
+            return itemsHashed;
+        }
+
+        /**
+         * Get the size of the items hashed in both distributions.
+         *
+         * @return the number of bytes
+         */
+        public long getBytesHashed() {
+            return bytesHashed;
+        }
+
+        /**
+         * Get the time spent in a phase.
+         *
+         * @param phase the phase
+         * @return the time in nanoseconds, 0 if the phase did not run
+         */
+        public long getNanos(final Phase phase) {
+            return timings.getNanos(phase);
+        }
+
+        PhaseTimings getTimings() {
+            return timings;
+        }
+
+        /**
+         * Delete the modifications spooled to a temporary file.
+         */
+        @Override
+        public void close() {
+            spool.close();
+        }
+
+    }
+
+}
@@ -0,0 +1,89 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+/**
+ * Receives the progress of a patch generation.
+ * <p/>
+ * The hashing threads only update counters, which get passed on in batches at a fixed interval
+ * ({@code patch.gen.progress.interval}, in milliseconds) and at the end of every phase. The callbacks are never invoked
+ * concurrently, but not necessarily on the thread running the generation either.
+ */
+public interface PatchGenerationListener {
+
+    enum Phase {
+        /** Walking both distributions, which schedules the hashing of their content */
+        SCAN,
+        /** Waiting for the scheduled hashes, only when the hashing is awaited separately */
+        HASH,
+        /** Comparing the distributions and building the patch metadata, which writes most of the content to the archive already */
+        COMPARE,
+        /** Copying the content and writing patch.xml, which completes the archive unless the content is only zipped afterwards */
+        WRITE,
+        /** Creating the patch file, only when combining it with a previous patch or with {@code patch.gen.pipeline.disabled} */
+        ZIP,
+    }
+
+    /**
+     * A phase started.
+     *
+     * @param phase the phase
+     */
+    default void phaseStarted(Phase phase) {
+    }
+
+    /**
+     * A phase finished.
+     *
+     * @param phase the phase
+     */
+    default void phaseFinished(Phase phase) {
+    }
+
+    /**
+     * Content was found while walking the distributions, and scheduled for hashing.
+     *
+     * @param items the number of items found since the last call
+     * @param bytes the size of these items
+     */
+    default void itemsDiscovered(long items, long bytes) {
+    }
+
+    /**
+     * Content was hashed.
+     *
+     * @param items the number of items hashed since the last call
+     * @param bytes the size of these items
+     */
+    default void itemsHashed(long items, long bytes) {
+    }
+
+    /**
+     * The comparison found the modifications of the patch.
+     *
+     * @param modifications the number of modifications, including those of the patch elements
+     */
+    default void modificationsFound(int modifications) {
+    }
+
+}
@@ -25,23 +25,12 @@ package org.jboss.as.patching.generator;
 import static java.lang.System.getProperty;
 import static java.lang.System.getSecurityManager;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.util.Collections;
 import java.util.Set;
 import java.util.TreeSet;
 
-import javax.xml.stream.XMLStreamException;
-
-import org.jboss.as.patching.IoUtils;
-import org.jboss.as.patching.PatchingException;
-import org.jboss.as.patching.ZipUtils;
 import org.jboss.as.patching.logging.PatchLogger;
-import org.jboss.as.patching.metadata.Patch;
-import org.jboss.as.patching.metadata.PatchMerger;
 import org.jboss.as.version.ProductConfig;
 import org.jboss.modules.Module;
 
@@ -51,6 +40,7 @@ import org.jboss.modules.Module;
  * <pre><code>
  *   java -jar jboss-modules.jar -mp modules/ org.jboss.as.patching.generator
  * </code></pre>
+ * Use {@link PatchGeneration} to generate a patch without starting a JVM.
  *
  * @author Brian Stansberry (c) 2012 Red Hat Inc.
  */
@@ -62,165 +52,59 @@ public class PatchGenerator {
     public static final String DETAILED_INSPECTION = "--detailed-inspection";
     public static final String INCLUDE_VERSION = "--include-version";
     public static final String COMBINE_WITH = "--combine-with";
+    public static final String METRICS_REPORT = "--metrics-report";
     public static final String OUTPUT_FILE = "--output-file";
     public static final String PATCH_CONFIG = "--patch-config";
+    public static final String PROGRESS = "--progress";
     public static final String UPDATED_DIST = "--updated-dist";
 
+    // The output file value writing the patch to stdout
+    public static final String STDOUT = "-";
+
+    // Starts the lines printed with --progress
+    public static final String PROGRESS_PREFIX = "patch-gen: ";
+
     public static void main(String[] args) {
         try {
             PatchGenerator patchGenerator = parse(args);
             if (patchGenerator != null) {
-                patchGenerator.process();
+                // Interactive runs always show the progress
+                final boolean progress = patchGenerator.progress || System.console() != null;
+                // Nothing reads the patch metadata once it is written
+                patchGenerator.generation
+                        .listener(progress ? new ConsoleProgress(System.err, System.console() != null) : null)
+                        .generate()
+                        .close();
             }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    private final boolean includeVersion;
-    private final File patchConfigFile;
-    private final File oldRoot;
-    private final File newRoot;
-    private File patchFile;
-    private final File previousCp;
-    private File tmp;
-
-    private PatchGenerator(File patchConfig, File oldRoot, File newRoot, File patchFile, boolean includeVersion, File previousCp) {
-        this.patchConfigFile = patchConfig;
-        this.oldRoot = oldRoot;
-        this.newRoot = newRoot;
-        this.patchFile = patchFile;
-        this.includeVersion = includeVersion;
-        this.previousCp = previousCp;
-    }
-
-    private void process() throws PatchingException, IOException, XMLStreamException {
-
-        try {
-            PatchConfig patchConfig = parsePatchConfig();
-
-            Set<String> required = new TreeSet<>();
-            if (newRoot == null) {
-                required.add(UPDATED_DIST);
-            }
-            if (oldRoot == null) {
-                required.add(APPLIES_TO_DIST);
-            }
-            if (patchFile == null) {
-                if (newRoot != null) {
-                    patchFile = new File(newRoot, "patch-" + System.currentTimeMillis() + ".par");
-                } else {
-                    required.add(OUTPUT_FILE);
-                }
-            }
-            if (!required.isEmpty()) {
-                System.err.printf(PatchGenLogger.missingRequiredArgs(required));
-                usage();
-                return;
-            }
-
-            createTempStructure(patchConfig.getPatchId());
-
-            // See whether to include the updated version information
-            boolean includeVersion = patchConfig.getPatchType() == Patch.PatchType.CUMULATIVE ? true : this.includeVersion;
-            final String[] ignored = includeVersion ? new String[0] : new String[] {"org/jboss/as/product", "org/jboss/as/version"};
-
-            // Create the distributions
-            final Distribution base = Distribution.create(oldRoot, ignored);
-            final Distribution updated = Distribution.create(newRoot, ignored);
-
-            if (!patchConfig.isOverrideIdentity()) {
-                // Only do this checks unless we are overriding the identity
-                if (!base.getName().equals(updated.getName())) {
-                    throw processingError("distribution names don't match, expected: %s, but was %s ", base.getName(), updated.getName());
-                }
-                //
-                if (patchConfig.getAppliesToProduct() != null && ! patchConfig.getAppliesToProduct().equals(base.getName())) {
-                    throw processingError("patch target does not match, expected: %s, but was %s", patchConfig.getAppliesToProduct(), base.getName());
-                }
-                //
-                if (patchConfig.getAppliesToVersion() != null && ! patchConfig.getAppliesToVersion().equals(base.getVersion())) {
-                    throw processingError("patch target version does not match, expected: %s, but was %s", patchConfig.getAppliesToVersion(), base.getVersion());
-                }
-            }
-
-            // Build the patch metadata
-            final PatchBuilderWrapper builder = patchConfig.toPatchBuilder();
-            builder.setPatchId(patchConfig.getPatchId());
-            builder.setDescription(patchConfig.getDescription());
-            builder.setOptionalPaths(patchConfig.getOptionalPaths());
-            if (patchConfig.getPatchType() == Patch.PatchType.CUMULATIVE) {
-                // CPs need to upgrade
-                if (base.getVersion().equals(updated.getVersion())) {
-                    System.out.println("WARN: cumulative patch does not upgrade version " + base.getVersion());
-                }
-                String name = base.getName();
-                String version = base.getVersion();
-                String toVersion = updated.getVersion();
-                if (patchConfig.isOverrideIdentity()) {
-                    // The parser checked that all these are set
-                    name = patchConfig.getAppliesToProduct();
-                    version = patchConfig.getAppliesToVersion();
-                    toVersion = patchConfig.getResultingVersion();
-                }
-                builder.upgradeIdentity(name, version, toVersion);
-            } else {
-                if (patchConfig.isOverrideIdentity()) {
-                    // This allows to build one-off patch based on "name" and "applies-to-version", to e.g.
-                    // have a totally separately named and versioned patch stream from the servers used to create the diff.
-                    builder.oneOffPatchIdentity(patchConfig.getAppliesToProduct(), patchConfig.getAppliesToVersion());
-                } else {
-                    builder.oneOffPatchIdentity(base.getName(), base.getVersion());
-                }
-            }
-
-            // Create the resulting patch
-            final Patch patch = builder.compare(base, updated, includeVersion);
-
-            // Copy the contents to the temp dir structure
-            PatchContentWriter.process(tmp, newRoot, patch);
-
-            if(previousCp != null) {
-                PatchMerger.merge(previousCp, tmp, patchFile);
-            } else {
-                ZipUtils.zip(tmp, patchFile);
-            }
-
-        } finally {
-            IoUtils.recursiveDelete(tmp);
+    /**
+     * Generate a patch in-process, recording the time spent in each phase.
+     *
+     * @param awaitHashing whether to wait for all hashes before comparing, so the hashing gets its own phase
+     * @param args the command line arguments
+     * @return the timings, {@code null} if the arguments did not result in a patch being generated
+     * @throws Exception
+     */
+    static PhaseTimings generate(final boolean awaitHashing, final String... args) throws Exception {
+        final PatchGenerator patchGenerator = parse(args);
+        if (patchGenerator == null) {
+            return null;
         }
-
-    }
-
-    private PatchConfig parsePatchConfig() throws FileNotFoundException, XMLStreamException {
-        FileInputStream fis = null;
-        try {
-            fis = new FileInputStream(patchConfigFile);
-            BufferedInputStream bis = new BufferedInputStream(fis);
-            return PatchConfigXml.parse(bis);
-        } finally {
-            IoUtils.safeClose(fis);
+        try (final PatchGeneration.Result result = patchGenerator.generation.awaitHashing(awaitHashing).generate()) {
+            return result.getTimings();
         }
     }
 
-    private void createTempStructure(String patchId) {
+    private final PatchGeneration.Builder generation;
+    private final boolean progress;
 
-        File tmpDir = new File(System.getProperty("java.io.tmpdir"));
-        int count = 0;
-        while (tmp == null || tmp.exists()) {
-            count++;
-            tmp = new File(tmpDir, "jboss-as-patch-" + patchId + "-" + count);
-        }
-        if (!tmp.mkdirs()) {
-            throw processingError("Cannot create tmp dir for patch create at %s", tmp.getAbsolutePath());
-        }
-        tmp.deleteOnExit();
-        File metaInf = new File(tmp, "META-INF");
-        metaInf.mkdir();
-        metaInf.deleteOnExit();
-        File misc = new File(tmp, "misc");
-        misc.mkdir();
-        misc.deleteOnExit();
+    private PatchGenerator(PatchGeneration.Builder generation, boolean progress) {
+        this.generation = generation;
+        this.progress = progress;
     }
 
     private static PatchGenerator parse(String[] args) throws Exception {
@@ -230,7 +114,11 @@ public class PatchGenerator {
         File newFile = null;
         File patchFile = null;
         boolean includeVersion = false;
+        boolean detailedInspection = false;
         File combineWith = null;
+        File metricsReport = null;
+        boolean progress = false;
+        boolean toStdout = false;
 
         final int argsLength = args.length;
         for (int i = 0; i < argsLength; i++) {
@@ -283,14 +171,20 @@ public class PatchGenerator {
                     }
                 } else if (arg.startsWith(OUTPUT_FILE)) {
                     String val = arg.substring(OUTPUT_FILE.length() + 1);
-                    patchFile = new File(val);
-                    if (patchFile.exists() && patchFile.isDirectory()) {
-                        System.err.printf(PatchGenLogger.fileIsADirectory(arg));
-                        usage();
-                        return null;
+                    if (STDOUT.equals(val)) {
+                        toStdout = true;
+                    } else {
+                        patchFile = new File(val);
+                        if (patchFile.exists() && patchFile.isDirectory()) {
+                            System.err.printf(PatchGenLogger.fileIsADirectory(arg));
+                            usage();
+                            return null;
+                        }
                     }
                 } else if (arg.equals(DETAILED_INSPECTION)) {
-                    ModuleDiffUtils.deepInspection = true;
+                    detailedInspection = true;
+                } else if (arg.equals(PROGRESS)) {
+                    progress = true;
                 } else if (arg.equals(INCLUDE_VERSION)) {
                     includeVersion = true;
                 } else if (arg.equals(CREATE_TEMPLATE)) {
@@ -299,6 +193,14 @@ public class PatchGenerator {
                 } else if (arg.equals(ASSEMBLE_PATCH_BUNDLE)) {
                     PatchBundleGenerator.assemble(args);
                     return null;
+                } else if (arg.startsWith(METRICS_REPORT)) {
+                    String val = arg.substring(METRICS_REPORT.length() + 1);
+                    metricsReport = new File(val);
+                    if (metricsReport.isDirectory()) {
+                        System.err.printf(PatchGenLogger.fileIsADirectory(arg));
+                        usage();
+                        return null;
+                    }
                 } else if (arg.startsWith(COMBINE_WITH)) {
                     String val = arg.substring(COMBINE_WITH.length() + 1);
                     combineWith = new File(val);
@@ -321,7 +223,36 @@ public class PatchGenerator {
             return null;
         }
 
-        return new PatchGenerator(patchConfig, oldFile, newFile, patchFile, includeVersion, combineWith);
+        Set<String> required = new TreeSet<>();
+        if (newFile == null) {
+            required.add(UPDATED_DIST);
+        }
+        if (oldFile == null) {
+            required.add(APPLIES_TO_DIST);
+        }
+        if (patchFile == null && !toStdout) {
+            if (newFile != null) {
+                patchFile = new File(newFile, "patch-" + System.currentTimeMillis() + ".par");
+            } else {
+                required.add(OUTPUT_FILE);
+            }
+        }
+        if (!required.isEmpty()) {
+            System.err.printf(PatchGenLogger.missingRequiredArgs(required));
+            usage();
+            return null;
+        }
+
+        final PatchGeneration.Builder generation = PatchGeneration.builder()
+                .config(patchConfig)
+                .appliesTo(oldFile)
+                .updated(newFile)
+                .output(toStdout ? PatchOutput.toStream(System.out) : PatchOutput.toFile(patchFile))
+                .includeVersion(includeVersion)
+                .detailedInspection(detailedInspection)
+                .combineWith(combineWith)
+                .metricsReport(metricsReport);
+        return new PatchGenerator(generation, progress);
     }
 
     private static void usage() {
@@ -335,7 +266,7 @@ public class PatchGenerator {
         usage.addInstruction("Display this message and exit");
 
         usage.addArguments(OUTPUT_FILE + "=<file>");
-        usage.addInstruction("Filesystem location to which the generated patch file should be written");
+        usage.addInstruction("Filesystem location to which the generated patch file should be written, - writes it to stdout");
 
         usage.addArguments(PATCH_CONFIG + "=<file>");
         usage.addInstruction("Filesystem path of the patch generation configuration file to use");
@@ -347,11 +278,17 @@ public class PatchGenerator {
         usage.addInstruction("Print version and exit");
 
         usage.addArguments(DETAILED_INSPECTION);
-        usage.addInstruction("Enable detailed inspection for all modules.");
+        usage.addInstruction("Enable detailed inspection for all modules, instead of only the ones listed in the patch-config.");
 
         usage.addArguments(COMBINE_WITH + "=<file>");
         usage.addInstruction("Filesystem path of the previous CP to be included into the same package with the newly generated one");
 
+        usage.addArguments(PROGRESS);
+        usage.addInstruction("Print the progress of the generation to stderr, which is the default when running in a terminal");
+
+        usage.addArguments(METRICS_REPORT + "=<file>");
+        usage.addInstruction("Filesystem location to which a JSON report of the time spent in each phase and operation should be written");
+
         String headline = usage.getDefaultUsageHeadline("patch-gen");
         System.out.print(usage.usage(headline));
 
@@ -0,0 +1,141 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Where the patch archive gets written to. The archive is streamed into the output, there is no intermediate archive
+ * on disk unless the patch is combined with a previous one.
+ */
+public interface PatchOutput {
+
+    /**
+     * Open the stream the archive is written to. The generation closes it once the archive is complete.
+     *
+     * @return the stream
+     * @throws IOException if the output cannot be opened
+     */
+    OutputStream open() throws IOException;
+
+    /**
+     * Get the file the archive is written to.
+     *
+     * @return the file, {@code null} if the output is not a file
+     */
+    default File getFile() {
+        return null;
+    }
+
+    /**
+     * Write the archive to a file.
+     *
+     * @param file the file
+     * @return the output
+     */
+    static PatchOutput toFile(final File file) {
+        return new PatchOutput() {
+            @Override
+            public OutputStream open() throws IOException {
+                return new FileOutputStream(file);
+            }
+
+            @Override
+            public File getFile() {
+                return file;
+            }
+
+            @Override
+            public String toString() {
+                return file.getPath();
+            }
+        };
+    }
+
+    /**
+     * Write the archive to a stream, which is flushed but left open.
+     *
+     * @param stream the stream
+     * @return the output
+     */
+    static PatchOutput toStream(final OutputStream stream) {
+        return new PatchOutput() {
+            @Override
+            public OutputStream open() {
+                return new FilterOutputStream(stream) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        flush();
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return stream.toString();
+            }
+        };
+    }
+
+    /**
+     * Write the archive to a channel, which is left open.
+     *
+     * @param channel the channel
+     * @return the output
+     */
+    static PatchOutput toChannel(final WritableByteChannel channel) {
+        return new PatchOutput() {
+            @Override
+            public OutputStream open() {
+                return new FilterOutputStream(Channels.newOutputStream(channel)) {
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                    }
+
+                    @Override
+                    public void close() {
+                        // Channels.newOutputStream() would close the channel
+                    }
+                };
+            }
+
+            @Override
+            public String toString() {
+                return channel.toString();
+            }
+        };
+    }
+
+}
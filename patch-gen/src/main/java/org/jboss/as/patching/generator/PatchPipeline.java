@@ -0,0 +1,336 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.jboss.as.patching.generator.PatchGenerator.processingError;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.patching.Constants;
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.metadata.ContentItem;
+import org.jboss.as.patching.metadata.ContentModification;
+import org.jboss.as.patching.metadata.ContentType;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModificationType;
+import org.jboss.as.patching.metadata.ModuleItem;
+import org.jboss.as.patching.metadata.Patch;
+import org.jboss.as.patching.metadata.PatchElement;
+import org.jboss.as.patching.metadata.PatchXml;
+import org.jboss.as.patching.runner.PatchContentLoader;
+
+/**
+ * Writes the content of the patch into the archive while the distributions are still being compared, instead of
+ * copying it to a temporary directory and zipping that once the patch is complete.
+ * <p/>
+ * The comparison threads pass every added or modified item on as soon as they find it, through a bounded queue
+ * ({@code patch.gen.pipeline.queue} entries) to a single writer thread, which reads it from the updated distribution
+ * and compresses it into the archive. A full queue holds back the comparison. Once the patch is complete,
+ * {@link #finish} checks the archive against it, adds whatever the comparison did not pass on, and writes
+ * {@code patch.xml} as the final entry. The layout is the same as the one of {@link PatchContentWriter}.
+ * <p/>
+ * A serial comparison ({@code patch.gen.compare.serial}) does not pass anything on, all of the content then gets
+ * written by {@link #finish}.
+ */
+class PatchPipeline implements PatchBuilderWrapper.ContentListener {
+
+    // Copy and zip the content once the patch is complete instead
+    static final boolean DISABLED = Boolean.getBoolean("patch.gen.pipeline.disabled");
+    static final int QUEUE_SIZE = Integer.getInteger("patch.gen.pipeline.queue", 256);
+
+    private static final String README = "README.txt";
+    private static final Entry END = new Entry(null, null);
+
+    private final PatchBuilderWrapper builder;
+    private final String patchId;
+    private final File distributionRoot;
+    private final PatchOutput output;
+    private final PatchArchive archive;
+    private final PatchGenMetrics metrics;
+    // The ids of the patch elements by layer or add-on name
+    private final Map<String, String> elements = new HashMap<String, String>();
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<Entry>(QUEUE_SIZE);
+    // The paths written by the writer thread, only accessed by it until it was joined
+    private final Set<String> written = new HashSet<String>();
+    private final Thread writer;
+    private volatile Throwable failure;
+
+    /**
+     * Open the output and start the writer thread.
+     *
+     * @param builder          the builder of the patch, filtering the content
+     * @param config           the patch-config
+     * @param distributionRoot the root of the updated distribution
+     * @param output           the output
+     * @param metrics          the metrics recording the copied items
+     * @throws IOException
+     */
+    PatchPipeline(final PatchBuilderWrapper builder, final PatchConfig config, final File distributionRoot,
+                  final PatchOutput output, final PatchGenMetrics metrics) throws IOException {
+        this.builder = builder;
+        this.patchId = config.getPatchId();
+        this.distributionRoot = distributionRoot;
+        this.output = output;
+        this.metrics = metrics;
+        for (final PatchElementConfig element : config.getElements()) {
+            elements.put(element.getLayerName(), element.getPatchId());
+        }
+        this.archive = new PatchArchive(output);
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        }, "patch-gen-pipeline-" + patchId);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void modified(final String layer, final boolean addOn, final ContentModification modification) {
+        if (modification.getType() == ModificationType.REMOVE || failure != null) {
+            return;
+        }
+        final ContentItem item = modification.getItem();
+        if (!builder.isIncluded(layer, item)) {
+            return;
+        }
+        final Entry entry = createEntry(layer, addOn, item);
+        if (entry == null) {
+            // No patch-config for the layer, it either gets skipped or fails the comparison
+            return;
+        }
+        boolean interrupted = false;
+        try {
+            for (;;) {
+                try {
+                    queue.put(entry);
+                    return;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Complete the archive once the patch is built.
+     *
+     * @param patch the patch
+     * @return the number of bytes written
+     * @throws IOException
+     * @throws XMLStreamException
+     */
+    long finish(final Patch patch) throws IOException, XMLStreamException {
+        stopWriter();
+        if (failure != null) {
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            } else if (failure instanceof Error) {
+                throw (Error) failure;
+            }
+            throw processingError((Exception) failure, "failed to write the patch content");
+        }
+
+        // The content of the patch, in the same order as PatchContentWriter copies it
+        final Map<String, File> expected = new LinkedHashMap<String, File>();
+        for (final PatchElement element : patch.getElements()) {
+            final String name = element.getProvider().getName();
+            final boolean addOn = element.getProvider().isAddOn();
+            for (final ContentModification modification : element.getModifications()) {
+                if (modification.getType() != ModificationType.REMOVE) {
+                    final Entry entry = createEntry(element.getId(), name, addOn, modification.getItem());
+                    expected.put(entry.path, entry.source);
+                }
+            }
+        }
+        for (final ContentModification modification : patch.getModifications()) {
+            if (modification.getType() != ModificationType.REMOVE) {
+                final Entry entry = createEntry(null, false, modification.getItem());
+                expected.put(entry.path, entry.source);
+            }
+        }
+        for (final String path : written) {
+            if (!expected.containsKey(path)) {
+                throw processingError("%s was written to the patch, but is not part of it", path);
+            }
+        }
+        // Whatever was not passed on during the comparison
+        for (final Map.Entry<String, File> entry : expected.entrySet()) {
+            if (!written.contains(entry.getKey())) {
+                copy(new Entry(entry.getKey(), entry.getValue()));
+            }
+        }
+
+        archive.addDirectory("META-INF");
+        archive.addDirectory("misc");
+        try (final InputStream is = PatchPipeline.class.getClassLoader().getResourceAsStream(README);
+             final OutputStream os = archive.addEntry(README)) {
+            IoUtils.copyStream(is, os);
+        }
+        // Write the patch xml
+        final long start = metrics.start();
+        final long before = archive.getBytesWritten();
+        try (final OutputStream os = archive.addEntry(PatchXml.PATCH_XML)) {
+            PatchXml.marshal(os, patch);
+        }
+        metrics.record(PatchGenMetrics.Operation.MARSHAL_PATCH_XML, PatchXml.PATCH_XML, archive.getBytesWritten() - before, start);
+        archive.close();
+        return archive.getBytesWritten();
+    }
+
+    /**
+     * Stop writing after a failure of the generation. A partially written patch file gets deleted.
+     */
+    void abort() {
+        if (failure == null) {
+            failure = processingError("aborted");
+        }
+        stopWriter();
+        IoUtils.safeClose(archive);
+        final File file = output.getFile();
+        if (file != null) {
+            file.delete();
+        }
+    }
+
+    private void stopWriter() {
+        boolean interrupted = false;
+        try {
+            // The writer drains the queue after a failure, so there is always room eventually
+            for (;;) {
+                try {
+                    queue.put(END);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            for (;;) {
+                try {
+                    writer.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void write() {
+        for (;;) {
+            final Entry entry;
+            try {
+                entry = queue.take();
+            } catch (InterruptedException e) {
+                // Keep draining the queue, so the comparison does not block
+                if (failure == null) {
+                    failure = e;
+                }
+                continue;
+            }
+            if (entry == END) {
+                return;
+            }
+            if (failure == null && !written.contains(entry.path)) {
+                try {
+                    copy(entry);
+                } catch (Throwable t) {
+                    failure = t;
+                }
+            }
+        }
+    }
+
+    private void copy(final Entry entry) throws IOException {
+        if (!entry.source.exists()) {
+            throw processingError("source item does not exist %s", entry.source.getAbsolutePath());
+        }
+        final long start = metrics.start();
+        try (final PatchGenEvent event = PatchGenEvents.begin(PatchGenEvent.Kind.COPY_ITEM, entry.source)) {
+            final long size = archive.add(entry.path, entry.source);
+            event.success(size);
+            metrics.record(PatchGenMetrics.Operation.COPY, entry.source, size, start);
+        }
+        written.add(entry.path);
+    }
+
+    private Entry createEntry(final String layer, final boolean addOn, final ContentItem item) {
+        if (layer == null) {
+            return createEntry(null, null, false, item);
+        }
+        final String elementId = elements.get(layer);
+        return elementId == null ? null : createEntry(elementId, layer, addOn, item);
+    }
+
+    private Entry createEntry(final String elementId, final String layer, final boolean addOn, final ContentItem item) {
+        if (item.getContentType() == ContentType.MISC) {
+            final MiscContentItem misc = (MiscContentItem) item;
+            final File source = PatchContentLoader.getMiscPath(distributionRoot, misc);
+            return new Entry(toPath(PatchContentLoader.getMiscPath(new File(patchId, "misc"), misc)), source);
+        }
+        final String content = item.getContentType() == ContentType.BUNDLE ? "bundles" : "modules";
+        final String base = addOn ? Constants.DEFAULT_ADD_ONS_PATH : Constants.DEFAULT_LAYERS_PATH;
+        final File layerRoot = new File(new File(new File(distributionRoot, content), base), layer);
+        final File source = PatchContentLoader.getModulePath(layerRoot, (ModuleItem) item);
+        return new Entry(toPath(PatchContentLoader.getModulePath(new File(elementId, content), (ModuleItem) item)), source);
+    }
+
+    private static String toPath(final File file) {
+        return file.getPath().replace(File.separatorChar, '/');
+    }
+
+    private static final class Entry {
+
+        private final String path;
+        private final File source;
+
+        private Entry(final String path, final File source) {
+            this.path = path;
+            this.source = source;
+        }
+    }
+
+}
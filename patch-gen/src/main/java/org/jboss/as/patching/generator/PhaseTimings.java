@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import org.jboss.as.patching.generator.PatchGenerationListener.Phase;
+
+/**
+ * Records the time spent in the phases of a patch generation. The phases run one after the other, starting a phase
+ * ends the current one.
+ */
+class PhaseTimings {
+
+    private final boolean awaitHashing;
+    private final long[] nanos = new long[Phase.values().length];
+    private Phase current;
+    private long started;
+
+    /**
+     * Create the timings.
+     *
+     * @param awaitHashing whether to wait for all hashes after the scan, rather than hashing while comparing
+     */
+    PhaseTimings(final boolean awaitHashing) {
+        this.awaitHashing = awaitHashing;
+    }
+
+    boolean isAwaitHashing() {
+        return awaitHashing;
+    }
+
+    void start(final Phase phase) {
+        stop();
+        current = phase;
+        started = System.nanoTime();
+    }
+
+    void stop() {
+        if (current != null) {
+            nanos[current.ordinal()] += System.nanoTime() - started;
+            current = null;
+        }
+    }
+
+    long getNanos(final Phase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+}
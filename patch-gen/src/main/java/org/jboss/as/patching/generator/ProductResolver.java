@@ -0,0 +1,193 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Resolves the product name and version of a distribution by reading {@code bin/product.conf} and the manifests of
+ * the product and version modules, the same way {@code ProductConfig} does, without loading any module.
+ * <p>
+ * Only the explicitly configured values are resolved here. Whenever a value would come from a default built into
+ * {@code ProductConfig} the resolver gives up, and the caller falls back to loading {@code org.jboss.as.version}.
+ */
+class ProductResolver {
+
+    static final String PRODUCT_MODULE = "org.jboss.as.product";
+    static final String VERSION_MODULE = "org.jboss.as.version";
+
+    private static final String RELEASE_NAME = "JBoss-Product-Release-Name";
+    private static final String RELEASE_VERSION = "JBoss-Product-Release-Version";
+
+    private final File distributionRoot;
+    private final List<File> moduleRoots;
+
+    private String name;
+    private String version;
+
+    ProductResolver(final File distributionRoot, final List<File> moduleRoots) {
+        this.distributionRoot = distributionRoot;
+        this.moduleRoots = moduleRoots;
+    }
+
+    /**
+     * Try to resolve the product name and version.
+     *
+     * @return {@code true} if both were resolved, {@code false} if the module loader needs to be used instead
+     * @throws IOException
+     */
+    boolean resolve() throws IOException {
+        final String slot = readProductSlot();
+        if (slot == null) {
+            return false;
+        }
+        final Manifest product = readManifest(PRODUCT_MODULE, slot);
+        if (product == null) {
+            return false;
+        }
+        name = product.getMainAttributes().getValue(RELEASE_NAME);
+        version = product.getMainAttributes().getValue(RELEASE_VERSION);
+        if (version == null) {
+            // ProductConfig falls back to the version of the server
+            final Manifest server = readManifest(VERSION_MODULE, "main");
+            if (server != null) {
+                version = server.getMainAttributes().getValue(RELEASE_VERSION);
+            }
+        }
+        return name != null && version != null;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    String getVersion() {
+        return version;
+    }
+
+    private String readProductSlot() throws IOException {
+        final File productConf = new File(new File(distributionRoot, "bin"), "product.conf");
+        if (!productConf.isFile()) {
+            return null;
+        }
+        final Properties properties = new Properties();
+        final InputStream is = new FileInputStream(productConf);
+        try {
+            properties.load(is);
+        } finally {
+            is.close();
+        }
+        final String slot = properties.getProperty("slot");
+        return slot == null || slot.trim().isEmpty() ? null : slot.trim();
+    }
+
+    /**
+     * Read the manifest of a module, from the first module root providing the module, just like a
+     * {@code LocalModuleLoader} would.
+     *
+     * @param moduleName the module name
+     * @param slot       the slot
+     * @return the manifest of the first resource root having one, {@code null} if there is none
+     * @throws IOException
+     */
+    private Manifest readManifest(final String moduleName, final String slot) throws IOException {
+        final String path = moduleName.replace('.', File.separatorChar) + File.separatorChar + slot;
+        for (final File moduleRoot : moduleRoots) {
+            final File moduleDir = new File(moduleRoot, path);
+            final File moduleXml = new File(moduleDir, "module.xml");
+            if (!moduleXml.isFile()) {
+                continue;
+            }
+            for (final String resourceRoot : readResourceRoots(moduleXml)) {
+                final Manifest manifest = readManifest(new File(moduleDir, resourceRoot));
+                if (manifest != null) {
+                    return manifest;
+                }
+            }
+            return null;
+        }
+        return null;
+    }
+
+    private static Manifest readManifest(final File resourceRoot) throws IOException {
+        if (resourceRoot.isDirectory()) {
+            final File file = new File(new File(resourceRoot, "META-INF"), "MANIFEST.MF");
+            if (!file.isFile()) {
+                return null;
+            }
+            final InputStream is = new FileInputStream(file);
+            try {
+                return new Manifest(is);
+            } finally {
+                is.close();
+            }
+        } else if (resourceRoot.isFile()) {
+            final JarFile jarFile = new JarFile(resourceRoot);
+            try {
+                return jarFile.getManifest();
+            } finally {
+                jarFile.close();
+            }
+        }
+        return null;
+    }
+
+    private static List<String> readResourceRoots(final File moduleXml) throws IOException {
+        final List<String> resourceRoots = new ArrayList<String>();
+        final InputStream stream = new FileInputStream(moduleXml);
+        try {
+            final XMLStreamReader reader = ModuleDiffUtils.INPUT_FACTORY.get().createXMLStreamReader(stream);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == START_ELEMENT && "resource-root".equals(reader.getLocalName())) {
+                        final String path = reader.getAttributeValue(null, "path");
+                        if (path != null) {
+                            resourceRoots.add(path.trim());
+                        }
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IOException(e);
+        } finally {
+            stream.close();
+        }
+        return resourceRoots;
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.jboss.as.patching.generator.PatchGenerationListener.Phase;
+
+/**
+ * Passes the progress of a patch generation on to a {@link PatchGenerationListener}, and the phases to the
+ * {@link PhaseTimings}.
+ * <p/>
+ * Counting an item costs the hashing threads no more than adding to a {@link LongAdder}. A reporter thread passes the
+ * counts on at the interval set by {@code patch.gen.progress.interval}, in milliseconds. Without a listener there is
+ * no reporter thread, the totals are still kept for the {@link PatchGeneration.Result}.
+ */
+class ProgressTracker {
+
+    static final long INTERVAL = Long.getLong("patch.gen.progress.interval", 1000L);
+
+    private final PhaseTimings timings;
+    private final PatchGenerationListener listener;
+    private final LongAdder discovered = new LongAdder();
+    private final LongAdder discoveredBytes = new LongAdder();
+    private final LongAdder hashed = new LongAdder();
+    private final LongAdder hashedBytes = new LongAdder();
+    private final Thread reporter;
+    private Phase current;
+    // The counts passed on already, guarded by this
+    private long reportedDiscovered;
+    private long reportedDiscoveredBytes;
+    private long reportedHashed;
+    private long reportedHashedBytes;
+
+    /**
+     * Create the tracker.
+     *
+     * @param timings  the timings of the phases
+     * @param listener the listener, {@code null} if there is none
+     */
+    ProgressTracker(final PhaseTimings timings, final PatchGenerationListener listener) {
+        this.timings = timings;
+        this.listener = listener;
+        if (listener != null) {
+            reporter = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        while (!Thread.currentThread().isInterrupted()) {
+                            TimeUnit.MILLISECONDS.sleep(INTERVAL);
+                            flush();
+                        }
+                    } catch (InterruptedException e) {
+                        // Closed
+                    }
+                }
+            }, "patch-gen-progress");
+            reporter.setDaemon(true);
+            reporter.start();
+        } else {
+            reporter = null;
+        }
+    }
+
+    PhaseTimings getTimings() {
+        return timings;
+    }
+
+    /**
+     * Start a phase, which finishes the current one.
+     *
+     * @param phase the phase
+     */
+    void startPhase(final Phase phase) {
+        finishPhase();
+        current = phase;
+        timings.start(phase);
+        if (listener != null) {
+            synchronized (this) {
+                listener.phaseStarted(phase);
+            }
+        }
+    }
+
+    /**
+     * Finish the current phase, if there is one.
+     */
+    void finishPhase() {
+        if (current == null) {
+            return;
+        }
+        timings.stop();
+        if (listener != null) {
+            synchronized (this) {
+                flush();
+                listener.phaseFinished(current);
+            }
+        }
+        current = null;
+    }
+
+    void itemDiscovered(final long bytes) {
+        discovered.increment();
+        discoveredBytes.add(bytes);
+    }
+
+    void itemHashed(final long bytes) {
+        hashed.increment();
+        hashedBytes.add(bytes);
+    }
+
+    long getItemsHashed() {
+        return hashed.sum();
+    }
+
+    long getBytesHashed() {
+        return hashedBytes.sum();
+    }
+
+    void modificationsFound(final int modifications) {
+        if (listener != null) {
+            synchronized (this) {
+                listener.modificationsFound(modifications);
+            }
+        }
+    }
+
+    /**
+     * Finish the current phase and stop the reporter thread.
+     */
+    void close() {
+        finishPhase();
+        if (reporter != null) {
+            reporter.interrupt();
+        }
+    }
+
+    private synchronized void flush() {
+        final long discoveredNow = discovered.sum();
+        final long discoveredBytesNow = discoveredBytes.sum();
+        if (discoveredNow != reportedDiscovered) {
+            listener.itemsDiscovered(discoveredNow - reportedDiscovered, discoveredBytesNow - reportedDiscoveredBytes);
+            reportedDiscovered = discoveredNow;
+            reportedDiscoveredBytes = discoveredBytesNow;
+        }
+        final long hashedNow = hashed.sum();
+        final long hashedBytesNow = hashedBytes.sum();
+        if (hashedNow != reportedHashed) {
+            listener.itemsHashed(hashedNow - reportedHashed, hashedBytesNow - reportedHashedBytes);
+            reportedHashed = hashedNow;
+            reportedHashedBytes = hashedBytesNow;
+        }
+    }
+
+}
@@ -12,9 +12,9 @@ import org.jboss.as.patching.runner.ContentItemFilter;
  * @author <a href="mailto:kabir.khan@jboss.com">Kabir Khan</a>
  */
 public class SkipMiscFilesContentItemFilter implements ContentItemFilter {
-    private final List<Pattern> includedMiscFiles;
+    private final ContentItemIndex.PathPatterns includedMiscFiles;
 
-    private SkipMiscFilesContentItemFilter(List<Pattern> includedMiscFiles) {
+    private SkipMiscFilesContentItemFilter(ContentItemIndex.PathPatterns includedMiscFiles) {
         this.includedMiscFiles = includedMiscFiles;
     }
 
@@ -25,7 +25,7 @@ public class SkipMiscFilesContentItemFilter implements ContentItemFilter {
                 patterns.add(Pattern.compile(s));
             }
         }
-        return new SkipMiscFilesContentItemFilter(patterns);
+        return new SkipMiscFilesContentItemFilter(ContentItemIndex.PathPatterns.compile(patterns));
     }
 
     @Override
@@ -33,12 +33,7 @@ public class SkipMiscFilesContentItemFilter implements ContentItemFilter {
         if (item.getContentType() != ContentType.MISC) {
             return true;
         }
-        for (Pattern pattern : includedMiscFiles) {
-            if (pattern.matcher(item.getRelativePath()).matches()) {
-                return true;
-            }
-        }
-        return false;
+        return includedMiscFiles.matches(item.getRelativePath());
     }
 
 }
@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * The children of a directory item, or the modules of a layer. Children are appended while the tree is built, and
+ * sorted once when they are read for the first time. Just like with a {@code TreeSet}, the first of several equal
+ * children is kept. Children are expected to be added before the tree is compared, adding more afterwards sorts them
+ * again on the next read.
+ *
+ * @param <T> the type of the children
+ */
+class SortedChildren<T extends Comparable<? super T>> extends AbstractSet<T> {
+
+    private static final Object[] EMPTY = new Object[0];
+
+    private Object[] items = EMPTY;
+    private int size;
+    private boolean sorted = true;
+
+    @Override
+    public synchronized boolean add(final T item) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items, Math.max(4, size * 2));
+        }
+        // Stays sorted as long as the children are added in order, e.g. from a persisted distribution
+        if (size > 0 && sorted && SortedChildren.<T>get(items, size - 1).compareTo(item) >= 0) {
+            sorted = false;
+        }
+        items[size++] = item;
+        return true;
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        final Object[] items;
+        final int size;
+        synchronized (this) {
+            items = sortedItems();
+            size = this.size;
+        }
+        return new Iterator<T>() {
+            private int i;
+
+            @Override
+            public boolean hasNext() {
+                return i < size;
+            }
+
+            @Override
+            public T next() {
+                if (i >= size) {
+                    throw new NoSuchElementException();
+                }
+                return get(items, i++);
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public synchronized int size() {
+        sort();
+        return size;
+    }
+
+    @Override
+    public synchronized boolean contains(final Object o) {
+        if (o == null) {
+            return false;
+        }
+        sort();
+        try {
+            return Arrays.binarySearch(items, 0, size, o) >= 0;
+        } catch (ClassCastException e) {
+            // Not comparable to the children
+            return false;
+        }
+    }
+
+    /**
+     * Sort the children and get the array holding them. Only the first {@link #size()} elements are children, and
+     * those do not change anymore. Callers hold the lock of this set while getting both.
+     *
+     * @return the sorted children
+     */
+    synchronized Object[] sortedItems() {
+        sort();
+        return items;
+    }
+
+    /**
+     * Get a child of the array returned by {@link #sortedItems()}.
+     *
+     * @param items the children
+     * @param i     the index
+     * @return the child
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T get(final Object[] items, final int i) {
+        return (T) items[i];
+    }
+
+    private void sort() {
+        if (sorted) {
+            return;
+        }
+        // Sort a copy, iterators might still use the current array. The sort is stable, so the first of equal
+        // children ends up first
+        final Object[] copy = Arrays.copyOf(items, size);
+        Arrays.sort(copy);
+        int j = 0;
+        for (int i = 0; i < copy.length; i++) {
+            if (j == 0 || SortedChildren.<T>get(copy, j - 1).compareTo(SortedChildren.<T>get(copy, i)) != 0) {
+                copy[j++] = copy[i];
+            }
+        }
+        items = j == copy.length ? copy : Arrays.copyOf(copy, j);
+        size = j;
+        sorted = true;
+    }
+
+}
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.List;
+
+import org.jboss.as.patching.metadata.ContentModification;
+import org.jboss.as.patching.metadata.Identity;
+import org.jboss.as.patching.metadata.Patch;
+import org.jboss.as.patching.metadata.PatchElement;
+
+/**
+ * A patch reading its misc modifications from a {@link ModificationSpool}, which needs to stay open as long as the
+ * modifications are read.
+ */
+class SpooledPatch implements Patch {
+
+    private final Patch patch;
+    private final List<ContentModification> modifications;
+
+    SpooledPatch(final Patch patch, final List<ContentModification> modifications) {
+        this.patch = patch;
+        this.modifications = modifications;
+    }
+
+    @Override
+    public String getPatchId() {
+        return patch.getPatchId();
+    }
+
+    @Override
+    public String getDescription() {
+        return patch.getDescription();
+    }
+
+    @Override
+    public String getLink() {
+        return patch.getLink();
+    }
+
+    @Override
+    public Identity getIdentity() {
+        return patch.getIdentity();
+    }
+
+    @Override
+    public List<PatchElement> getElements() {
+        return patch.getElements();
+    }
+
+    @Override
+    public List<ContentModification> getModifications() {
+        return modifications;
+    }
+}
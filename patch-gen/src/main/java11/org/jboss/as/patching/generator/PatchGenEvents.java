@@ -0,0 +1,196 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Creates the Java Flight Recorder events of a patch generation, the version for Java 11 and later. A recording
+ * shows them under "JBoss Patch Gen", with the path, size, duration and outcome of every operation.
+ * <p/>
+ * Events which are not enabled in the running recording are not even started.
+ */
+final class PatchGenEvents {
+
+    private static final PatchGenEvent NONE = new PatchGenEvent() {
+        @Override
+        public void success() {
+        }
+
+        @Override
+        public void success(final long size) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    private PatchGenEvents() {
+    }
+
+    /**
+     * Begin an event.
+     *
+     * @param kind the kind of operation
+     * @param item the item the operation is performed on, its {@code toString()} is the path of the event
+     * @return the event
+     */
+    static PatchGenEvent begin(final PatchGenEvent.Kind kind, final Object item) {
+        final Operation event;
+        switch (kind) {
+            case SCAN_DIRECTORY:
+                event = new ScanDirectory();
+                break;
+            case HASH_FILE:
+                event = new HashFile();
+                break;
+            case NORMALIZE_JAR:
+                event = new NormalizeJar();
+                break;
+            case INSPECT_MODULE:
+                event = new InspectModule();
+                break;
+            case COMPARE_LAYER:
+                event = new CompareLayer();
+                break;
+            case COPY_ITEM:
+                event = new CopyItem();
+                break;
+            case WRITE_ZIP:
+                event = new WriteZip();
+                break;
+            case WRITE_ZIP_ENTRY:
+                event = new WriteZipEntry();
+                break;
+            default:
+                throw new IllegalArgumentException(kind.toString());
+        }
+        if (!event.isEnabled()) {
+            return NONE;
+        }
+        event.item = item;
+        event.begin();
+        return event;
+    }
+
+    @Category({"JBoss", "Patch Gen"})
+    @StackTrace(false)
+    abstract static class Operation extends Event implements PatchGenEvent {
+
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @Description("The number of bytes processed, or entries for a directory, module or layer")
+        long size;
+
+        @Label("Outcome")
+        String outcome;
+
+        // Only turned into the path when the event gets committed
+        transient Object item;
+        transient boolean succeeded;
+
+        @Override
+        public void success() {
+            // The length is only looked up when the event gets committed
+            success(-1);
+        }
+
+        @Override
+        public void success(final long size) {
+            this.size = size;
+            this.succeeded = true;
+        }
+
+        @Override
+        public void close() {
+            end();
+            if (shouldCommit()) {
+                if (size < 0) {
+                    size = item instanceof File ? ((File) item).length() : 0;
+                }
+                path = String.valueOf(item);
+                outcome = succeeded ? "success" : "failure";
+                commit();
+            }
+        }
+    }
+
+    @Name("org.jboss.as.patching.generator.ScanDirectory")
+    @Label("Scan Directory")
+    @Description("Listing a directory of a distribution")
+    static final class ScanDirectory extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.HashFile")
+    @Label("Hash File")
+    @Description("Hashing the content of a file or directory")
+    static final class HashFile extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.NormalizeJar")
+    @Label("Normalize Jar")
+    @Description("Hashing the entries of a jar, ignoring what changes with every build")
+    static final class NormalizeJar extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.InspectModule")
+    @Label("Inspect Module")
+    @Description("Hashing the module.xml and the resources of a module")
+    static final class InspectModule extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.CompareLayer")
+    @Label("Compare Layer")
+    @Description("Comparing the modules and bundles of a layer or add-on")
+    static final class CompareLayer extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.CopyItem")
+    @Label("Copy Item")
+    @Description("Copying a content item into the patch")
+    static final class CopyItem extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.WriteZip")
+    @Label("Write Zip")
+    @Description("Writing the patch archive")
+    static final class WriteZip extends Operation {
+    }
+
+    @Name("org.jboss.as.patching.generator.WriteZipEntry")
+    @Label("Write Zip Entry")
+    @Description("Writing a file entry of the patch archive")
+    static final class WriteZipEntry extends Operation {
+    }
+
+}
@@ -0,0 +1,155 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the threads a {@link HashingScheduler} runs its tasks on, the version for Java 21 and later. With
+ * {@code patch.gen.hash.virtual} every task gets a virtual thread of its own, so blocking reads, e.g. from network
+ * storage, do not hold up the other tasks. A semaphore bounds the number of tasks running, and with that the number of
+ * files open, at the same time. Without it the platform threads of the Java 8 version are used.
+ */
+final class HashingThreads {
+
+    // Opts in to the virtual threads where available, the platform threads are the default
+    static final boolean VIRTUAL = Boolean.getBoolean("patch.gen.hash.virtual");
+    // The maximum number of files hashed at the same time on virtual threads
+    static final int MAX_OPEN_FILES = Integer.getInteger("patch.gen.hash.max.open.files", 256);
+
+    private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+
+    private HashingThreads() {
+    }
+
+    /**
+     * Check whether the tasks can run on virtual threads.
+     *
+     * @return whether virtual threads are available
+     */
+    static boolean isVirtualAvailable() {
+        return true;
+    }
+
+    /**
+     * Create the threads, virtual ones if {@code patch.gen.hash.virtual} is set.
+     *
+     * @param threads the number of platform threads
+     * @return the executor
+     */
+    static ExecutorService create(final int threads) {
+        return create(threads, VIRTUAL);
+    }
+
+    /**
+     * Create the threads.
+     *
+     * @param threads the number of platform threads, ignored for virtual threads
+     * @param virtual whether to use virtual threads
+     * @return the executor
+     */
+    static ExecutorService create(final int threads, final boolean virtual) {
+        final int pool = POOL_COUNT.incrementAndGet();
+        if (virtual) {
+            final ThreadFactory threadFactory = Thread.ofVirtual().name("patch-gen-hash-" + pool + "-", 1).factory();
+            return new BoundedExecutor(Executors.newThreadPerTaskExecutor(threadFactory), MAX_OPEN_FILES);
+        }
+        final ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+            @Override
+            public Thread newThread(Runnable r) {
+                final Thread thread = new Thread(r, "patch-gen-hash-" + pool + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Runs at most a given number of tasks at the same time. The others wait for a permit on their own virtual
+     * thread, which is cheap, instead of in a queue.
+     */
+    static final class BoundedExecutor extends AbstractExecutorService {
+
+        private final ExecutorService executor;
+        private final Semaphore permits;
+
+        BoundedExecutor(final ExecutorService executor, final int maxRunning) {
+            this.executor = executor;
+            this.permits = new Semaphore(Math.max(1, maxRunning));
+        }
+
+        @Override
+        public void execute(final Runnable command) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    permits.acquireUninterruptibly();
+                    try {
+                        command.run();
+                    } finally {
+                        permits.release();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
+
+}
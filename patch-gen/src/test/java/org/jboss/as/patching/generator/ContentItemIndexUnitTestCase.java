@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.jboss.as.patching.metadata.BundleItem;
+import org.jboss.as.patching.metadata.ContentItem;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModuleItem;
+import org.junit.Test;
+
+public class ContentItemIndexUnitTestCase {
+
+    private static final String[] PATHS = {
+            "bin/standalone.conf", "bin/standaloneXconf", "docs/licenses/a.txt", "docs/b.txt", "README.txt", "a/aa", "ab",
+    };
+
+    @Test
+    public void testLookup() {
+        final ContentItemIndex index = new ContentItemIndex();
+        index.add(misc("standalone.conf", "bin"));
+        index.add(new ModuleItem("org.jboss.as.server", "main", null));
+        index.add(new BundleItem("org.jboss.bundle", "1.0", null));
+
+        assertTrue(index.containsMiscFile(misc("standalone.conf", "bin")));
+        assertFalse(index.containsMiscFile(misc("standalone.conf")));
+        assertFalse(index.containsMiscFile(misc("standalone.xml", "bin")));
+        assertTrue(index.containsModule(new ModuleItem("org.jboss.as.server", "main", null)));
+        assertTrue(index.containsModule(new ModuleItem("org.jboss.bundle", "1.0", null)));
+        assertFalse(index.containsModule(new ModuleItem("org.jboss.as.server", "1.0", null)));
+        assertFalse(index.containsModule(new ModuleItem("org.jboss.as.standalone.conf", "main", null)));
+
+        final Iterator<ContentItem> i = index.iterator();
+        while (i.hasNext()) {
+            if (i.next() instanceof MiscContentItem) {
+                i.remove();
+            }
+        }
+        assertEquals(2, index.size());
+        assertFalse(index.containsMiscFile(misc("standalone.conf", "bin")));
+        assertTrue(index.containsModule(new ModuleItem("org.jboss.as.server", "main", null)));
+    }
+
+    @Test
+    public void testPathPatterns() {
+        assertSameMatches();
+        assertSameMatches("bin/standalone.conf");
+        assertSameMatches("bin/.*", "docs/.*\\.txt");
+        assertSameMatches("docs/[^/]*", "(?i)readme\\.TXT");
+        assertSameMatches("a", "a/aa", "ab|a/.*");
+        // Fall back to matching each expression on its own
+        assertSameMatches("(a)/\\1a", "ab");
+        assertSameMatches("(?<x>a)b", "(?<x>bin)/.*");
+    }
+
+    private static void assertSameMatches(final String... expressions) {
+        final List<Pattern> patterns = new ArrayList<Pattern>();
+        for (final String expression : expressions) {
+            patterns.add(Pattern.compile(expression));
+        }
+        final ContentItemIndex.PathPatterns combined = ContentItemIndex.PathPatterns.compile(patterns);
+        for (final String path : PATHS) {
+            boolean expected = false;
+            for (final Pattern pattern : patterns) {
+                expected |= pattern.matcher(path).matches();
+            }
+            assertEquals(Arrays.toString(expressions) + " " + path, expected, combined.matches(path));
+        }
+    }
+
+    private static MiscContentItem misc(final String name, final String... path) {
+        return new MiscContentItem(name, path, null);
+    }
+
+}
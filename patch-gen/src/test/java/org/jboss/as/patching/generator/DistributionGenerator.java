@@ -0,0 +1,583 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.jboss.as.patching.IoUtils;
+
+/**
+ * Generates WildFly-like distributions for tests and benchmarks, and mutates them into an updated version.
+ * <p/>
+ * A distribution has modules with a jar each, spread over the base layer, additional layers and add-ons, bundles, a
+ * misc tree, {@code bin/product.conf} and the product and version modules the product name and version are resolved
+ * from. The same settings and seed always generate the same distribution, so generating twice and mutating the
+ * second copy gives a pair of distributions whose differences are known up front.
+ * <p/>
+ * Besides real changes, a mutation rebuilds some jars without changing their classes. Only the manifest attributes,
+ * the maven metadata and the entry timestamps differ, which the detailed module inspection has to ignore.
+ */
+class DistributionGenerator {
+
+    static final String MODULE_PREFIX = "org.generated";
+
+    // Entries of generated jars get a fixed time, otherwise every jar would differ
+    private static final long ENTRY_TIME = 1262304000000L;
+    private static final long REBUILD_TIME = ENTRY_TIME + 24L * 60 * 60 * 1000;
+    private static final String PRODUCT_SLOT = "generated";
+    // The misc files which are not ignored when comparing a distribution
+    private static final List<String> MISC_DIRECTORIES = Arrays.asList("bin", "docs/licenses", "docs/schema", "welcome-content");
+
+    private String productName = "Generated Product";
+    private String productVersion = "1.0.0";
+    private int modules = 100;
+    private List<String> layers = Collections.emptyList();
+    private List<String> addOns = Collections.singletonList("generated");
+    private int bundles = 10;
+    private int miscFiles = 100;
+    private int jarEntries = 20;
+    private int entrySize = 1024;
+    private long seed = 1;
+
+    private int modifiedPercent = 10;
+    private int removedPercent = 2;
+    private int addedPercent = 2;
+    private int rebuiltPercent = 10;
+
+    DistributionGenerator setProduct(final String name, final String version) {
+        this.productName = name;
+        this.productVersion = version;
+        return this;
+    }
+
+    DistributionGenerator setModules(final int modules) {
+        this.modules = modules;
+        return this;
+    }
+
+    /**
+     * Set the layers on top of the base layer, listed in {@code modules/layers.conf}.
+     *
+     * @param layers the layer names
+     * @return this
+     */
+    DistributionGenerator setLayers(final String... layers) {
+        this.layers = Arrays.asList(layers);
+        return this;
+    }
+
+    DistributionGenerator setAddOns(final String... addOns) {
+        this.addOns = Arrays.asList(addOns);
+        return this;
+    }
+
+    DistributionGenerator setBundles(final int bundles) {
+        this.bundles = bundles;
+        return this;
+    }
+
+    DistributionGenerator setMiscFiles(final int miscFiles) {
+        this.miscFiles = miscFiles;
+        return this;
+    }
+
+    /**
+     * Set the size of the generated jars.
+     *
+     * @param entries   the number of classes
+     * @param entrySize the size of a class
+     * @return this
+     */
+    DistributionGenerator setJarEntries(final int entries, final int entrySize) {
+        this.jarEntries = entries;
+        this.entrySize = entrySize;
+        return this;
+    }
+
+    DistributionGenerator setSeed(final long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Set the share of the modules, bundles and misc files changed by {@link #mutate(File)}. The modules and files
+     * picked for each kind of change do not overlap.
+     *
+     * @param modified the percentage of items whose content changes
+     * @param removed  the percentage of items which get removed
+     * @param added    the number of added items, as a percentage of the existing ones
+     * @param rebuilt  the percentage of module jars which are rebuilt without changing their classes
+     * @return this
+     */
+    DistributionGenerator setChanges(final int modified, final int removed, final int added, final int rebuilt) {
+        this.modifiedPercent = modified;
+        this.removedPercent = removed;
+        this.addedPercent = added;
+        this.rebuiltPercent = rebuilt;
+        return this;
+    }
+
+    /**
+     * Generate a distribution.
+     *
+     * @param root the distribution root
+     * @throws IOException
+     */
+    void generate(final File root) throws IOException {
+        final Random random = new Random(seed);
+        write(new File(root, "bin/product.conf"), "slot=" + PRODUCT_SLOT + "\n");
+        if (!layers.isEmpty()) {
+            final StringBuilder sb = new StringBuilder("layers=");
+            for (int i = 0; i < layers.size(); i++) {
+                sb.append(i == 0 ? "" : ",").append(layers.get(i));
+            }
+            write(new File(root, "modules/layers.conf"), sb.append('\n').toString());
+        }
+
+        // The name comes from the product module, the version from the version module
+        final File base = new File(root, "modules/system/layers/base");
+        final File product = moduleDir(base, ProductResolver.PRODUCT_MODULE, PRODUCT_SLOT);
+        write(new File(product, "module.xml"), moduleXml(ProductResolver.PRODUCT_MODULE, PRODUCT_SLOT, "dir"));
+        final Manifest productManifest = manifest();
+        productManifest.getMainAttributes().putValue("JBoss-Product-Release-Name", productName);
+        writeManifest(new File(product, "dir/" + JarFile.MANIFEST_NAME), productManifest);
+        final File version = moduleDir(base, ProductResolver.VERSION_MODULE, "main");
+        write(new File(version, "module.xml"), moduleXml(ProductResolver.VERSION_MODULE, "main", "version.jar"));
+        final Manifest versionManifest = manifest();
+        versionManifest.getMainAttributes().putValue("JBoss-Product-Release-Version", productVersion);
+        writeJar(new File(version, "version.jar"), versionManifest, Collections.<String, byte[]>emptyMap(), ENTRY_TIME);
+
+        final List<File> moduleRoots = new ArrayList<File>();
+        moduleRoots.add(base);
+        for (final String layer : layers) {
+            moduleRoots.add(new File(root, "modules/system/layers/" + layer));
+        }
+        for (final String addOn : addOns) {
+            moduleRoots.add(new File(root, "modules/system/add-ons/" + addOn));
+        }
+        for (int i = 0; i < modules; i++) {
+            createModule(moduleRoots.get(i % moduleRoots.size()), MODULE_PREFIX + ".m" + i, random);
+        }
+        final File bundleRoot = new File(root, "bundles/system/layers/base");
+        for (int i = 0; i < bundles; i++) {
+            createBundle(bundleRoot, MODULE_PREFIX + ".b" + i, random);
+        }
+
+        writeJar(new File(root, "jboss-modules.jar"), manifest(), classes(random), ENTRY_TIME);
+        write(new File(root, "standalone/configuration/standalone.xml"), "<server/>\n");
+        write(new File(root, "domain/configuration/domain.xml"), "<domain/>\n");
+        for (int i = 0; i < miscFiles; i++) {
+            final String dir = MISC_DIRECTORIES.get(i % MISC_DIRECTORIES.size());
+            write(new File(root, dir + "/file" + i + ".txt"), "file " + i + " " + random.nextLong() + "\n");
+        }
+    }
+
+    /**
+     * Apply the configured changes to a generated distribution.
+     *
+     * @param root the distribution root
+     * @return the applied changes
+     * @throws IOException
+     */
+    Changes mutate(final File root) throws IOException {
+        final Random random = new Random(seed + 1);
+        final Changes changes = new Changes();
+
+        // Modules
+        final Map<String, File> modules = new LinkedHashMap<String, File>();
+        final File system = new File(root, "modules/system");
+        for (final String kind : new String[]{"layers", "add-ons"}) {
+            final File[] layerDirs = new File(system, kind).listFiles();
+            if (layerDirs != null) {
+                for (final File layerDir : layerDirs) {
+                    findModules(layerDir, layerDir, modules);
+                }
+            }
+        }
+        final List<String> moduleNames = pick(modules.keySet(), random);
+        int i = 0;
+        for (final String name : slice(moduleNames, i, modifiedPercent)) {
+            modifyJar(jarOf(modules.get(name)), random);
+            changes.modifiedModules.add(name);
+        }
+        i += count(moduleNames, modifiedPercent);
+        for (final String name : slice(moduleNames, i, removedPercent)) {
+            IoUtils.recursiveDelete(modules.get(name));
+            changes.removedModules.add(name);
+        }
+        i += count(moduleNames, removedPercent);
+        for (final String name : slice(moduleNames, i, rebuiltPercent)) {
+            rebuildJar(jarOf(modules.get(name)));
+            changes.rebuiltModules.add(name);
+        }
+        final File base = new File(system, "layers/base");
+        for (int j = 0; j < count(moduleNames, addedPercent); j++) {
+            final String name = MODULE_PREFIX + ".added" + j;
+            createModule(base, name, random);
+            changes.addedModules.add(name);
+        }
+
+        // Bundles
+        final File bundleRoot = new File(root, "bundles/system/layers/base");
+        final List<String> bundleNames = new ArrayList<String>();
+        final File[] generated = new File(bundleRoot, MODULE_PREFIX.replace('.', File.separatorChar)).listFiles();
+        if (generated != null) {
+            for (final File bundle : generated) {
+                bundleNames.add(MODULE_PREFIX + "." + bundle.getName());
+            }
+        }
+        for (final String name : slice(pick(bundleNames, random), 0, modifiedPercent)) {
+            modifyJar(jarOf(moduleDir(bundleRoot, name, "main")), random);
+            changes.modifiedBundles.add(name);
+        }
+
+        // Misc files
+        final List<String> miscPaths = new ArrayList<String>();
+        for (final String dir : MISC_DIRECTORIES) {
+            final File[] files = new File(root, dir).listFiles();
+            if (files != null) {
+                for (final File file : files) {
+                    if (file.isFile() && !file.getName().equals("product.conf")) {
+                        miscPaths.add(dir + "/" + file.getName());
+                    }
+                }
+            }
+        }
+        final List<String> misc = pick(miscPaths, random);
+        for (final String path : slice(misc, 0, modifiedPercent)) {
+            final Writer writer = new FileWriter(new File(root, path), true);
+            try {
+                writer.write("modified " + random.nextLong() + "\n");
+            } finally {
+                writer.close();
+            }
+            changes.modifiedMisc.add(path);
+        }
+        for (final String path : slice(misc, count(misc, modifiedPercent), removedPercent)) {
+            new File(root, path).delete();
+            changes.removedMisc.add(path);
+        }
+        for (int j = 0; j < count(misc, addedPercent); j++) {
+            final String path = "docs/added/file" + j + ".txt";
+            write(new File(root, path), "added " + random.nextLong() + "\n");
+            changes.addedMisc.add(path);
+        }
+        return changes;
+    }
+
+    /**
+     * Create the builder comparing two generated distributions, like the one of a one-off patch config with an
+     * element for every layer and add-on.
+     *
+     * @return the patch builder
+     */
+    PatchBuilderWrapper createPatchBuilder() {
+        final PatchConfigBuilder config = new PatchConfigBuilder();
+        config.setPatchId("generated");
+        config.setOneOffType(productVersion);
+        config.addElement("base");
+        for (final String layer : layers) {
+            config.addElement(layer);
+        }
+        for (final String addOn : addOns) {
+            config.addElement(addOn);
+        }
+        final PatchBuilderWrapper builder = config.build().toPatchBuilder();
+        builder.oneOffPatchIdentity(productName, productVersion);
+        return builder;
+    }
+
+    /**
+     * Write the patch config {@link #createPatchBuilder()} corresponds to, to run the whole {@link PatchGenerator} on
+     * two generated distributions.
+     *
+     * @param file the patch config file
+     * @throws IOException
+     */
+    void writePatchConfig(final File file) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        sb.append("<patch-config xmlns=\"urn:jboss:patch-config:1.0\">\n");
+        sb.append("    <name>generated</name>\n");
+        sb.append("    <description>generated</description>\n");
+        sb.append("    <one-off applies-to-version=\"").append(productVersion).append("\"/>\n");
+        final List<String> elements = new ArrayList<String>();
+        elements.add("base");
+        elements.addAll(layers);
+        elements.addAll(addOns);
+        for (final String element : elements) {
+            sb.append("    <element patch-id=\"generated-").append(element).append("\">\n");
+            sb.append("        <one-off name=\"").append(element).append("\"/>\n");
+            sb.append("        <description>generated</description>\n");
+            sb.append("    </element>\n");
+        }
+        sb.append("</patch-config>\n");
+        write(file, sb.toString());
+    }
+
+    private void createModule(final File moduleRoot, final String name, final Random random) throws IOException {
+        final File dir = moduleDir(moduleRoot, name, "main");
+        final String jar = name.substring(name.lastIndexOf('.') + 1) + ".jar";
+        write(new File(dir, "module.xml"), moduleXml(name, "main", jar));
+        writeJar(new File(dir, jar), manifest(), classes(random), ENTRY_TIME);
+    }
+
+    private void createBundle(final File bundleRoot, final String name, final Random random) throws IOException {
+        final String jar = name.substring(name.lastIndexOf('.') + 1) + ".jar";
+        writeJar(new File(moduleDir(bundleRoot, name, "main"), jar), manifest(), classes(random), ENTRY_TIME);
+    }
+
+    private Map<String, byte[]> classes(final Random random) {
+        return classes(random, jarEntries, entrySize);
+    }
+
+    private static Map<String, byte[]> classes(final Random random, final int jarEntries, final int entrySize) {
+        final Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        for (int i = 0; i < jarEntries; i++) {
+            final byte[] content = new byte[entrySize];
+            // Compressible, like real class files
+            for (int j = 0; j < content.length; j++) {
+                content[j] = (byte) ('a' + random.nextInt(8));
+            }
+            classes.put("org/generated/p" + i % 10 + "/C" + i + ".class", content);
+        }
+        return classes;
+    }
+
+    private static void findModules(final File layerDir, final File dir, final Map<String, File> modules) {
+        final File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        if (new File(dir, "module.xml").isFile()) {
+            final String path = dir.getParentFile().getAbsolutePath().substring(layerDir.getAbsolutePath().length() + 1);
+            final String name = path.replace(File.separatorChar, '.');
+            if (name.startsWith(MODULE_PREFIX + ".")) {
+                modules.put(name, dir);
+            }
+            return;
+        }
+        Arrays.sort(children);
+        for (final File child : children) {
+            if (child.isDirectory()) {
+                findModules(layerDir, child, modules);
+            }
+        }
+    }
+
+    private static File jarOf(final File dir) {
+        final File[] jars = dir.listFiles();
+        if (jars != null) {
+            for (final File jar : jars) {
+                if (jar.getName().endsWith(".jar")) {
+                    return jar;
+                }
+            }
+        }
+        throw new IllegalStateException("no jar in " + dir);
+    }
+
+    /**
+     * Write a jar with generated classes.
+     *
+     * @param file      the jar
+     * @param entries   the number of classes
+     * @param entrySize the size of a class
+     * @param seed      the random seed
+     * @throws IOException
+     */
+    static void writeJar(final File file, final int entries, final int entrySize, final long seed) throws IOException {
+        writeJar(file, manifest(), classes(new Random(seed), entries, entrySize), ENTRY_TIME);
+    }
+
+    /**
+     * Change the content of one class.
+     */
+    private static void modifyJar(final File jar, final Random random) throws IOException {
+        final Map<String, byte[]> classes = readClasses(jar);
+        final String name = classes.keySet().iterator().next();
+        classes.get(name)[0] = (byte) ('A' + random.nextInt(8));
+        writeJar(jar, manifest(), classes, ENTRY_TIME);
+    }
+
+    /**
+     * Rebuild a jar with the same classes, where only things which differ between builds change.
+     */
+    private static void rebuildJar(final File jar) throws IOException {
+        final Manifest manifest = manifest();
+        manifest.getMainAttributes().putValue("Build-Timestamp", String.valueOf(REBUILD_TIME));
+        manifest.getMainAttributes().putValue("Bnd-LastModified", String.valueOf(REBUILD_TIME));
+        writeJar(jar, manifest, readClasses(jar), REBUILD_TIME);
+    }
+
+    private static Map<String, byte[]> readClasses(final File jar) throws IOException {
+        final Map<String, byte[]> classes = new LinkedHashMap<String, byte[]>();
+        final ZipFile zip = new ZipFile(jar);
+        try {
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    final InputStream is = zip.getInputStream(entry);
+                    try {
+                        final byte[] content = new byte[(int) entry.getSize()];
+                        int read = 0;
+                        while (read < content.length) {
+                            read += is.read(content, read, content.length - read);
+                        }
+                        classes.put(entry.getName(), content);
+                    } finally {
+                        is.close();
+                    }
+                }
+            }
+        } finally {
+            zip.close();
+        }
+        return classes;
+    }
+
+    private static Manifest manifest() {
+        final Manifest manifest = new Manifest();
+        final Attributes attributes = manifest.getMainAttributes();
+        attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        attributes.putValue("Build-Timestamp", String.valueOf(ENTRY_TIME));
+        attributes.putValue("Bnd-LastModified", String.valueOf(ENTRY_TIME));
+        return manifest;
+    }
+
+    private static void writeJar(final File file, final Manifest manifest, final Map<String, byte[]> classes, final long time) throws IOException {
+        file.getParentFile().mkdirs();
+        final ZipOutputStream os = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            final ZipEntry manifestEntry = new ZipEntry(JarFile.MANIFEST_NAME);
+            manifestEntry.setTime(time);
+            os.putNextEntry(manifestEntry);
+            manifest.write(os);
+            os.closeEntry();
+            // Maven adds the time of the build
+            final ZipEntry pomProperties = new ZipEntry("META-INF/maven/org.generated/generated/pom.properties");
+            pomProperties.setTime(time);
+            os.putNextEntry(pomProperties);
+            os.write(("#Generated " + time + "\nversion=1.0\n").getBytes("UTF-8"));
+            os.closeEntry();
+            for (final Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                final ZipEntry zipEntry = new ZipEntry(entry.getKey());
+                zipEntry.setTime(time);
+                os.putNextEntry(zipEntry);
+                os.write(entry.getValue());
+                os.closeEntry();
+            }
+        } finally {
+            os.close();
+        }
+    }
+
+    private static void writeManifest(final File file, final Manifest manifest) throws IOException {
+        file.getParentFile().mkdirs();
+        final OutputStream os = new FileOutputStream(file);
+        try {
+            manifest.write(os);
+        } finally {
+            os.close();
+        }
+    }
+
+    private static File moduleDir(final File moduleRoot, final String name, final String slot) {
+        return new File(moduleRoot, name.replace('.', File.separatorChar) + File.separatorChar + slot);
+    }
+
+    private static String moduleXml(final String name, final String slot, final String resource) {
+        return "<module xmlns=\"urn:jboss:module:1.1\" name=\"" + name + "\" slot=\"" + slot + "\">\n"
+                + "    <resources>\n        <resource-root path=\"" + resource + "\"/>\n    </resources>\n"
+                + "    <dependencies>\n        <module name=\"javax.api\"/>\n    </dependencies>\n</module>\n";
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        final Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * Shuffle the items, starting from a sorted list so the order does not depend on the file system.
+     */
+    private static List<String> pick(final Collection<String> items, final Random random) {
+        final List<String> picked = new ArrayList<String>(new TreeSet<String>(items));
+        Collections.shuffle(picked, random);
+        return picked;
+    }
+
+    private static int count(final List<String> items, final int percent) {
+        return items.size() * percent / 100;
+    }
+
+    private static List<String> slice(final List<String> items, final int from, final int percent) {
+        return items.subList(Math.min(from, items.size()), Math.min(from + count(items, percent), items.size()));
+    }
+
+    /**
+     * The changes applied by {@link #mutate(File)}. Modules and bundles are listed by name, misc files by their path
+     * relative to the distribution root.
+     */
+    static final class Changes {
+
+        final Set<String> modifiedModules = new TreeSet<String>();
+        final Set<String> removedModules = new TreeSet<String>();
+        final Set<String> addedModules = new TreeSet<String>();
+        final Set<String> rebuiltModules = new TreeSet<String>();
+        final Set<String> modifiedBundles = new TreeSet<String>();
+        final Set<String> modifiedMisc = new TreeSet<String>();
+        final Set<String> removedMisc = new TreeSet<String>();
+        final Set<String> addedMisc = new TreeSet<String>();
+
+    }
+
+}
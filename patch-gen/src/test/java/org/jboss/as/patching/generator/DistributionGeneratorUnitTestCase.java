@@ -0,0 +1,392 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.metadata.ContentModification;
+import org.jboss.as.patching.metadata.ContentType;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModificationType;
+import org.jboss.as.patching.metadata.Patch;
+import org.jboss.as.patching.metadata.PatchElement;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DistributionGeneratorUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DistributionGenerator generator;
+    private File original;
+    private File updated;
+
+    @Before
+    public void setup() throws Exception {
+        generator = new DistributionGenerator()
+                .setProduct("Test Product", "1.2.3")
+                .setModules(200)
+                .setLayers("layer1")
+                .setAddOns("add-on1")
+                .setBundles(20)
+                .setMiscFiles(100)
+                .setJarEntries(5, 256)
+                .setChanges(10, 5, 5, 10);
+        original = folder.newFolder("original");
+        updated = folder.newFolder("updated");
+        generator.generate(original);
+        generator.generate(updated);
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        final Distribution distribution = Distribution.create(original);
+        assertEquals("Test Product", distribution.getName());
+        assertEquals("1.2.3", distribution.getVersion());
+        assertEquals(new TreeSet<String>(Arrays.asList("base", "layer1")), new TreeSet<String>(distribution.getLayers()));
+        assertEquals(Collections.singleton("add-on1"), distribution.getAddOns());
+        // The product and version modules are in the base layer as well
+        final int modules = distribution.getLayer("base").getModules().size()
+                + distribution.getLayer("layer1").getModules().size()
+                + distribution.getAddOn("add-on1").getModules().size();
+        assertEquals(202, modules);
+        assertEquals(20, distribution.getLayer("base").getBundles().size());
+    }
+
+    @Test
+    public void testMutate() throws Exception {
+        final DistributionGenerator.Changes changes = generator.mutate(updated);
+        assertEquals(20, changes.modifiedModules.size());
+        assertEquals(10, changes.removedModules.size());
+        assertEquals(10, changes.addedModules.size());
+        assertEquals(20, changes.rebuiltModules.size());
+
+        // The detailed inspection does not see the rebuilt modules
+        final ModuleDiffUtils inspection = new ModuleDiffUtils(true, Collections.<String>emptyList());
+        Patch patch = compare(Distribution.create(original, null, inspection), Distribution.create(updated, null, inspection));
+        assertEquals(changes.modifiedModules, find(patch, ContentType.MODULE, ModificationType.MODIFY));
+        assertEquals(changes.removedModules, find(patch, ContentType.MODULE, ModificationType.REMOVE));
+        assertEquals(changes.addedModules, find(patch, ContentType.MODULE, ModificationType.ADD));
+        assertEquals(changes.modifiedBundles, find(patch, ContentType.BUNDLE, ModificationType.MODIFY));
+        assertEquals(changes.modifiedMisc, find(patch, ContentType.MISC, ModificationType.MODIFY));
+        assertEquals(changes.removedMisc, find(patch, ContentType.MISC, ModificationType.REMOVE));
+        assertEquals(changes.addedMisc, find(patch, ContentType.MISC, ModificationType.ADD));
+
+        // Comparing the metadata only does
+        patch = compare(Distribution.create(original), Distribution.create(updated));
+        final Set<String> modified = new TreeSet<String>(changes.modifiedModules);
+        modified.addAll(changes.rebuiltModules);
+        assertEquals(modified, find(patch, ContentType.MODULE, ModificationType.MODIFY));
+    }
+
+    @Test
+    public void testSameSeed() throws Exception {
+        final Patch patch = compare(Distribution.create(original), Distribution.create(updated));
+        assertTrue(patch.getModifications().isEmpty());
+        for (final PatchElement element : patch.getElements()) {
+            assertTrue(element.getModifications().isEmpty());
+        }
+    }
+
+    @Test
+    public void testPatchGenerator() throws Exception {
+        generator.mutate(updated);
+        final File config = folder.newFile("patch-config.xml");
+        generator.writePatchConfig(config);
+        final File patchFile = new File(folder.getRoot(), "patch.zip");
+        final File report = new File(folder.getRoot(), "metrics.json");
+        final PhaseTimings timings = PatchGenerator.generate(true,
+                PatchGenerator.METRICS_REPORT + "=" + report.getAbsolutePath(),
+                PatchGenerator.PATCH_CONFIG + "=" + config.getAbsolutePath(),
+                PatchGenerator.APPLIES_TO_DIST + "=" + original.getAbsolutePath(),
+                PatchGenerator.UPDATED_DIST + "=" + updated.getAbsolutePath(),
+                PatchGenerator.OUTPUT_FILE + "=" + patchFile.getAbsolutePath());
+        assertNotNull(timings);
+        assertTrue(timings.getNanos(PatchGenerationListener.Phase.SCAN) > 0);
+        assertTrue(timings.getNanos(PatchGenerationListener.Phase.COMPARE) > 0);
+        assertTrue(timings.getNanos(PatchGenerationListener.Phase.WRITE) > 0);
+        assertTrue(report.isFile());
+    }
+
+    @Test
+    public void testConcurrentGenerations() throws Exception {
+        generator.mutate(updated);
+        final File config = folder.newFile("patch-config.xml");
+        generator.writePatchConfig(config);
+        final int expected = modifications(compare(Distribution.create(original), Distribution.create(updated)));
+        assertTrue(expected > 0);
+
+        final ExecutorService hashing = Executors.newFixedThreadPool(4);
+        final ExecutorService generations = Executors.newFixedThreadPool(3);
+        try {
+            final List<Future<PatchGeneration.Result>> results = new ArrayList<Future<PatchGeneration.Result>>();
+            for (int i = 0; i < 3; i++) {
+                final PatchGeneration.Builder builder = PatchGeneration.builder()
+                        .appliesTo(original)
+                        .updated(updated)
+                        .config(config)
+                        .outputFile(new File(folder.getRoot(), "patch-" + i + ".zip"))
+                        .executor(hashing);
+                results.add(generations.submit(new Callable<PatchGeneration.Result>() {
+                    @Override
+                    public PatchGeneration.Result call() throws Exception {
+                        return builder.generate();
+                    }
+                }));
+            }
+            for (final Future<PatchGeneration.Result> future : results) {
+                try (final PatchGeneration.Result result = future.get()) {
+                    assertEquals(expected, result.getModifications());
+                    assertEquals(expected, modifications(result.getPatch()));
+                    assertTrue(result.getItemsHashed() > 0);
+                    assertTrue(result.getPatchFile().isFile());
+                }
+            }
+            // The hashing executor of the caller is left running
+            assertFalse(hashing.isShutdown());
+        } finally {
+            generations.shutdown();
+            hashing.shutdown();
+        }
+    }
+
+    @Test
+    public void testForkJoinExecutor() throws Exception {
+        generator.mutate(updated);
+        final File config = folder.newFile("patch-config.xml");
+        generator.writePatchConfig(config);
+        final int expected = modifications(compare(Distribution.create(original), Distribution.create(updated)));
+
+        // The comparisons run on the pool of the caller as well, next to the hashing
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            try (final PatchGeneration.Result result = PatchGeneration.builder()
+                    .appliesTo(original)
+                    .updated(updated)
+                    .config(config)
+                    .outputFile(new File(folder.getRoot(), "patch.zip"))
+                    .executor(pool)
+                    .generate()) {
+                assertEquals(expected, result.getModifications());
+            }
+            assertFalse(pool.isShutdown());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFailedGenerationStopsHashing() throws Exception {
+        // A distribution of another product, which fails the generation once both got scanned
+        final File other = folder.newFolder("other");
+        new DistributionGenerator()
+                .setProduct("Other Product", "1.2.3")
+                .setModules(200)
+                .setMiscFiles(1000)
+                .generate(other);
+        final File config = folder.newFile("patch-config.xml");
+        generator.writePatchConfig(config);
+        try {
+            PatchGeneration.builder()
+                    .appliesTo(original)
+                    .updated(other)
+                    .config(config)
+                    .outputFile(new File(folder.getRoot(), "patch.zip"))
+                    .generate();
+            fail("distribution names differ");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("distribution names don't match"));
+        }
+        // The queued hashing is cancelled and the threads stop right away
+        final long deadline = System.currentTimeMillis() + 10000;
+        for (final Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith("patch-gen-hash-")) {
+                thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+                assertFalse(thread.getName(), thread.isAlive());
+            }
+        }
+    }
+
+    @Test
+    public void testStreamedOutput() throws Exception {
+        generator.mutate(updated);
+        final File config = folder.newFile("patch-config.xml");
+        generator.writePatchConfig(config);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (final PatchGeneration.Result result = PatchGeneration.builder()
+                .appliesTo(original)
+                .updated(updated)
+                .config(config)
+                .output(PatchOutput.toStream(bytes))
+                .generate()) {
+            assertNull(result.getPatchFile());
+            assertEquals(bytes.size(), result.getPatchSize());
+
+            final Set<String> entries = new TreeSet<String>();
+            String last = null;
+            try (final ZipInputStream zis = new ZipInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                ZipEntry entry;
+                while ((entry = zis.getNextEntry()) != null) {
+                    entries.add(entry.getName());
+                    last = entry.getName();
+                }
+            }
+            assertTrue(entries.contains("META-INF/"));
+            assertTrue(entries.contains("misc/"));
+            // The misc modifications are read from the spool, not copied
+            final Patch patch = result.getPatch();
+            assertTrue(patch instanceof SpooledPatch);
+            // The content of every added or modified module, written while comparing
+            for (final PatchElement element : patch.getElements()) {
+                for (final ContentModification modification : element.getModifications()) {
+                    if (modification.getType() != ModificationType.REMOVE && modification.getItem().getContentType() == ContentType.MODULE) {
+                        final String module = modification.getItem().getName().replace('.', '/');
+                        assertTrue(module, entries.contains(element.getId() + "/modules/" + module + "/main/module.xml"));
+                    }
+                }
+            }
+            // The metadata comes last
+            assertEquals("patch.xml", last);
+        }
+    }
+
+    @Test
+    public void testSerialCompare() throws Exception {
+        // Enough files in each misc directory to split its comparison and replay the ranges in order
+        final File original = folder.newFolder("large-original");
+        final File updated = folder.newFolder("large-updated");
+        generator.setMiscFiles(PatchBuilderWrapper.MISC_THRESHOLD * 16);
+        generator.generate(original);
+        generator.generate(updated);
+        generator.mutate(updated);
+        assertTrue(new File(original, "bin").list().length > PatchBuilderWrapper.MISC_THRESHOLD * 2);
+        final File config = folder.newFile("patch-config.xml");
+        generator.writePatchConfig(config);
+        final Set<String> serialEntries = new TreeSet<String>();
+        final Set<String> concurrentEntries = new TreeSet<String>();
+        final byte[] serial = generate(original, updated, config, true, serialEntries);
+        final byte[] concurrent = generate(original, updated, config, false, concurrentEntries);
+        assertTrue(serial.length > 0);
+        assertArrayEquals(serial, concurrent);
+        assertEquals(serialEntries, concurrentEntries);
+    }
+
+    /**
+     * Generate the patch and read its {@code patch.xml}.
+     *
+     * @param original the distribution the patch applies to
+     * @param updated  the updated distribution
+     * @param config   the patch-config
+     * @param serial   whether to compare serially
+     * @param entries  the names of the entries of the patch
+     * @return the content of {@code patch.xml}
+     */
+    private byte[] generate(final File original, final File updated, final File config, final boolean serial,
+                            final Set<String> entries) throws Exception {
+        final File patchFile = new File(folder.getRoot(), serial ? "serial.zip" : "concurrent.zip");
+        PatchGeneration.builder()
+                .appliesTo(original)
+                .updated(updated)
+                .config(config)
+                .outputFile(patchFile)
+                .serialCompare(serial)
+                .generate()
+                .close();
+        byte[] patchXml = null;
+        try (final ZipInputStream zis = new ZipInputStream(new FileInputStream(patchFile))) {
+            ZipEntry entry;
+            while ((entry = zis.getNextEntry()) != null) {
+                entries.add(entry.getName());
+                if (entry.getName().equals("patch.xml")) {
+                    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                    IoUtils.copyStream(zis, bytes);
+                    patchXml = bytes.toByteArray();
+                }
+            }
+        }
+        assertNotNull(patchXml);
+        return patchXml;
+    }
+
+    private static int modifications(final Patch patch) {
+        int modifications = patch.getModifications().size();
+        for (final PatchElement element : patch.getElements()) {
+            modifications += element.getModifications().size();
+        }
+        return modifications;
+    }
+
+    private Patch compare(final Distribution original, final Distribution updated) {
+        return generator.createPatchBuilder().compare(original, updated, false);
+    }
+
+    private static Set<String> find(final Patch patch, final ContentType contentType, final ModificationType type) {
+        final Set<String> found = new TreeSet<String>();
+        if (contentType == ContentType.MISC) {
+            for (final ContentModification modification : patch.getModifications()) {
+                final MiscContentItem item = (MiscContentItem) modification.getItem();
+                if (modification.getType() == type && !item.isDirectory()) {
+                    found.add(item.getRelativePath());
+                }
+            }
+        } else {
+            for (final PatchElement element : patch.getElements()) {
+                for (final ContentModification modification : element.getModifications()) {
+                    if (modification.getType() == type && modification.getItem().getContentType() == contentType) {
+                        found.add(modification.getItem().getName());
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DistributionWalkerUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+
+    @Before
+    public void setup() throws IOException {
+        root = folder.newFolder("distribution");
+        write(new File(root, "bin/standalone.sh"), "#!/bin/sh");
+        write(new File(root, "docs/README.txt"), "readme");
+        Files.createSymbolicLink(new File(root, "bin/link.sh").toPath(), new File(root, "bin/standalone.sh").toPath());
+        Files.createSymbolicLink(new File(root, "bin/docs").toPath(), new File(root, "docs").toPath());
+        Files.createSymbolicLink(new File(root, "bin/missing").toPath(), new File(root, "missing").toPath());
+    }
+
+    @Test
+    public void testList() {
+        final DistributionWalker walker = new DistributionWalker(DistributionWalker.SymlinkPolicy.FOLLOW);
+        final DistributionWalker.Entry distribution = walker.root(root);
+        assertTrue(distribution.isDirectory());
+
+        final Map<String, DistributionWalker.Entry> bin = list(walker, walker.child(distribution, "bin"));
+        assertEquals("[docs, link.sh, missing, standalone.sh]", bin.keySet().toString());
+        assertTrue(bin.get("standalone.sh").isFile());
+        assertEquals(9, bin.get("standalone.sh").size());
+        assertTrue(bin.get("link.sh").isFile());
+        assertTrue(bin.get("docs").isDirectory());
+        assertEquals("[README.txt]", list(walker, bin.get("docs")).keySet().toString());
+        // Dangling links are neither files nor directories
+        assertTrue(bin.get("missing").exists());
+        assertFalse(bin.get("missing").isFile());
+        assertFalse(bin.get("missing").isDirectory());
+
+        assertFalse(walker.child(distribution, "modules").exists());
+        assertTrue(walker.list(walker.child(distribution, "modules")).isEmpty());
+        assertTrue(walker.list(bin.get("standalone.sh")).isEmpty());
+    }
+
+    @Test
+    public void testSkipLinks() {
+        final DistributionWalker walker = new DistributionWalker(DistributionWalker.SymlinkPolicy.SKIP);
+        final DistributionWalker.Entry bin = walker.child(walker.root(root), "bin");
+        assertEquals("[standalone.sh]", list(walker, bin).keySet().toString());
+        assertFalse(walker.child(bin, "link.sh").exists());
+    }
+
+    @Test
+    public void testLinkCycle() throws IOException {
+        Files.createSymbolicLink(new File(root, "docs/parent").toPath(), root.toPath());
+        final DistributionWalker walker = new DistributionWalker(DistributionWalker.SymlinkPolicy.FOLLOW);
+        final DistributionWalker.Entry docs = walker.child(walker.root(root), "docs");
+        try {
+            walker.list(docs);
+            fail("link cycle not detected");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("docs" + File.separator + "parent"));
+        }
+        // Skipping links does not run into the cycle
+        assertEquals("[README.txt]", list(new DistributionWalker(DistributionWalker.SymlinkPolicy.SKIP), docs).keySet().toString());
+    }
+
+    private static Map<String, DistributionWalker.Entry> list(final DistributionWalker walker, final DistributionWalker.Entry directory) {
+        final Map<String, DistributionWalker.Entry> entries = new TreeMap<String, DistributionWalker.Entry>();
+        for (final DistributionWalker.Entry entry : walker.list(directory)) {
+            entries.put(entry.getName(), entry);
+        }
+        return entries;
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+    }
+
+}
@@ -0,0 +1,112 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Random;
+
+import org.jboss.as.patching.HashUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileHashUtilsUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testSameHashAsHashUtils() throws Exception {
+
+        final File root = folder.newFolder("module");
+        createFile(new File(root, "module.xml"), 512);
+        createFile(new File(root, "b.jar"), 100 * 1024);
+        createFile(new File(root, "a.jar"), 300 * 1024);
+        final File lib = new File(root, "lib");
+        lib.mkdirs();
+        createFile(new File(lib, "native.so"), 1024 * 1024 + 17);
+        createFile(new File(lib, "empty.so"), 0);
+
+        assertArrayEquals(HashUtils.hashFile(root), FileHashUtils.hashFile(root));
+        assertArrayEquals(HashUtils.hashFile(lib), FileHashUtils.hashFile(lib));
+        final File file = new File(root, "a.jar");
+        assertArrayEquals(HashUtils.hashFile(file), FileHashUtils.hashFile(file));
+    }
+
+    @Test
+    public void testMappedChunks() throws Exception {
+
+        final File file = folder.newFile("content.bin");
+        createFile(file, 1024 * 1024 + 3);
+
+        final MessageDigest streamed = FileHashUtils.createDigest();
+        FileHashUtils.updateDigestStreamed(streamed, file);
+        final byte[] expected = streamed.digest();
+
+        for (final long chunkSize : new long[] {4096, 1000 * 1000, 1024 * 1024, Integer.MAX_VALUE}) {
+            final MessageDigest mapped = FileHashUtils.createDigest();
+            FileHashUtils.updateDigestMapped(mapped, file, chunkSize);
+            assertArrayEquals(String.valueOf(chunkSize), expected, mapped.digest());
+        }
+    }
+
+    @Test
+    public void testMappedBudget() throws Exception {
+
+        final File file = folder.newFile("content.bin");
+        createFile(file, 1024 * 1024 + 3);
+
+        final MessageDigest streamed = FileHashUtils.createDigest();
+        FileHashUtils.updateDigestStreamed(streamed, file);
+        final byte[] expected = streamed.digest();
+
+        // Only the first chunks get mapped, the rest is streamed
+        for (final long limit : new long[] {0, 4096, 3 * 4096 - 1, 1024 * 1024}) {
+            final FileHashUtils.MappingBudget budget = new FileHashUtils.MappingBudget(limit);
+            for (int i = 0; i < 2; i++) {
+                final MessageDigest mapped = FileHashUtils.createDigest();
+                FileHashUtils.updateDigestMapped(mapped, file, 4096, budget);
+                assertArrayEquals(String.valueOf(limit), expected, mapped.digest());
+                assertTrue(String.valueOf(limit), budget.getMapped() <= limit);
+            }
+        }
+    }
+
+    private static void createFile(final File file, final int size) throws IOException {
+        final byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        final FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(content);
+        } finally {
+            os.close();
+        }
+    }
+
+}
@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Random;
+
+import org.jboss.as.patching.IoUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class HashArenaUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testAcrossPages() {
+        final Random random = new Random(42);
+        final HashArena arena = new HashArena();
+        final HashArena other = new HashArena();
+        final byte[][] hashes = new byte[10000][];
+        final int[] handles = new int[hashes.length];
+        final int[] otherHandles = new int[hashes.length];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = new byte[HashArena.WIDTH];
+            random.nextBytes(hashes[i]);
+            handles[i] = arena.add(hashes[i]);
+            otherHandles[hashes.length - i - 1] = other.add(hashes[i]);
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            assertArrayEquals(hashes[i], arena.get(handles[i]));
+            assertTrue(HashArena.equals(arena, handles[i], other, otherHandles[hashes.length - i - 1]));
+            assertFalse(HashArena.equals(arena, handles[i], arena, handles[(i + 1) % hashes.length]));
+        }
+    }
+
+    @Test
+    public void testNoContent() {
+        final HashArena arena = new HashArena();
+        final int empty = arena.add(IoUtils.NO_CONTENT);
+        final int none = arena.add(null);
+        final int hash = arena.add(new byte[HashArena.WIDTH]);
+        assertArrayEquals(IoUtils.NO_CONTENT, arena.get(empty));
+        assertNull(arena.get(none));
+        assertTrue(HashArena.equals(arena, empty, arena, arena.add(new byte[0])));
+        assertFalse(HashArena.equals(arena, empty, arena, none));
+        assertFalse(HashArena.equals(arena, empty, arena, hash));
+    }
+
+    @Test
+    public void testOneArenaPerDistribution() throws Exception {
+        final File root = folder.newFolder("distribution");
+        new DistributionGenerator()
+                .setModules(20)
+                .setLayers("layer1")
+                .setBundles(5)
+                .setMiscFiles(10)
+                .generate(root);
+        final Distribution distribution = Distribution.create(root);
+        final HashArena arena = distribution.getRoot().hashArena;
+        for (final DistributionContentItem item : distribution.getRoot().getChildren()) {
+            assertSame(item.getName(), arena, item.hashArena);
+        }
+        int modules = 0;
+        for (final String layer : distribution.getLayers()) {
+            for (final DistributionModuleItem module : distribution.getLayer(layer).getModules()) {
+                assertSame(module.getFullModuleName(), arena, module.getHashArena());
+                modules++;
+            }
+            for (final DistributionModuleItem bundle : distribution.getLayer(layer).getBundles()) {
+                assertSame(bundle.getFullModuleName(), arena, bundle.getHashArena());
+            }
+        }
+        assertTrue(modules > 1);
+    }
+
+}
@@ -0,0 +1,191 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class HashingSchedulerUnitTestCase {
+
+    @Test
+    public void testShutdownCancelsPending() throws Exception {
+        // Holds on to the tasks submitted, as a busy executor of the caller would
+        final List<Runnable> submitted = new ArrayList<Runnable>();
+        final Executor executor = new Executor() {
+            @Override
+            public void execute(final Runnable command) {
+                submitted.add(command);
+            }
+        };
+        final ProgressTracker progress = new ProgressTracker(new PhaseTimings(false), null);
+        final HashingScheduler scheduler = new HashingScheduler(executor, 0, PatchGenMetrics.DISABLED, progress);
+        final AtomicInteger hashed = new AtomicInteger();
+        final List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+        for (int i = 0; i < 10; i++) {
+            futures.add(scheduler.schedule(i, new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    return hashed.incrementAndGet();
+                }
+            }));
+        }
+        // One of them done already
+        assertEquals(Integer.valueOf(1), HashingScheduler.get(futures.get(5)));
+
+        scheduler.shutdown();
+        for (final Runnable runnable : submitted) {
+            runnable.run();
+        }
+        assertEquals(1, hashed.get());
+        for (int i = 0; i < futures.size(); i++) {
+            assertTrue(futures.get(i).isDone());
+            assertEquals(i != 5, futures.get(i).isCancelled());
+        }
+        // Nothing left to wait for, and only the one done counted as hashed
+        scheduler.awaitCompletion();
+        assertEquals(1, progress.getItemsHashed());
+    }
+
+    @Test
+    public void testShutdownStopsThreads() throws Exception {
+        final HashingScheduler scheduler = new HashingScheduler(2, 0);
+        final AtomicInteger hashed = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            scheduler.schedule(1, new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    Thread.sleep(10);
+                    return hashed.incrementAndGet();
+                }
+            });
+        }
+        scheduler.shutdown();
+        scheduler.awaitCompletion();
+        // Running tasks got interrupted, the others never started
+        assertTrue(String.valueOf(hashed.get()), hashed.get() < 10);
+    }
+
+    @Test
+    public void testGetCompensatesForkJoinPool() throws Exception {
+        final HashingScheduler scheduler = new HashingScheduler(2, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<String> future = scheduler.schedule(1, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await();
+                return "hashed";
+            }
+        });
+        started.await();
+        // The only thread of the pool waits for the running task, another one takes over the work queued after it
+        final ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            final Future<String> waiting = pool.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return HashingScheduler.get(future);
+                }
+            });
+            final Future<String> queued = pool.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return "queued";
+                }
+            });
+            assertEquals("queued", queued.get(10, TimeUnit.SECONDS));
+            assertFalse(waiting.isDone());
+            release.countDown();
+            assertEquals("hashed", waiting.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            pool.shutdown();
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testGetDoesNotTakePermitsOfStartedTask() throws Exception {
+        // A single permit, held by the running task
+        final HashingScheduler scheduler = new HashingScheduler(1, 1024);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Future<String> future = scheduler.schedule(1024, new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                started.countDown();
+                release.await();
+                return "hashed";
+            }
+        });
+        started.await();
+        final ExecutorService getter = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Thread> waiting = getter.submit(new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            });
+            final Thread thread = waiting.get();
+            final Future<String> result = getter.submit(new Callable<String>() {
+                @Override
+                public String call() {
+                    return HashingScheduler.get(future);
+                }
+            });
+            // Waits for the result of the task rather than for its permits
+            final long deadline = System.currentTimeMillis() + 10000;
+            while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            for (final StackTraceElement element : thread.getStackTrace()) {
+                assertFalse(element.toString(), element.getClassName().startsWith(Semaphore.class.getName()));
+            }
+            release.countDown();
+            assertEquals("hashed", result.get(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            getter.shutdown();
+            scheduler.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs with the platform threads by default. The {@code java21-mr-build} profile runs the tests again on Java 21 with
+ * the classes of {@code META-INF/versions/21} and {@code patch.gen.hash.virtual} set.
+ */
+public class HashingThreadsUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testVirtualThreadsAvailable() {
+        Assume.assumeTrue(HashingThreads.VIRTUAL);
+        assertTrue(HashingThreads.isVirtualAvailable());
+    }
+
+    @Test
+    public void testHashGeneratedDistribution() throws Exception {
+        final File root = folder.newFolder("distribution");
+        new DistributionGenerator()
+                .setModules(30)
+                .setLayers("layer1")
+                .setBundles(5)
+                .setMiscFiles(200)
+                .generate(root);
+        // Hashed on first access, on this thread
+        final Distribution expected = Distribution.create(root);
+        final HashingScheduler scheduler = new HashingScheduler(2, 0);
+        try {
+            // Waits without running the task on this thread, unlike HashingScheduler.get
+            final Thread thread = scheduler.schedule(0, new Callable<Thread>() {
+                @Override
+                public Thread call() {
+                    return Thread.currentThread();
+                }
+            }).get(10, TimeUnit.SECONDS);
+            assertEquals(HashingThreads.VIRTUAL && HashingThreads.isVirtualAvailable(), isVirtual(thread));
+
+            final Distribution distribution = Distribution.create(root, scheduler, ModuleDiffUtils.METADATA_ONLY);
+            // All hashed by the scheduler, not on access
+            scheduler.awaitCompletion();
+            assertSameHashes(expected.getRoot(), distribution.getRoot());
+            int modules = 0;
+            for (final String layer : expected.getLayers()) {
+                final Iterator<DistributionModuleItem> hashed = distribution.getLayer(layer).getModules().iterator();
+                for (final DistributionModuleItem module : expected.getLayer(layer).getModules()) {
+                    final DistributionModuleItem item = hashed.next();
+                    assertEquals(module.getFullModuleName(), item.getFullModuleName());
+                    assertArrayEquals(module.getFullModuleName(), module.getComparisonHash(), item.getComparisonHash());
+                    assertArrayEquals(module.getFullModuleName(), module.getMetadataHash(), item.getMetadataHash());
+                    modules++;
+                }
+                assertFalse(hashed.hasNext());
+            }
+            assertTrue(modules > 1);
+        } finally {
+            scheduler.shutdown();
+        }
+    }
+
+    @Test
+    public void testMaxOpenFiles() throws Exception {
+        Assume.assumeTrue(HashingThreads.isVirtualAvailable());
+        final int max = HashingThreads.MAX_OPEN_FILES;
+        final CountDownLatch started = new CountDownLatch(max);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final ExecutorService executor = HashingThreads.create(1, true);
+        try {
+            for (int i = 0; i < max * 2; i++) {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        final int current = running.incrementAndGet();
+                        int previous;
+                        while ((previous = maxRunning.get()) < current && !maxRunning.compareAndSet(previous, current)) {
+                            // retry
+                        }
+                        started.countDown();
+                        try {
+                            release.await();
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        running.decrementAndGet();
+                    }
+                });
+            }
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            // Give the tasks without a permit the chance to start anyway
+            Thread.sleep(100);
+            assertEquals(max, running.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        assertEquals(max, maxRunning.get());
+    }
+
+    private static void assertSameHashes(final DistributionContentItem expected, final DistributionContentItem item) {
+        assertEquals(expected.getPath(), item.getPath());
+        assertEquals(expected.getPath(), expected.getChildren().size(), item.getChildren().size());
+        if (expected.isLeaf()) {
+            assertArrayEquals(expected.getPath(), expected.getComparisonHash(), item.getComparisonHash());
+            assertArrayEquals(expected.getPath(), expected.getMetadataHash(), item.getMetadataHash());
+        }
+        // Both sorted the same way
+        final Iterator<DistributionContentItem> children = item.getChildren().iterator();
+        for (final DistributionContentItem child : expected.getChildren()) {
+            assertSameHashes(child, children.next());
+        }
+    }
+
+    private static boolean isVirtual(final Thread thread) throws Exception {
+        try {
+            // Java 21 and later
+            return (Boolean) Thread.class.getMethod("isVirtual").invoke(thread);
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+}
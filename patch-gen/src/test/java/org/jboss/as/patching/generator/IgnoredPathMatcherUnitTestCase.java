@@ -0,0 +1,104 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.as.patching.IoUtils;
+import org.junit.Test;
+
+public class IgnoredPathMatcherUnitTestCase {
+
+    private static final List<String> GLOBS = Arrays.asList(
+            "bin/product.conf",
+            "modules/layers.conf",
+            "standalone/configuration**",
+            "domain/servers**",
+            "org/jboss/as/product",
+            "docs/*.txt",
+            "docs/?/readme",
+            "welcome-content/",
+            "a//b",
+            "**/*.bak",
+            "x\\*y",
+            "lib*/ext"
+    );
+
+    private static final List<String> PATHS = Arrays.asList(
+            "bin", "bin/product.conf", "bin/product.conf.bak", "bin/product.conf/x", "bin/standalone.conf",
+            "modules", "modules/layers.conf", "modules/layers.confx",
+            "standalone", "standalone/configuration", "standalone/configuration_old", "standalone/configuration/standalone.xml",
+            "domain/servers", "domain/serversx/a", "domain/server",
+            "org/jboss/as/product", "org/jboss/as/product/main", "org/jboss/as/productx", "org/jboss/as",
+            "docs/a.txt", "docs/a.txt/b", "docs/sub/a.txt", "docs/a/readme", "docs/ab/readme", "docs//a.txt",
+            "welcome-content", "welcome-content/index.html", "welcome-content/a/b",
+            "a/b", "a//b", "a///b/c", "a",
+            "x.bak", "a/b/c.bak", "c.bak/d", "bak",
+            "x*y", "xzy", "x*y/z",
+            "lib/ext", "libs/ext/a", "lib/a/ext", "", "é/bin/product.conf"
+    );
+
+    @Test
+    public void testSameAsGlobPathFilter() {
+        for (final String glob : GLOBS) {
+            final DistributionContentItem.GlobPathFilter filter = new DistributionContentItem.GlobPathFilter(glob);
+            final IgnoredPathMatcher matcher = new IgnoredPathMatcher(Arrays.asList(glob));
+            for (final String path : PATHS) {
+                assertEquals(glob + " " + path, filter.accept(path), matcher.matches(path));
+                assertEquals(glob + " " + path, filter.accept(path), matcher.matches(createItem(path)));
+            }
+        }
+    }
+
+    @Test
+    public void testCombined() {
+        final IgnoredPathMatcher matcher = new IgnoredPathMatcher(GLOBS);
+        for (final String path : PATHS) {
+            boolean expected = false;
+            for (final String glob : GLOBS) {
+                expected |= new DistributionContentItem.GlobPathFilter(glob).accept(path);
+            }
+            assertEquals(path, expected, matcher.matches(path));
+            // Check the items top down, reusing the state of the parent
+            final HashArena arena = new HashArena();
+            DistributionContentItem item = null;
+            for (final String name : path.split("/")) {
+                item = new DistributionItemImpl(item, name, arena, IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+                matcher.matches(item);
+            }
+            assertEquals(path, expected, matcher.matches(item));
+        }
+    }
+
+    private static DistributionContentItem createItem(final String path) {
+        DistributionContentItem item = new DistributionItemImpl(null, null, new HashArena(), IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+        for (final String name : path.split("/")) {
+            item = new DistributionItemImpl(item, name, IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+        }
+        return item;
+    }
+
+}
@@ -0,0 +1,151 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class JarDiffUtilsUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRandomAccessWithManifest() throws Exception {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().putValue("Built-By", "someone");
+        manifest.getMainAttributes().putValue("Dependencies", "org.jboss.modules");
+
+        final File file = folder.newFile("manifest.jar");
+        final ZipOutputStream os = new JarOutputStream(new FileOutputStream(file), manifest);
+        try {
+            writeEntries(os);
+        } finally {
+            os.close();
+        }
+        assertSameEntries(file);
+    }
+
+    @Test
+    public void testRandomAccessManifestNotFirst() throws Exception {
+        final File file = folder.newFile("plain.jar");
+        final ZipOutputStream os = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            writeEntries(os);
+            os.putNextEntry(new ZipEntry(JarFile.MANIFEST_NAME));
+            os.write("Manifest-Version: 1.0\r\n\r\n".getBytes());
+            os.closeEntry();
+        } finally {
+            os.close();
+        }
+        assertSameEntries(file);
+    }
+
+    @Test
+    public void testRandomAccessDuplicateNames() throws Exception {
+        final File file = folder.newFile("duplicates.jar");
+        final ZipOutputStream os = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            writeEntries(os);
+            os.putNextEntry(new ZipEntry("org/jboss/Dup.class"));
+            os.write("first".getBytes());
+            os.closeEntry();
+            os.putNextEntry(new ZipEntry("org/jboss/Dux.class"));
+            os.write("second".getBytes());
+            os.closeEntry();
+        } finally {
+            os.close();
+        }
+        // ZipOutputStream refuses duplicate names, rename the second entry in the local and central headers
+        final String jar = new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1);
+        Files.write(file.toPath(), jar.replace("org/jboss/Dux.class", "org/jboss/Dup.class").getBytes(StandardCharsets.ISO_8859_1));
+        assertSameEntries(file);
+    }
+
+    private static void assertSameEntries(final File file) throws IOException {
+        final TreeSet<JarDiffUtils.Entry> expected = JarDiffUtils.hashEntries(file);
+        for (final int partitions : new int[] {1, 2, 3, 16, 1000}) {
+            final TreeSet<JarDiffUtils.Entry> entries = JarDiffUtils.hashEntries(file, partitions);
+            assertEquals(names(expected), names(entries));
+            assertArrayEquals(String.valueOf(partitions), hashes(expected), hashes(entries));
+        }
+    }
+
+    private static void writeEntries(final ZipOutputStream os) throws IOException {
+        final Random random = new Random(42);
+        os.putNextEntry(new ZipEntry("org/"));
+        os.closeEntry();
+        os.putNextEntry(new ZipEntry("META-INF/maven/org.jboss/test/pom.properties"));
+        os.write("version=1.0".getBytes());
+        os.closeEntry();
+        os.putNextEntry(new ZipEntry("org/jboss/Test_$logger.class"));
+        os.write(1);
+        os.closeEntry();
+        for (int i = 0; i < 200; i++) {
+            final byte[] content = new byte[random.nextInt(16 * 1024)];
+            random.nextBytes(content);
+            os.putNextEntry(new ZipEntry("org/jboss/Class" + i + ".class"));
+            os.write(content);
+            os.closeEntry();
+        }
+    }
+
+    private static List<String> names(final TreeSet<JarDiffUtils.Entry> entries) {
+        final List<String> names = new ArrayList<>();
+        for (final JarDiffUtils.Entry entry : entries) {
+            names.add(entry.getName());
+        }
+        return names;
+    }
+
+    private static byte[][] hashes(final TreeSet<JarDiffUtils.Entry> entries) {
+        final byte[][] hashes = new byte[entries.size()][];
+        int i = 0;
+        for (final JarDiffUtils.Entry entry : entries) {
+            hashes[i++] = entry.getHash();
+        }
+        return hashes;
+    }
+
+}
@@ -0,0 +1,174 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.metadata.BundleItem;
+import org.jboss.as.patching.metadata.ContentModification;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.ModificationCondition;
+import org.jboss.as.patching.metadata.ModificationType;
+import org.jboss.as.patching.metadata.ModuleItem;
+import org.jboss.as.patching.metadata.Patch;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ModificationSpoolUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final MiscContentItem bin = new MiscContentItem("bin", new String[0], null, true, false);
+        final ModificationCondition condition = ModificationCondition.Factory.exists(bin);
+        final List<ContentModification> modifications = new ArrayList<ContentModification>();
+        modifications.add(new ContentModification(new MiscContentItem("a.txt", new String[] {"docs"}, hash(1)), IoUtils.NO_CONTENT, ModificationType.ADD, null));
+        modifications.add(new ContentModification(new MiscContentItem("standalone.sh", new String[] {"bin"}, hash(2), false, true), hash(3), ModificationType.MODIFY, condition));
+        modifications.add(new ContentModification(new MiscContentItem("lib", new String[] {"docs", "examples"}, null, true, false), hash(4), ModificationType.REMOVE, null));
+        modifications.add(new ContentModification(new ModuleItem("org.jboss.as.server", "main", hash(5)), hash(6), ModificationType.MODIFY, null));
+        modifications.add(new ContentModification(new BundleItem("org.jboss.osgi", "main", hash(7)), IoUtils.NO_CONTENT, ModificationType.ADD, condition));
+
+        final ModificationSpool spool = new ModificationSpool(2);
+        try {
+            final ModificationSpool.Handles handles = new ModificationSpool.Handles();
+            for (final ContentModification modification : modifications) {
+                handles.add(spool.add(modification));
+            }
+            assertTrue(spool.isSpilled());
+            // Read back in reverse, across the heap and the file
+            for (int i = handles.size() - 1; i >= 0; i--) {
+                assertModification(modifications.get(i), spool.get(handles.get(i)));
+            }
+            final List<ContentModification> list = spool.list(handles);
+            assertEquals(modifications.size(), list.size());
+            assertSame(modifications.get(0), list.get(0));
+            assertSame(condition, list.get(4).getCondition());
+            for (int i = 0; i < list.size(); i++) {
+                assertModification(modifications.get(i), list.get(i));
+            }
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void testBelowThreshold() throws Exception {
+        final ModificationSpool spool = new ModificationSpool(10);
+        try {
+            final ContentModification modification = new ContentModification(new MiscContentItem("a.txt", new String[0], hash(1)), IoUtils.NO_CONTENT, ModificationType.ADD, null);
+            assertSame(modification, spool.get(spool.add(modification)));
+            assertFalse(spool.isSpilled());
+        } finally {
+            spool.close();
+        }
+    }
+
+    @Test
+    public void testSpecifiedContent() throws Exception {
+        final DistributionGenerator generator = new DistributionGenerator().setModules(20).setMiscFiles(200);
+        final File original = folder.newFolder("original");
+        final File updated = folder.newFolder("updated");
+        generator.generate(original);
+        generator.generate(updated);
+        generator.mutate(updated);
+        final Distribution base = Distribution.create(original);
+        final Distribution update = Distribution.create(updated);
+
+        // Specify every other misc file changed
+        final PatchConfigBuilder config = new PatchConfigBuilder();
+        config.setPatchId("specified");
+        config.setOneOffType("1.0.0");
+        config.setGenerateByDiff(false);
+        config.addElement("base");
+        config.addElement("generated");
+        final Set<String> specified = new LinkedHashSet<String>();
+        boolean include = false;
+        for (final ContentModification modification : generator.createPatchBuilder().compare(base, update, true).getModifications()) {
+            if (include) {
+                config.getSpecifiedContent().add(modification.getItem());
+                specified.add(modification.getItem().getRelativePath());
+            }
+            include = !include;
+        }
+        assertTrue(specified.size() > 5);
+
+        final ModificationSpool spool = new ModificationSpool(0);
+        try {
+            final PatchBuilderWrapper builder = config.build().toPatchBuilder();
+            builder.oneOffPatchIdentity("Generated Product", "1.0.0");
+            builder.setModificationSpool(spool);
+            final Patch patch = builder.compare(base, update, true);
+            assertTrue(spool.isSpilled());
+            final Set<String> actual = new LinkedHashSet<String>();
+            for (final ContentModification modification : patch.getModifications()) {
+                actual.add(modification.getItem().getRelativePath());
+            }
+            assertEquals(specified, actual);
+        } finally {
+            spool.close();
+        }
+    }
+
+    private static void assertModification(final ContentModification expected, final ContentModification actual) {
+        assertEquals(expected.getType(), actual.getType());
+        assertEquals(expected.getItem().getContentType(), actual.getItem().getContentType());
+        assertEquals(expected.getItem().getName(), actual.getItem().getName());
+        assertArrayEquals(expected.getItem().getContentHash(), actual.getItem().getContentHash());
+        assertArrayEquals(expected.getTargetHash(), actual.getTargetHash());
+        assertSame(expected.getCondition(), actual.getCondition());
+        if (expected.getItem() instanceof MiscContentItem) {
+            final MiscContentItem misc = (MiscContentItem) expected.getItem();
+            final MiscContentItem other = (MiscContentItem) actual.getItem();
+            assertArrayEquals(misc.getPath(), other.getPath());
+            assertEquals(misc.isDirectory(), other.isDirectory());
+            assertEquals(misc.isAffectsRuntime(), other.isAffectsRuntime());
+        } else {
+            assertEquals(((ModuleItem) expected.getItem()).getSlot(), ((ModuleItem) actual.getItem()).getSlot());
+            assertEquals(expected.getItem().getClass(), actual.getItem().getClass());
+        }
+    }
+
+    private static byte[] hash(final int seed) {
+        final byte[] hash = new byte[20];
+        for (int i = 0; i < hash.length; i++) {
+            hash[i] = (byte) (seed * 31 + i);
+        }
+        return hash;
+    }
+
+}
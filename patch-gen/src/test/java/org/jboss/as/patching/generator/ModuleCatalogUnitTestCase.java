@@ -0,0 +1,102 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+public class ModuleCatalogUnitTestCase {
+
+    private static final HashArena ARENA = new HashArena();
+
+    private static final String[][] MODULES = {
+            {"org.jboss.as.version", "main"}, {"org.jboss.as", "main"}, {"org.jboss.as-x", "main"}, {"org.jboss.as", "1.0"},
+            {"org.jboss.as.server", "main"}, {"a", "b:c"}, {"a:b", "c"}, {"org.jboss.as", "main"}, {"org", "main"},
+    };
+
+    @Test
+    public void testSameOrderAsTreeSet() {
+        final TreeSet<String> expected = new TreeSet<String>();
+        final ModuleCatalog catalog = new ModuleCatalog();
+        for (final String[] module : MODULES) {
+            final DistributionModuleItem item = item(module[0], module[1], 0);
+            expected.add(item.getFullModuleName());
+            catalog.add(item);
+        }
+        final List<String> names = new ArrayList<String>();
+        for (final DistributionModuleItem item : catalog) {
+            names.add(item.getFullModuleName());
+        }
+        assertEquals(new ArrayList<String>(expected), names);
+    }
+
+    @Test
+    public void testCompare() {
+        final ModuleCatalog original = new ModuleCatalog();
+        original.add(item("org.jboss.as.server", "main", 1));
+        original.add(item("org.jboss.as.removed", "main", 2));
+        original.add(item("org.jboss.as.same", "main", 3));
+        final ModuleCatalog updated = new ModuleCatalog();
+        updated.add(item("org.jboss.as.same", "main", 3));
+        updated.add(item("org.jboss.as.added", "main", 4));
+        updated.add(item("org.jboss.as.server", "main", 5));
+        updated.add(item("org.jboss.as.new", "main", 6));
+
+        final List<String> result = new ArrayList<String>();
+        ModuleCatalog.compare(original, updated, new ModuleCatalog.Visitor() {
+            @Override
+            public void removed(final DistributionModuleItem original) {
+                result.add("removed " + original.getFullModuleName());
+            }
+
+            @Override
+            public void added(final DistributionModuleItem updated) {
+                result.add("added " + updated.getFullModuleName());
+            }
+
+            @Override
+            public void matched(final DistributionModuleItem original, final DistributionModuleItem updated, final boolean sameComparison) {
+                result.add((sameComparison ? "same " : "modified ") + updated.getFullModuleName());
+            }
+        });
+        // The added modules come last, as they did when comparing the module sets
+        final List<String> expected = new ArrayList<String>();
+        Collections.addAll(expected, "removed org.jboss.as.removed:main", "same org.jboss.as.same:main",
+                "modified org.jboss.as.server:main", "added org.jboss.as.added:main", "added org.jboss.as.new:main");
+        assertEquals(expected, result);
+    }
+
+    private static DistributionModuleItem item(final String name, final String slot, final int content) {
+        final byte[] hash = new byte[HashArena.WIDTH];
+        Arrays.fill(hash, (byte) content);
+        return new DistributionModuleItem(name, slot, ARENA, hash, hash);
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.as.patching.IoUtils;
+import org.jboss.as.patching.metadata.MiscContentItem;
+import org.jboss.as.patching.metadata.PatchElementBuilder;
+import org.junit.Test;
+
+/**
+ * Checks the compiled optional paths against the algorithm they replaced, which walked the patch-config tree for
+ * every item.
+ */
+public class OptionalPathMatcherUnitTestCase {
+
+    private static final List<OptionalPath> OPTIONAL_PATHS = Arrays.asList(
+            OptionalPath.create("appclient"),
+            OptionalPath.create("docs", "docs/index.html"),
+            OptionalPath.create("docs/examples"),
+            OptionalPath.create("opt/a", "opt/required.txt"),
+            OptionalPath.create("opt/a/b", "opt/a/other/b.txt"),
+            OptionalPath.create("domain/configuration/host*"),
+            OptionalPath.create("welcome-content", "welcome-content"));
+
+    private static final String[] ITEMS = {
+            "appclient", "appclient/configuration/appclient.xml",
+            "docs", "docs/index.html", "docs/other.txt", "docs/examples", "docs/examples/configs/standalone.xml",
+            "opt", "opt/required.txt", "opt/a", "opt/a/c.txt", "opt/a/b", "opt/a/b/c/d.txt",
+            "domain", "domain/configuration", "domain/configuration/host.xml", "domain/configuration/host-slave.xml",
+            "domain/configuration/domain.xml", "welcome-content/index.html", "bin/standalone.sh", "modules"};
+
+    @Test
+    public void testSameConditions() {
+        final PatchBuilderWrapper wrapper = new PatchBuilderWrapper() {
+            @Override
+            PatchElementBuilder modifyLayer(final String name, final boolean addOn) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        wrapper.setOptionalPaths(OPTIONAL_PATHS);
+        final OptionalPathMatcher matcher = wrapper.getOptionalPathMatcher();
+        final Reference reference = new Reference("root");
+        for (final OptionalPath path : OPTIONAL_PATHS) {
+            final Reference e = reference.addChild(path.getValue().split("/"));
+            if (path.getRequires() != null) {
+                e.requires = path.getRequires().split("/");
+            }
+        }
+
+        int matched = 0;
+        final DistributionContentItem root = new DistributionItemImpl(null, null, new HashArena(), IoUtils.NO_CONTENT, IoUtils.NO_CONTENT, false);
+        for (final String path : ITEMS) {
+            final DistributionContentItem item = DistributionStructureImpl.createMiscItem(root, path);
+            final MiscContentItem expected = Reference.getRequiredItem(reference, item);
+            final MiscContentItem actual = matcher.getRequiredItem(item);
+            if (expected == null) {
+                assertNull(path, actual);
+                assertNull(path, matcher.getCondition(item));
+                continue;
+            }
+            matched++;
+            assertNotNull(path, actual);
+            assertNotNull(path, matcher.getCondition(item));
+            assertEquals(path, expected.getName(), actual.getName());
+            assertArrayEquals(path, expected.getPath(), actual.getPath());
+            assertEquals(path, expected.isDirectory(), actual.isDirectory());
+        }
+        assertEquals(14, matched);
+
+        // The item required by the patch-config, not the optional directory
+        final MiscContentItem required = matcher.getRequiredItem(DistributionStructureImpl.createMiscItem(root, "welcome-content/index.html"));
+        assertEquals("welcome-content", required.getName());
+        assertEquals(0, required.getPath().length);
+        assertEquals(false, required.isDirectory());
+    }
+
+    /**
+     * The optional path tree and matching as they were before {@link OptionalPathMatcher}.
+     */
+    private static final class Reference {
+
+        private String name;
+        private boolean containsWildcard;
+        private Map<String, Reference> children = Collections.emptyMap();
+        private String[] requires;
+
+        Reference(final String name) {
+            containsWildcard = name.charAt(name.length() - 1) == '*';
+            this.name = containsWildcard ? name.substring(0, name.length() - 1) : name;
+        }
+
+        Reference(final Reference linkTo) {
+            containsWildcard = linkTo.containsWildcard;
+            name = linkTo.name;
+            children = linkTo.children;
+        }
+
+        static MiscContentItem getRequiredItem(final Reference optionalPaths, final DistributionContentItem item) {
+            if (optionalPaths.children.isEmpty()) {
+                return null;
+            }
+            final Reference e = new Reference(optionalPaths);
+            final List<String> path = matchOptionalPath(e, item);
+            if (path == null) {
+                return null;
+            }
+            if (e.requires != null) {
+                return new MiscContentItem(e.requires[0], Arrays.asList(Arrays.copyOf(e.requires, e.requires.length - 1)), null, false);
+            }
+            return new MiscContentItem(e.name, path, null, true);
+        }
+
+        static List<String> matchOptionalPath(final Reference root, final DistributionContentItem item) {
+            if (item.getParent() == null || item.getParent().name == null) {
+                final Reference dir = root.getMatchingElement(item.getName());
+                if (dir != null) {
+                    root.linkTo(dir);
+                    return Collections.emptyList();
+                }
+                return null;
+            }
+            List<String> path = matchOptionalPath(root, item.getParent());
+            if (path == null) {
+                return null;
+            }
+            if (root.children.isEmpty()) {
+                return path;
+            }
+            final Reference dir = root.getMatchingElement(item.getName());
+            if (dir != null) {
+                path = new ArrayList<String>(path);
+                path.add(root.name);
+                root.linkTo(dir);
+                return path;
+            }
+            return null;
+        }
+
+        Reference getMatchingElement(final String targetName) {
+            for (final Reference child : children.values()) {
+                if (child.containsWildcard ? targetName.startsWith(child.name) : child.name.equals(targetName)) {
+                    return child;
+                }
+            }
+            return null;
+        }
+
+        Reference addChild(final String... names) {
+            Reference parent = this;
+            Reference child = null;
+            for (final String name : names) {
+                child = parent.children.get(name);
+                if (child == null) {
+                    child = new Reference(name);
+                    if (parent.children.isEmpty()) {
+                        parent.children = new HashMap<String, Reference>();
+                    }
+                    parent.children.put(child.name, child);
+                }
+                parent = child;
+            }
+            return child;
+        }
+
+        void linkTo(final Reference dir) {
+            this.containsWildcard = dir.containsWildcard;
+            this.name = dir.name;
+            this.children = dir.children;
+            this.requires = dir.requires;
+        }
+    }
+
+}
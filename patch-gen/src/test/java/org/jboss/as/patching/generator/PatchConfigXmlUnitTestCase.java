@@ -259,6 +259,22 @@ public class PatchConfigXmlUnitTestCase {
         optionalPaths.contains(OptionalPath.create("bin/appclient.txt", "dir/appclient"));
     }
 
+    @Test
+    public void testDetailedInspection() throws Exception {
+
+        final InputStream is = getResource("test-config07.xml");
+        final PatchConfig patchConfig = PatchConfigXml.parse(is);
+        assertNotNull(patchConfig);
+        assertEquals(Arrays.asList("org.hibernate", "org.jboss.as.*"), patchConfig.getDetailedInspectionModules());
+
+        final ModuleDiffUtils moduleDiffUtils = new ModuleDiffUtils(false, patchConfig.getDetailedInspectionModules());
+        assertTrue(moduleDiffUtils.isDeepInspection("org.hibernate"));
+        assertTrue(moduleDiffUtils.isDeepInspection("org.jboss.as.server"));
+        assertFalse(moduleDiffUtils.isDeepInspection("org.hibernate.validator"));
+        assertFalse(moduleDiffUtils.isDeepInspection("org.jboss.ast"));
+        assertTrue(new ModuleDiffUtils(true, patchConfig.getDetailedInspectionModules()).isDeepInspection("org.jboss.ast"));
+    }
+
     private static InputStream getResource(String name) throws IOException {
         final URL resource = PatchConfigXmlUnitTestCase.class.getClassLoader().getResource(name);
         assertNotNull(name, resource);
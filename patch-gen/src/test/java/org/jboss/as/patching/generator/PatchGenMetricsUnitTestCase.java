@@ -0,0 +1,78 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PatchGenMetricsUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testDisabled() {
+        final PatchGenMetrics metrics = PatchGenMetrics.DISABLED;
+        assertEquals(0L, metrics.start());
+        metrics.record(PatchGenMetrics.Operation.COPY, "item", 10, 0);
+        assertEquals(0L, metrics.getCount(PatchGenMetrics.Operation.COPY));
+        assertEquals(0L, metrics.getBytes(PatchGenMetrics.Operation.COPY));
+    }
+
+    @Test
+    public void testReport() throws Exception {
+        final PatchGenMetrics metrics = new PatchGenMetrics(true, 2);
+        final long now = System.nanoTime();
+        metrics.record(PatchGenMetrics.Operation.METADATA_HASH, "fast", 100, now - 1000000L);
+        metrics.record(PatchGenMetrics.Operation.METADATA_HASH, "slow\"est", 200, now - 3000000000L);
+        metrics.record(PatchGenMetrics.Operation.COPY, "slower", 300, now - 2000000000L);
+        metrics.record(PatchGenMetrics.Operation.ZIP, "patch.zip", 400, now - 2000L);
+        assertEquals(2L, metrics.getCount(PatchGenMetrics.Operation.METADATA_HASH));
+        assertEquals(300L, metrics.getBytes(PatchGenMetrics.Operation.METADATA_HASH));
+
+        final File report = new File(folder.getRoot(), "report.json");
+        metrics.writeReport(report, new PhaseTimings(false));
+        final String json = new String(Files.readAllBytes(report.toPath()), StandardCharsets.UTF_8);
+        // The hashing and the copy read, the copy and the zip write
+        assertTrue(json.contains("\"bytesRead\": 600,"));
+        assertTrue(json.contains("\"bytesWritten\": 700,"));
+        assertTrue(json.contains("\"metadataHash\": {\"count\": 2,"));
+        // Only the two slowest items are kept, the slowest first
+        final int slowest = json.indexOf("\"item\": \"slow\\\"est\"");
+        final int slower = json.indexOf("\"item\": \"slower\"");
+        assertTrue(slowest > 0);
+        assertTrue(slower > slowest);
+        assertFalse(json.contains("\"item\": \"fast\""));
+        assertFalse(json.contains("\"item\": \"patch.zip\""));
+    }
+
+}
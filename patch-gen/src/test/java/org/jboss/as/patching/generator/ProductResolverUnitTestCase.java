@@ -0,0 +1,137 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.jar.Attributes;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ProductResolverUnitTestCase {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File root;
+    private File base;
+    private File layer;
+
+    @Before
+    public void setup() throws IOException {
+        root = folder.newFolder("distribution");
+        base = new File(root, "modules/system/layers/base");
+        layer = new File(root, "modules/system/layers/test");
+    }
+
+    @Test
+    public void testProductModule() throws Exception {
+        write(new File(root, "bin/product.conf"), "slot=product\n");
+        // The first module root providing the module wins
+        createModule(layer, "org.jboss.as.product", "product", manifest("Test Product", "1.1.0"), false);
+        createModule(base, "org.jboss.as.product", "product", manifest("Base Product", "1.0.0"), false);
+
+        final ProductResolver resolver = new ProductResolver(root, Arrays.asList(layer, base));
+        assertTrue(resolver.resolve());
+        assertEquals("Test Product", resolver.getName());
+        assertEquals("1.1.0", resolver.getVersion());
+    }
+
+    @Test
+    public void testServerVersion() throws Exception {
+        write(new File(root, "bin/product.conf"), "slot=product\n");
+        createModule(base, "org.jboss.as.product", "product", manifest("Test Product", null), false);
+        createModule(base, "org.jboss.as.version", "main", manifest(null, "2.0.0"), true);
+
+        final ProductResolver resolver = new ProductResolver(root, Arrays.asList(layer, base));
+        assertTrue(resolver.resolve());
+        assertEquals("Test Product", resolver.getName());
+        assertEquals("2.0.0", resolver.getVersion());
+    }
+
+    @Test
+    public void testNoProduct() throws Exception {
+        createModule(base, "org.jboss.as.version", "main", manifest(null, "2.0.0"), true);
+        assertFalse(new ProductResolver(root, Arrays.asList(layer, base)).resolve());
+
+        write(new File(root, "bin/product.conf"), "slot=missing\n");
+        assertFalse(new ProductResolver(root, Arrays.asList(layer, base)).resolve());
+    }
+
+    private static Manifest manifest(final String name, final String version) {
+        final Manifest manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        if (name != null) {
+            manifest.getMainAttributes().putValue("JBoss-Product-Release-Name", name);
+        }
+        if (version != null) {
+            manifest.getMainAttributes().putValue("JBoss-Product-Release-Version", version);
+        }
+        return manifest;
+    }
+
+    private static void createModule(final File moduleRoot, final String name, final String slot, final Manifest manifest, final boolean jar) throws IOException {
+        final File moduleDir = new File(moduleRoot, name.replace('.', '/') + "/" + slot);
+        final String resourceRoot = jar ? "module.jar" : "dir";
+        write(new File(moduleDir, "module.xml"), "<module xmlns=\"urn:jboss:module:1.1\" name=\"" + name + "\" slot=\"" + slot + "\">\n"
+                + "    <resources>\n        <resource-root path=\"" + resourceRoot + "\"/>\n    </resources>\n</module>\n");
+        if (jar) {
+            final OutputStream os = new JarOutputStream(new FileOutputStream(new File(moduleDir, resourceRoot)), manifest);
+            os.close();
+        } else {
+            final File file = new File(moduleDir, resourceRoot + "/META-INF/MANIFEST.MF");
+            file.getParentFile().mkdirs();
+            final OutputStream os = new FileOutputStream(file);
+            try {
+                manifest.write(os);
+            } finally {
+                os.close();
+            }
+        }
+    }
+
+    private static void write(final File file, final String content) throws IOException {
+        file.getParentFile().mkdirs();
+        final Writer writer = new FileWriter(file);
+        try {
+            writer.write(content);
+        } finally {
+            writer.close();
+        }
+    }
+
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2026, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.patching.generator;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.as.patching.generator.PatchGenerationListener.Phase;
+import org.junit.Test;
+
+public class ProgressTrackerUnitTestCase {
+
+    @Test
+    public void testBatchedCounts() {
+        final List<String> events = new ArrayList<String>();
+        final PatchGenerationListener listener = new PatchGenerationListener() {
+            @Override
+            public void phaseStarted(Phase phase) {
+                events.add("start " + phase);
+            }
+
+            @Override
+            public void phaseFinished(Phase phase) {
+                events.add("finish " + phase);
+            }
+
+            @Override
+            public void itemsDiscovered(long items, long bytes) {
+                events.add("discovered " + items + " " + bytes);
+            }
+
+            @Override
+            public void itemsHashed(long items, long bytes) {
+                events.add("hashed " + items + " " + bytes);
+            }
+
+            @Override
+            public void modificationsFound(int modifications) {
+                events.add("modifications " + modifications);
+            }
+        };
+        final ProgressTracker tracker = new ProgressTracker(new PhaseTimings(false), listener);
+        tracker.startPhase(Phase.SCAN);
+        tracker.itemDiscovered(10);
+        tracker.itemDiscovered(20);
+        tracker.itemHashed(10);
+        tracker.startPhase(Phase.HASH);
+        tracker.itemHashed(20);
+        tracker.startPhase(Phase.COMPARE);
+        tracker.modificationsFound(3);
+        tracker.close();
+
+        // The counts are passed on in batches, at the latest when a phase finishes
+        final List<String> expected = new ArrayList<String>();
+        expected.add("start SCAN");
+        expected.add("discovered 2 30");
+        expected.add("hashed 1 10");
+        expected.add("finish SCAN");
+        expected.add("start HASH");
+        expected.add("hashed 1 20");
+        expected.add("finish HASH");
+        expected.add("start COMPARE");
+        expected.add("modifications 3");
+        expected.add("finish COMPARE");
+        assertEquals(expected, events);
+    }
+
+    @Test
+    public void testNoListener() {
+        final PhaseTimings timings = new PhaseTimings(false);
+        final ProgressTracker tracker = new ProgressTracker(timings, null);
+        tracker.startPhase(Phase.SCAN);
+        tracker.itemDiscovered(10);
+        tracker.close();
+        assertEquals(timings, tracker.getTimings());
+    }
+
+}